@@ -0,0 +1,185 @@
+/*
+ * DeskAgenda - Comparación de motores de alertas
+ *
+ * No forma parte de la aplicación. Se compila junto con src/:
+ *
+ *   javac -encoding UTF-8 -d build/bench $(find src bench -name '*.java')
+ *   java -cp build/bench logica.BenchAlertas [cantidades...]
+ */
+package logica;
+
+// === IMPORTS DE FECHA Y HORA ===
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+
+// === IMPORTS DE COLECCIONES ===
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * BENCHMARK DE ALERTAS
+ * ====================
+ *
+ * Simula un día completo de una agenda con N tareas diarias con alerta:
+ *  - "revision 30s": lo que hacía GestorFechas antes, revisar todas las
+ *    tareas con debeAlertar() cada 30 segundos
+ *  - "monticulo":    PlanificadorAlertas con ColaPrioridadAlertas
+ *  - "rueda":        PlanificadorAlertas con RuedaAlertas
+ *
+ * Para los dos motores se mide programar, reprogramar (mover cada tarea al
+ * día siguiente, lo que pasa con reiniciarSiNecesario) y recorrer el día:
+ * saltar al próximo instante, sacar las vencidas y reprogramarlas para
+ * mañana. El tiempo es simulado; no se duerme.
+ *
+ * Al final compara las alertas de cada motor con las de la revisión cada
+ * 30 segundos (la de verificarTareasProximasYNotificar): tienen que ser las
+ * mismas tareas y cada una dentro de su ventana de debeAlertar().
+ */
+public class BenchAlertas {
+
+    private static final ZoneId ZONA = ZoneId.systemDefault();
+    private static final int[] SEGUNDOS_ANTES = {0, 30, 60, 300, 900};
+
+    public static void main(String[] args) {
+        int[] cantidades = {1_000, 10_000, 100_000};
+        if (args.length > 0) {
+            cantidades = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                cantidades[i] = Integer.parseInt(args[i]);
+            }
+        }
+        LocalDate dia = LocalDate.now().plusDays(1);
+
+        // Calentamiento para que el JIT compile antes de medir
+        for (int i = 0; i < 3; i++) {
+            medir(crearTareas(5_000, dia, 7), dia, false);
+        }
+
+        System.out.printf("%-8s %-13s %14s %14s %14s %12s %9s %s%n",
+                "tareas", "motor", "programar", "reprogramar", "cancelar", "dia", "alertas", "coincide");
+        for (int cantidad : cantidades) {
+            medir(crearTareas(cantidad, dia, 42), dia, true);
+        }
+    }
+
+    private static void medir(List<Tarea> tareas, LocalDate dia, boolean imprimir) {
+        long inicioMs = ms(dia.atStartOfDay());
+        long finMs = ms(dia.plusDays(1).atTime(0, 2));
+
+        // Revisión cada 30 segundos
+        Map<Long, Long> porRevision = new HashMap<>();
+        long t0 = System.nanoTime();
+        for (long ahora = inicioMs; ahora <= finMs; ahora += 30_000) {
+            LocalDateTime fechaHora = LocalDateTime.ofInstant(Instant.ofEpochMilli(ahora), ZONA);
+            for (Tarea tarea : tareas) {
+                if (!porRevision.containsKey(tarea.getId()) && GestorFechas.debeAlertar(tarea, fechaHora)) {
+                    porRevision.put(tarea.getId(), ahora);
+                }
+            }
+        }
+        long nsRevision = System.nanoTime() - t0;
+        if (imprimir) {
+            System.out.printf("%-8d %-13s %14s %14s %14s %10.1fms %9d %s%n",
+                    tareas.size(), "revision 30s", "-", "-", "-", nsRevision / 1e6, porRevision.size(), "referencia");
+        }
+
+        medirMotor("monticulo", new ColaPrioridadAlertas(), tareas, inicioMs, finMs, porRevision, imprimir);
+        medirMotor("rueda", new RuedaAlertas(inicioMs), tareas, inicioMs, finMs, porRevision, imprimir);
+    }
+
+    private static void medirMotor(String nombre, ColaAlertas cola, List<Tarea> originales,
+                                   long inicioMs, long finMs, Map<Long, Long> referencia, boolean imprimir) {
+        List<Tarea> tareas = new ArrayList<>(originales.size());
+        Map<Long, Tarea> porId = new HashMap<>();
+        for (Tarea original : originales) {
+            Tarea copia = original.copiar();
+            tareas.add(copia);
+            porId.put(copia.getId(), copia);
+        }
+        long[] instantes = new long[tareas.size()];
+        Map<Long, Long> instantePorId = new HashMap<>();
+        for (int i = 0; i < tareas.size(); i++) {
+            instantes[i] = GestorFechas.instanteAlertaMs(tareas.get(i));
+            instantePorId.put(tareas.get(i).getId(), instantes[i]);
+        }
+
+        // Programar todas (como al abrir la aplicación)
+        long t0 = System.nanoTime();
+        for (int i = 0; i < tareas.size(); i++) {
+            cola.programar(tareas.get(i).getId(), instantes[i]);
+        }
+        long nsProgramar = System.nanoTime() - t0;
+
+        // Reprogramar todas un día más tarde y volver (dos cambios por tarea)
+        t0 = System.nanoTime();
+        for (int i = 0; i < tareas.size(); i++) {
+            cola.programar(tareas.get(i).getId(), instantes[i] + 86_400_000L);
+        }
+        for (int i = 0; i < tareas.size(); i++) {
+            cola.programar(tareas.get(i).getId(), instantes[i]);
+        }
+        long nsReprogramar = System.nanoTime() - t0;
+
+        // Recorrer el día como lo haría el hilo del planificador
+        Map<Long, Long> disparadas = new HashMap<>();
+        Set<Long> fueraDeVentana = new HashSet<>();
+        long[] ahora = {inicioMs};
+        t0 = System.nanoTime();
+        while (true) {
+            long proximo = Math.max(cola.proximoInstante(), ahora[0]);
+            if (proximo > finMs) {
+                break;
+            }
+            ahora[0] = proximo;
+            cola.extraerVencidas(proximo, id -> {
+                Tarea tarea = porId.get(id);
+                if (disparadas.putIfAbsent(id, ahora[0]) == null && ahora[0] >= GestorFechas.finAlertaMs(tarea)) {
+                    fueraDeVentana.add(id);
+                }
+                // Al completarse la repetición, la tarea pasa al día siguiente
+                cola.programar(id, instantePorId.merge(id, 86_400_000L, Long::sum));
+            });
+        }
+        long nsDia = System.nanoTime() - t0;
+
+        // Cancelar todas
+        t0 = System.nanoTime();
+        for (Tarea tarea : tareas) {
+            cola.cancelar(tarea.getId());
+        }
+        long nsCancelar = System.nanoTime() - t0;
+
+        boolean coincide = disparadas.keySet().equals(referencia.keySet()) && fueraDeVentana.isEmpty();
+        if (imprimir) {
+            int n = tareas.size();
+            System.out.printf("%-8d %-13s %11.1fns %11.1fns %11.1fns %10.1fms %9d %s%n",
+                    n, nombre, (double) nsProgramar / n, (double) nsReprogramar / (2 * n),
+                    (double) nsCancelar / n, nsDia / 1e6, disparadas.size(), coincide ? "si" : "NO");
+        }
+    }
+
+    private static List<Tarea> crearTareas(int cantidad, LocalDate dia, long semilla) {
+        Random azar = new Random(semilla);
+        List<Tarea> tareas = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            LocalTime hora = LocalTime.ofSecondOfDay(azar.nextInt(86_400));
+            Tarea tarea = new Tarea("Tarea " + i, dia, hora, Tarea.TipoTarea.DIARIA);
+            tarea.setAlertaActiva(true);
+            tarea.setSegundosAntesAlerta(SEGUNDOS_ANTES[azar.nextInt(SEGUNDOS_ANTES.length)]);
+            tareas.add(tarea);
+        }
+        return tareas;
+    }
+
+    private static long ms(LocalDateTime fechaHora) {
+        return fechaHora.atZone(ZONA).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * DeskAgenda - Microbenchmark de la cuenta regresiva (JMH)
+ *
+ * No forma parte de la aplicación. Se corre con:
+ *
+ *   ant bench -Dbench.args="BenchCuentaRegresiva -prof gc"
+ */
+package logica;
+
+// === IMPORTS DE FECHA Y HORA ===
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+// === IMPORTS DE UTILIDADES JAVA ===
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// === IMPORTS DE JMH ===
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * BENCHMARK DE LA CUENTA REGRESIVA
+ * ================================
+ *
+ * Un "tic" de la columna "Estado" para "filas" tareas, con tres caminos:
+ *  - stringFormat:  el de antes (LocalDateTime, ChronoUnit y String.format
+ *                   por tarea)
+ *  - formateador:   FormateadorCuentaRegresiva desde los segundos que
+ *                   faltan, pasando el texto anterior de cada fila (el
+ *                   texto cambia, como en cada segundo real)
+ *  - sinCambios:    igual, pero con el texto que ya tenía la fila (tareas a
+ *                   más de un día, cuyo texto no cambia entre segundos)
+ *
+ * Con -prof gc se ve la memoria creada por tic (gc.alloc.rate.norm).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BenchCuentaRegresiva {
+
+    @Param({"20", "1000"})
+    int filas;
+
+    private LocalDateTime ahora;
+    private LocalDateTime[] fechasHora;
+    private long[] restantes;
+    private String[] textos;
+    private final FormateadorCuentaRegresiva formateador = new FormateadorCuentaRegresiva();
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        Random azar = new Random(42);
+        ahora = LocalDateTime.of(2026, 1, 1, 12, 0);
+        fechasHora = new LocalDateTime[filas];
+        restantes = new long[filas];
+        textos = new String[filas];
+        for (int i = 0; i < filas; i++) {
+            long segundos = azar.nextInt(5 * 86400);
+            fechasHora[i] = ahora.plusSeconds(segundos);
+            restantes[i] = segundos;
+            textos[i] = formateador.formatear(segundos, null);
+        }
+    }
+
+    @Benchmark
+    public void stringFormat(Blackhole bh) {
+        for (int i = 0; i < filas; i++) {
+            bh.consume(textoConFormat(ahora, fechasHora[i]));
+        }
+    }
+
+    @Benchmark
+    public void formateador(Blackhole bh) {
+        for (int i = 0; i < filas; i++) {
+            // Un segundo después: el texto de las filas de menos de un día cambia
+            bh.consume(formateador.formatear(restantes[i] - 1, textos[i]));
+        }
+    }
+
+    @Benchmark
+    public void sinCambios(Blackhole bh) {
+        for (int i = 0; i < filas; i++) {
+            bh.consume(formateador.formatear(restantes[i], textos[i]));
+        }
+    }
+
+    /**
+     * Copia del cálculo anterior de GestorTareas.textoEstado, como referencia.
+     */
+    private static String textoConFormat(LocalDateTime ahora, LocalDateTime fechaHoraTarea) {
+        if (ahora.isAfter(fechaHoraTarea)) {
+            return "Vencida";
+        }
+        long diffSegundos = ChronoUnit.SECONDS.between(ahora, fechaHoraTarea);
+        long dias = diffSegundos / (24 * 3600);
+        diffSegundos %= (24 * 3600);
+        long horas = diffSegundos / 3600;
+        diffSegundos %= 3600;
+        long minutos = diffSegundos / 60;
+        long segundos = diffSegundos % 60;
+        if (dias > 0) {
+            return String.format("%d d %02d h", dias, horas);
+        }
+        return String.format("%02d:%02d:%02d", horas, minutos, segundos);
+    }
+}
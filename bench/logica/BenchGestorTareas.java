@@ -0,0 +1,168 @@
+/*
+ * DeskAgenda - Microbenchmark de la tabla y las alertas (JMH)
+ *
+ * No forma parte de la aplicación. Se corre con:
+ *
+ *   ant bench -Dbench.args="BenchGestorTareas"
+ */
+package logica;
+
+// === IMPORTS DE PERSISTENCIA ===
+import persistencia.IRepositorioTareas;
+
+// === IMPORTS DE UTILIDADES JAVA ===
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// === IMPORTS DE JMH ===
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * BENCHMARK DEL GESTOR DE TAREAS
+ * ==============================
+ *
+ *  - obtenerTareasParaTabla:  la lista en el orden de la tabla
+ *  - crearFilaTabla:          las 7 columnas de texto de todas las tareas
+ *                             (lo que hacía antes la tabla cada segundo)
+ *  - verificarAlertas:        GestorFechas.verificarTareasProximasYNotificar,
+ *                             la revisión completa de alertas, con una de
+ *                             cada 10.000 tareas (al menos una) para avisar
+ *
+ * El repositorio no guarda nada: solo se mide el trabajo en memoria.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class BenchGestorTareas {
+
+    @Param({"1000", "100000", "1000000"})
+    int tareas;
+
+    private GestorTareas gestor;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        List<Tarea> agenda = GeneradorAgenda.generar(tareas, 42);
+        gestor = new GestorTareas(new RepositorioEnMemoria(agenda));
+    }
+
+    /**
+     * Estado de verificarAlertas (aparte, para que rearmar las alertas en
+     * cada llamada no se haga en los otros benchmarks).
+     *
+     * Avisar una alerta la desactiva: sin rearmarlas, desde la segunda
+     * llamada se mediría una revisión sin nada para avisar. Las alertas
+     * que vencen solas en el planificador se descartan (no tocan el
+     * GestorTareas desde otro hilo mientras se mide).
+     */
+    @State(Scope.Benchmark)
+    public static class Alertas {
+        private GestorTareas gestor;
+        private GestorFechas gestorFechas;
+        private final List<Tarea> paraAvisar = new ArrayList<>();
+        private PrintStream salidaOriginal;
+
+        @Setup(Level.Trial)
+        public void preparar(BenchGestorTareas bench) {
+            gestor = bench.gestor;
+            // Pendientes, con alerta, que vencen dentro de media hora y avisan una hora antes:
+            // debeAlertar() las acepta durante todo el trial
+            LocalDateTime enMediaHora = LocalDateTime.now().plusMinutes(30).withNano(0);
+            List<Tarea> todas = gestor.getTareas();
+            for (int i = 0; i < todas.size(); i += 10_000) {
+                Tarea tarea = todas.get(i);
+                tarea.setCompletada(false);
+                tarea.setFecha(LocalDate.from(enMediaHora));
+                tarea.setHora(enMediaHora.toLocalTime());
+                tarea.setSegundosAntesAlerta(3600);
+                paraAvisar.add(tarea);
+            }
+            gestor.actualizarTareas(paraAvisar);
+            gestorFechas = new GestorFechas(gestor, null, aviso -> { });
+            // Cada aviso escribe una línea: se calcula igual, pero no llena la salida de JMH
+            salidaOriginal = System.out;
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        }
+
+        @Setup(Level.Invocation)
+        public void rearmar() {
+            for (Tarea tarea : paraAvisar) {
+                tarea.setAlertaActiva(true);
+            }
+            gestor.actualizarTareas(paraAvisar);
+        }
+
+        @TearDown(Level.Trial)
+        public void terminar() {
+            gestorFechas.detenerTimer();
+            System.setOut(salidaOriginal);
+        }
+    }
+
+    @Benchmark
+    public List<Tarea> obtenerTareasParaTabla() {
+        return gestor.obtenerTareasParaTabla();
+    }
+
+    @Benchmark
+    public void crearFilaTabla(Blackhole bh) {
+        for (Tarea tarea : gestor.obtenerTareasParaTabla()) {
+            bh.consume(gestor.crearFilaTabla(tarea));
+        }
+    }
+
+    @Benchmark
+    public void verificarAlertas(Alertas alertas) {
+        alertas.gestorFechas.verificarTareasProximasYNotificar();
+    }
+
+    /**
+     * Entrega la agenda generada al cargar y descarta los guardados.
+     */
+    private static final class RepositorioEnMemoria implements IRepositorioTareas {
+        private final List<Tarea> agenda;
+
+        RepositorioEnMemoria(List<Tarea> agenda) {
+            this.agenda = agenda;
+        }
+
+        @Override
+        public void guardarTareas(List<Tarea> tareas) {
+        }
+
+        @Override
+        public List<Tarea> cargarTareas() {
+            return new ArrayList<>(agenda);
+        }
+
+        @Override
+        public void exportarTareas(List<Tarea> tareas, String archivo) {
+        }
+
+        @Override
+        public List<Tarea> importarTareas(String archivo) {
+            return new ArrayList<>();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * DeskAgenda - Benchmark del traspaso a la instancia abierta (JMH)
+ *
+ * No forma parte de la aplicación. Se corre con:
+ *
+ *   ant bench -Dbench.args="BenchTraspaso"
+ */
+package logica;
+
+// === IMPORTS DE ENTRADA/SALIDA ===
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// === IMPORTS DE CONCURRENCIA ===
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// === IMPORTS DE JMH ===
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * BENCHMARK DEL TRASPASO
+ * ======================
+ *
+ * Lo que hace una segunda instancia al arrancar (enviarSeñalActivacion):
+ * conectarse, enviar la señal y cerrar, hasta que el servidor de la
+ * instancia abierta pide activar la ventana. Se mide por:
+ *  - unix: socket Unix en un directorio temporal
+ *  - tcp:  loopback, en un puerto libre
+ *
+ * El servidor es el de la aplicación (ServidorComandos, sin motor).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BenchTraspaso {
+
+    private static final byte[] SEÑAL = {1};
+
+    @Param({"unix", "tcp"})
+    String transporte;
+
+    private final Semaphore activaciones = new Semaphore(0);
+    private ServidorComandos servidor;
+    private Path carpeta;
+    private Path socket;
+    private int puerto;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        ServerSocketChannel canal;
+        if ("unix".equals(transporte)) {
+            if (!TransporteLocal.unixDisponible()) {
+                throw new IllegalStateException("Este Java no tiene sockets Unix (hace falta Java 16 o más)");
+            }
+            carpeta = Files.createTempDirectory("deskagenda-bench");
+            socket = carpeta.resolve("agenda.sock");
+            canal = TransporteLocal.abrirServidorUnix(socket);
+        } else {
+            canal = TransporteLocal.abrirServidorTcp(0);
+            puerto = ((InetSocketAddress) canal.getLocalAddress()).getPort();
+        }
+        servidor = new ServidorComandos(canal, () -> null, activaciones::release, null); // Solo activación
+        new Thread(servidor, "bench-servidor").start();
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws IOException {
+        servidor.cerrar();
+        if (socket != null) {
+            Files.deleteIfExists(socket);
+            Files.deleteIfExists(carpeta);
+        }
+    }
+
+    @Benchmark
+    public void traspaso() throws IOException, InterruptedException {
+        try (SocketChannel canal = socket != null ? TransporteLocal.conectarUnix(socket) : TransporteLocal.conectarTcp(puerto)) {
+            canal.write(ByteBuffer.wrap(SEÑAL));
+        }
+        activaciones.acquire(); // Hasta que la instancia abierta la recibió
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * DeskAgenda - Agendas sintéticas para los benchmarks
+ *
+ * No forma parte de la aplicación.
+ */
+package logica;
+
+// === IMPORTS DE FECHA Y HORA ===
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+// === IMPORTS DE COLECCIONES ===
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * GENERADOR DE AGENDAS
+ * ====================
+ *
+ * Arma agendas reproducibles (misma semilla = mismas tareas) parecidas a
+ * una de uso real:
+ *  - 60% únicas, 25% diarias, 15% semanales (de 1 a 3 días por semana)
+ *  - Fechas desde 30 días antes hasta 60 días después de "hoy", a cualquier
+ *    hora (en segundos enteros)
+ *  - 30% completadas; la mitad con alerta, de 0 a 30 minutos antes
+ *  - Nombres de distinto largo, con acentos
+ */
+public final class GeneradorAgenda {
+
+    private static final String[] PALABRAS = {
+        "Reunión", "médico", "pagar", "llamar", "gimnasio", "comprar", "revisión",
+        "informe", "cumpleaños", "turno", "clase", "entrega", "café", "viaje"
+    };
+
+    private GeneradorAgenda() {
+    }
+
+    public static List<Tarea> generar(int cantidad, long semilla) {
+        return generar(cantidad, semilla, LocalDate.now());
+    }
+
+    public static List<Tarea> generar(int cantidad, long semilla, LocalDate hoy) {
+        Random azar = new Random(semilla);
+        List<Tarea> tareas = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            int dado = azar.nextInt(100);
+            Tarea.TipoTarea tipo = dado < 60 ? Tarea.TipoTarea.UNICA
+                    : dado < 85 ? Tarea.TipoTarea.DIARIA : Tarea.TipoTarea.SEMANAL;
+            LocalDate fecha = hoy.plusDays(azar.nextInt(91) - 30);
+            LocalTime hora = LocalTime.ofSecondOfDay(azar.nextInt(86400));
+            Tarea tarea = new Tarea(nombre(azar, i), fecha, hora, tipo);
+            if (tipo == Tarea.TipoTarea.SEMANAL) {
+                tarea.setDiasSemana(dias(azar));
+            }
+            tarea.setCompletada(azar.nextInt(100) < 30);
+            if (azar.nextBoolean()) {
+                tarea.setAlertaActiva(true);
+                tarea.setSegundosAntesAlerta(azar.nextInt(31) * 60);
+            }
+            tareas.add(tarea);
+        }
+        return tareas;
+    }
+
+    private static String nombre(Random azar, int numero) {
+        StringBuilder nombre = new StringBuilder(PALABRAS[azar.nextInt(PALABRAS.length)]);
+        int extra = azar.nextInt(4);
+        for (int i = 0; i < extra; i++) {
+            nombre.append(' ').append(PALABRAS[azar.nextInt(PALABRAS.length)]);
+        }
+        return nombre.append(' ').append(numero).toString();
+    }
+
+    private static Set<DayOfWeek> dias(Random azar) {
+        Set<DayOfWeek> dias = EnumSet.noneOf(DayOfWeek.class);
+        int cantidad = 1 + azar.nextInt(3);
+        while (dias.size() < cantidad) {
+            dias.add(DayOfWeek.of(1 + azar.nextInt(7)));
+        }
+        return dias;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * DeskAgenda - Microbenchmark de la persistencia (JMH)
+ *
+ * No forma parte de la aplicación. Se corre con:
+ *
+ *   ant bench -Dbench.args="BenchPersistencia"
+ *
+ * Escribe en build/bench/datos (ver @Fork), nunca en la agenda real.
+ */
+package persistencia;
+
+// === IMPORTS DE LÓGICA DE NEGOCIO ===
+import logica.GeneradorAgenda;
+import logica.Tarea;
+
+// === IMPORTS DE ARCHIVOS ===
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+// === IMPORTS DE UTILIDADES JAVA ===
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// === IMPORTS DE JMH ===
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * BENCHMARK DE PERSISTENCIA
+ * =========================
+ *
+ *  - guardarTareas:        RepositorioJSON.guardarTareas con una tarea
+ *                          distinta cada vez (escribe principal y respaldo)
+ *  - guardarSinCambios:    el mismo guardado sin cambios (solo calcula la
+ *                          huella y no toca el disco)
+ *  - cargarTareas:         RepositorioJSON.cargarTareas del archivo guardado
+ *  - cargarMapeado:        RepositorioMapeado.cargarTareas de la misma agenda
+ *                          (arma todas las tareas desde los registros)
+ *  - parsearJSON:          solo el lector (LectorTareasJSON) sobre el texto
+ *                          ya en memoria, sin disco
+ *
+ * Agendas de GeneradorAgenda (únicas, diarias y semanales mezcladas).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx3g", "-Ddeskagenda.archivo=build/bench/datos/tareas.json"})
+@State(Scope.Benchmark)
+public class BenchPersistencia {
+
+    @Param({"1000", "100000", "1000000"})
+    int tareas;
+
+    private List<Tarea> agenda;
+    private RepositorioJSON repositorio;
+    private RepositorioMapeado mapeado;
+    private String json;
+    private int cambios = 0;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        agenda = GeneradorAgenda.generar(tareas, 42);
+        repositorio = new RepositorioJSON(false); // Guardado completo, sin journal
+        File archivo = new File(repositorio.obtenerRutaArchivoTareas());
+        archivo.getAbsoluteFile().getParentFile().mkdirs();
+        repositorio.guardarTareas(agenda);
+        json = new String(Files.readAllBytes(Paths.get(archivo.getPath())), StandardCharsets.UTF_8);
+        mapeado = new RepositorioMapeado(archivo.getParent() + File.separator + "tareas.map");
+        mapeado.cargarTareas();
+        mapeado.guardarTareas(agenda);
+    }
+
+    @TearDown(Level.Trial)
+    public void terminar() {
+        mapeado.cerrar();
+    }
+
+    @Benchmark
+    public long guardarTareas() {
+        agenda.get(0).setDescripcion("Cambio " + cambios++); // Si no, se omite el guardado
+        repositorio.guardarTareas(agenda);
+        return repositorio.getGuardadosRealizados();
+    }
+
+    @Benchmark
+    public long guardarSinCambios() {
+        repositorio.guardarTareas(agenda);
+        return repositorio.getGuardadosOmitidos();
+    }
+
+    @Benchmark
+    public List<Tarea> cargarTareas() {
+        return repositorio.cargarTareas();
+    }
+
+    @Benchmark
+    public List<Tarea> cargarMapeado() {
+        return mapeado.cargarTareas();
+    }
+
+    @Benchmark
+    public List<Tarea> parsearJSON() throws IOException {
+        return new LectorTareasJSON(new StringReader(json)).leerArreglo();
+    }
+}
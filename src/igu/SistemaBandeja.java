@@ -1,6 +1,7 @@
-package logica;
+package igu;
 
-import igu.VistaPrincipal;
+import logica.InstanciaUnica;
+import logica.MotorAgenda;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ItemEvent;
@@ -8,25 +9,25 @@ import java.awt.event.ItemListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.image.BufferedImage;
-import java.util.List;
 import java.util.prefs.Preferences;
 import java.io.File;
 
 public class SistemaBandeja {
     private TrayIcon trayIcon;
     private VistaPrincipal vistaPrincipal;
-    private GestorTareas gestorTareas;
+    private MotorAgenda motor;
     private CheckboxMenuItem ejecutarAlInicioItemAWT; // Checkbox para "Ejecutar al inicio" en la bandeja del sistema. Todavía no hace nada, pero se guarda la preferencia.
     private Preferences prefs;
 
     // Clave para guardar la preferencia de "ejecutar al inicio"
     private static final String EJECUTAR_AL_INICIO_PREF_KEY = "ejecutarAlInicio";
 
-    public SistemaBandeja(VistaPrincipal vistaPrincipal, GestorTareas gestorTareas) {
+    public SistemaBandeja(VistaPrincipal vistaPrincipal, MotorAgenda motor) {
         this.vistaPrincipal = vistaPrincipal;
-        this.gestorTareas = gestorTareas;
-        // Inicializar Preferences API (nodo específico para esta aplicación)
-        this.prefs = Preferences.userNodeForPackage(SistemaBandeja.class);
+        this.motor = motor;
+        // Inicializar Preferences API (nodo específico para esta aplicación).
+        // Es el nodo de cuando esta clase estaba en logica: así no se pierde la preferencia guardada
+        this.prefs = Preferences.userRoot().node("/logica");
 
         if (SystemTray.isSupported()) {
             SystemTray tray = SystemTray.getSystemTray();
@@ -122,17 +123,9 @@ public class SistemaBandeja {
 
     public void minimizarABandeja() {
         if (vistaPrincipal != null) {
-            vistaPrincipal.setVisible(false);
+            vistaPrincipal.ocultarEnBandeja(); // Oculta y suelta lo que solo sirve para dibujar
             if (trayIcon != null) {
-                boolean hayPendientes = false;
-                List<Tarea> tareas = gestorTareas.getTareas();
-                for (Tarea tarea : tareas) {
-                    if (!tarea.isCompletada()) {
-                        hayPendientes = true;
-                        break;
-                    }
-                }
-                if (hayPendientes) {
+                if (motor.getInstantanea().getSinCompletar() > 0) {
                     trayIcon.displayMessage("Agenda Minimizada", "Tienes tareas pendientes.", TrayIcon.MessageType.INFO);
                 } else {
                     trayIcon.displayMessage("Agenda Minimizada", "La agenda está en la bandeja del sistema.", TrayIcon.MessageType.INFO);
@@ -141,6 +134,15 @@ public class SistemaBandeja {
         }
     }
     
+    /**
+     * Muestra un aviso en la bandeja (si está disponible).
+     */
+    public void mostrarAviso(String titulo, String mensaje) {
+        if (trayIcon != null) {
+            trayIcon.displayMessage(titulo, mensaje, TrayIcon.MessageType.WARNING);
+        }
+    }
+    
     private boolean registrarEnInicioSistema() {
         try {
             String osName = System.getProperty("os.name").toLowerCase();
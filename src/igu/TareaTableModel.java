@@ -0,0 +1,359 @@
+/*
+ * DeskAgenda - Modelo de la tabla de tareas
+ */
+package igu;
+
+// === IMPORTS DE LÓGICA DE NEGOCIO ===
+import logica.EventoTarea;         // Cambios de una instantánea a la siguiente
+import logica.FormateadorCuentaRegresiva; // Texto de la columna "Estado"
+import logica.InstantaneaAgenda;   // Lo que publica el motor
+import logica.Tarea;               // Estructura de datos que representa una tarea
+
+// === IMPORTS DE SWING ===
+import javax.swing.table.AbstractTableModel;
+
+// === IMPORTS DE UTILIDADES JAVA ===
+import java.time.LocalDateTime;    // Hora actual para el tiempo restante
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * MODELO DE LA TABLA DE TAREAS
+ * ============================
+ *
+ * Lee directamente la lista de tareas de la InstantaneaAgenda (no guarda
+ * filas de texto): cada celda se calcula en getValueAt(), y la JTable solo
+ * la pide para las filas que dibuja. Con 10.000 tareas y 20 filas visibles
+ * se formatean 20 filas, no 10.000.
+ *
+ *  - mostrar(): pasa a la instantánea nueva. Si es la siguiente a la que
+ *    ya muestra, aplica sus EventoTarea como borrados, inserciones y
+ *    actualizaciones de filas (la JTable corre sola la selección y solo
+ *    redibuja esas filas). Si se salteó alguna o es una recarga, reemplaza
+ *    toda la lista con un solo evento (setTareas)
+ *  - actualizarEstado(): refresca la columna "Estado" (lo único que cambia
+ *    con el paso del tiempo) de una fila visible
+ *
+ * CAMBIOS FILA POR FILA
+ * ---------------------
+ * Las tareas que no cambiaron conservan su orden relativo. Entonces, si
+ * se borran de abajo hacia arriba las filas que cambiaron de lugar o se
+ * eliminaron, y se insertan de arriba hacia abajo en su fila nueva, queda
+ * exactamente la lista de la instantánea. Las que cambiaron sin moverse
+ * (por ejemplo, se apagó su alerta) solo se actualizan, sin perder la
+ * selección.
+ *
+ * CUENTA REGRESIVA
+ * ----------------
+ * Por cada fila se guarda el último texto de "Estado" y el instante en que
+ * ese texto puede dejar de valer:
+ *  - faltan menos de un día ("hh:mm:ss"): el próximo segundo
+ *  - falta un día o más ("d h"): la próxima hora
+ *  - vencida o completada: nunca (hasta que llegue otra instantánea)
+ * Hasta ese instante actualizarEstado() no formatea nada. Después, el
+ * FormateadorCuentaRegresiva escribe el texto a partir de los milisegundos
+ * que faltan (sin LocalDateTime ni String.format) y, si es igual al
+ * anterior, devuelve el mismo String y no se avisa a la tabla. Como la
+ * vista solo lo llama para las filas visibles, el costo por segundo
+ * depende de cuántas filas entran en pantalla, no de cuántas tareas hay.
+ *
+ * Se usa solo desde el EDT.
+ */
+final class TareaTableModel extends AbstractTableModel {
+
+    private static final long serialVersionUID = 1L;
+
+    static final int COLUMNA_ESTADO = 4;
+    static final int COLUMNA_ALERTA = 6;
+    private static final String[] COLUMNAS = {"Actividad", "Fecha", "Hora", "Tipo", "Estado", "Repeticiones", "Alerta"};
+
+    private static final long NUNCA = Long.MAX_VALUE;
+
+    private final FormateadorCuentaRegresiva formateador = new FormateadorCuentaRegresiva();
+    private List<Tarea> tareas = Collections.emptyList();
+    private long version = -1;                    // Versión de la instantánea mostrada
+    private List<EventoTarea> ultimosCambios = Collections.emptyList();
+    // Por fila (pueden ser más largos que la lista, para insertar sin copiar todo):
+    private String[] estados = new String[0];     // Último texto de "Estado" (null = sin calcular)
+    private long[] vigenciaEstados = new long[0]; // Hasta cuándo vale (ms, hora local)
+
+    /**
+     * Pasa a mostrar la instantánea.
+     *
+     * @return true si se aplicaron sus cambios fila por fila (la selección
+     *         ya se corrió sola; ver filaNueva()), false si se reemplazó todo
+     */
+    boolean mostrar(InstantaneaAgenda instantanea) {
+        boolean siguiente = instantanea.getVersion() == version + 1 && !instantanea.esRecarga();
+        version = instantanea.getVersion();
+        ultimosCambios = instantanea.getCambios();
+        if (!siguiente || !aplicarCambios(instantanea.getCambios(), instantanea.getTareas())) {
+            ultimosCambios = Collections.emptyList();
+            setTareas(instantanea.getTareas());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Después de mostrar(): fila que ocupa ahora la tarea si cambió de
+     * lugar con la última instantánea, o -1.
+     */
+    int filaNueva(long id) {
+        for (EventoTarea cambio : ultimosCambios) {
+            if (cambio.getId() == id) {
+                return cambio.getFilaNueva();
+            }
+        }
+        return -1;
+    }
+
+    private boolean aplicarCambios(List<EventoTarea> cambios, List<Tarea> nuevas) {
+        if (cambios.isEmpty()) {
+            tareas = nuevas; // Mismas tareas en el mismo orden
+            return true;
+        }
+        List<EventoTarea> enSuLugar = new ArrayList<>();
+        List<EventoTarea> movidas = new ArrayList<>();
+        for (EventoTarea cambio : cambios) {
+            boolean mismaFila = cambio.getTipo() == EventoTarea.Tipo.ACTUALIZADA
+                    && cambio.getFilaAnterior() == cambio.getFilaNueva();
+            (mismaFila ? enSuLugar : movidas).add(cambio);
+        }
+        if (!quedanEnSuLugar(enSuLugar, movidas)) {
+            movidas.addAll(enSuLugar);
+            enSuLugar.clear();
+        }
+
+        List<Tarea> filas = new ArrayList<>(tareas);
+        tareas = filas;
+        // 1. Borrar de abajo hacia arriba las que se eliminaron o cambiaron de fila
+        movidas.sort(Comparator.comparingInt(EventoTarea::getFilaAnterior).reversed());
+        for (EventoTarea cambio : movidas) {
+            int fila = cambio.getFilaAnterior();
+            if (fila >= 0) {
+                filas.remove(fila);
+                quitarEstado(fila, filas.size());
+                fireTableRowsDeleted(fila, fila);
+            }
+        }
+        // 2. Insertarlas de arriba hacia abajo en su fila nueva
+        movidas.sort(Comparator.comparingInt(EventoTarea::getFilaNueva));
+        for (EventoTarea cambio : movidas) {
+            int fila = cambio.getFilaNueva();
+            if (fila >= 0) {
+                if (fila > filas.size()) {
+                    return false; // No coincide con la instantánea: mejor recargar
+                }
+                filas.add(fila, cambio.getTarea());
+                insertarEstado(fila, filas.size());
+                fireTableRowsInserted(fila, fila);
+            }
+        }
+        // 3. Las que no se movieron
+        for (EventoTarea cambio : enSuLugar) {
+            int fila = cambio.getFilaNueva();
+            filas.set(fila, cambio.getTarea());
+            estados[fila] = null;
+            fireTableRowsUpdated(fila, fila);
+        }
+        if (filas.size() != nuevas.size()) {
+            return false;
+        }
+        tareas = nuevas;
+        return true;
+    }
+
+    /**
+     * Una tarea que conserva su fila puede quedarse en su lugar si antes de
+     * ella se borran tantas filas como se insertan.
+     */
+    private static boolean quedanEnSuLugar(List<EventoTarea> enSuLugar, List<EventoTarea> movidas) {
+        for (EventoTarea quieta : enSuLugar) {
+            int fila = quieta.getFilaNueva();
+            int borradasAntes = 0;
+            int insertadasAntes = 0;
+            for (EventoTarea movida : movidas) {
+                if (movida.getFilaAnterior() >= 0 && movida.getFilaAnterior() < fila) {
+                    borradasAntes++;
+                }
+                if (movida.getFilaNueva() >= 0 && movida.getFilaNueva() < fila) {
+                    insertadasAntes++;
+                }
+            }
+            if (borradasAntes != insertadasAntes) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void quitarEstado(int fila, int filasQueQuedan) {
+        System.arraycopy(estados, fila + 1, estados, fila, filasQueQuedan - fila);
+        System.arraycopy(vigenciaEstados, fila + 1, vigenciaEstados, fila, filasQueQuedan - fila);
+    }
+
+    private void insertarEstado(int fila, int filasConLaNueva) {
+        if (filasConLaNueva > estados.length) {
+            int capacidad = Math.max(16, estados.length * 3 / 2 + 1);
+            estados = Arrays.copyOf(estados, capacidad);
+            vigenciaEstados = Arrays.copyOf(vigenciaEstados, capacidad);
+        }
+        int despues = filasConLaNueva - 1 - fila;
+        System.arraycopy(estados, fila, estados, fila + 1, despues);
+        System.arraycopy(vigenciaEstados, fila, vigenciaEstados, fila + 1, despues);
+        estados[fila] = null;
+        vigenciaEstados[fila] = NUNCA;
+    }
+
+    /**
+     * Suelta la lista y los textos guardados (la ventana está en la bandeja).
+     * La próxima instantánea que se muestre se carga entera.
+     */
+    void vaciar() {
+        version = -1;
+        ultimosCambios = Collections.emptyList();
+        setTareas(Collections.emptyList());
+    }
+
+    /**
+     * Reemplaza las tareas mostradas (lista de solo lectura, en el orden de la tabla).
+     */
+    void setTareas(List<Tarea> tareas) {
+        this.tareas = tareas;
+        this.estados = new String[tareas.size()];
+        this.vigenciaEstados = new long[tareas.size()];
+        Arrays.fill(vigenciaEstados, NUNCA);
+        fireTableDataChanged();
+    }
+
+    /**
+     * Tarea de la fila (índice del modelo), o null si no existe.
+     */
+    Tarea getTarea(int fila) {
+        return fila >= 0 && fila < tareas.size() ? tareas.get(fila) : null;
+    }
+
+    /**
+     * Fila de la tarea con ese id, o -1 si no está.
+     */
+    int filaDe(long id) {
+        for (int i = 0; i < tareas.size(); i++) {
+            if (tareas.get(i).getId() == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Pasó el tiempo: recalcula el "Estado" de la fila solo si su texto pudo
+     * cambiar, y avisa a la tabla solo si efectivamente cambió.
+     *
+     * @param ahoraMs hora local actual en milisegundos (ver ahoraMs())
+     */
+    void actualizarEstado(int fila, long ahoraMs) {
+        if (fila < 0 || fila >= tareas.size()) {
+            return;
+        }
+        String anterior = estados[fila];
+        if (anterior != null && ahoraMs < vigenciaEstados[fila]) {
+            return; // Todavía muestra lo correcto
+        }
+        if (calcularEstado(fila, ahoraMs) != anterior) { // El formateador reutiliza el String si no cambió
+            fireTableCellUpdated(fila, COLUMNA_ESTADO);
+        }
+    }
+
+    private String calcularEstado(int fila, long ahoraMs) {
+        Tarea tarea = tareas.get(fila);
+        String estado;
+        if (tarea.isCompletada()) {
+            estado = FormateadorCuentaRegresiva.COMPLETADA;
+            vigenciaEstados[fila] = NUNCA;
+        } else {
+            long restanteMs = tarea.getFecha().toEpochDay() * 86_400_000L
+                    + tarea.getHora().toNanoOfDay() / 1_000_000 - ahoraMs;
+            estado = formateador.formatear(Math.floorDiv(restanteMs, 1000), estados[fila]);
+            vigenciaEstados[fila] = vigencia(restanteMs, ahoraMs);
+        }
+        estados[fila] = estado;
+        return estado;
+    }
+
+    /**
+     * Primer instante (ms, hora local) en que el texto de "Estado" de una
+     * tarea pendiente puede ser distinto del actual.
+     */
+    private static long vigencia(long restanteMs, long ahoraMs) {
+        if (restanteMs < 0) {
+            return NUNCA; // "Vencida" no cambia solo
+        }
+        // El texto muestra segundos enteros: cambia cuando lo restante baja del múltiplo anterior
+        long paso = restanteMs >= 86_400_000L ? 3_600_000L : 1_000L;
+        return ahoraMs + restanteMs % paso + 1;
+    }
+
+    /**
+     * Hora local actual en milisegundos desde 1970-01-01 00:00 (sin zona),
+     * la misma escala que usa vigencia().
+     */
+    static long ahoraMs() {
+        return ahoraMs(LocalDateTime.now());
+    }
+
+    static long ahoraMs(LocalDateTime ahora) {
+        return ahora.toLocalDate().toEpochDay() * 86_400_000L + ahora.toLocalTime().toNanoOfDay() / 1_000_000;
+    }
+
+    @Override
+    public int getRowCount() {
+        return tareas.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNAS.length;
+    }
+
+    @Override
+    public String getColumnName(int columna) {
+        return COLUMNAS[columna];
+    }
+
+    @Override
+    public boolean isCellEditable(int fila, int columna) {
+        return false;
+    }
+
+    @Override
+    public Object getValueAt(int fila, int columna) {
+        Tarea tarea = tareas.get(fila);
+        switch (columna) {
+            case 0: return tarea.getNombre();
+            case 1: return tarea.getFechaTexto();
+            case 2: return tarea.getHoraTexto();
+            case 3: return tarea.getTipo().toString();
+            case COLUMNA_ESTADO: return estado(fila);
+            case 5: return tarea.getRepeticiones();
+            case COLUMNA_ALERTA: return tarea.isAlertaActiva() ? "🔔" : "";
+            default: return "";
+        }
+    }
+
+    /**
+     * "Estado" de la fila: el guardado si sigue valiendo (filas que se
+     * vuelven a dibujar, por ejemplo al pasar el mouse), si no se calcula.
+     */
+    private String estado(int fila) {
+        long ahoraMs = ahoraMs();
+        String estado = estados[fila];
+        if (estado != null && ahoraMs < vigenciaEstados[fila]) {
+            return estado;
+        }
+        return calcularEstado(fila, ahoraMs);
+    }
+}
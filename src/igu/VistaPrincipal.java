@@ -9,9 +9,11 @@
 package igu;
 
 // === IMPORTS DE LÓGICA DE NEGOCIO ===
-import logica.GestorTareas;        // Maneja el guardado y carga de tareas
-import logica.SistemaBandeja;      // Muestra la aplicación en la bandeja del sistema
-import logica.GestorFechas;        // Controla alertas y notificaciones por fecha/hora
+import logica.InstantaneaAgenda;   // Tareas ya ordenadas que publica el motor
+import logica.MemoriaProceso;      // Heap y memoria residente (modo bandeja)
+import logica.InstanciaUnica;      // Bloqueo de instancia única y canal de comandos
+import logica.MotorAgenda;         // Dueño de las tareas, alertas y tareas periódicas
+import logica.NucleoAgenda;        // Motor, sonido y canal de comandos (sin interfaz)
 import logica.GestorSonido;        // Reproduce sonidos de notificación
 import logica.Tarea;               // Estructura de datos que representa una tarea
 
@@ -23,16 +25,14 @@ import igu.util.WindowResizer;     // Permite redimensionar la ventana desde los
 
 // === IMPORTS DE SWING (INTERFAZ GRÁFICA JAVA) ===
 import javax.swing.*;              // Componentes básicos: JFrame, JButton, JTable, etc.
-import javax.swing.table.*;        // Manejo de tablas: DefaultTableModel, TableCellRenderer
+import javax.swing.table.*;        // Manejo de tablas: TableCellRenderer
 
 // === IMPORTS DE AWT (GRÁFICOS Y EVENTOS) ===
 import java.awt.*;                 // Colores, fuentes, layouts (organización de componentes)
 import java.awt.event.*;           // Eventos de mouse, teclado, botones
 
 // === IMPORTS DE UTILIDADES JAVA ===
-import java.util.List;             // Para manejar listas de tareas
-import java.time.LocalDateTime;    // Para manejar fechas y horas
-import java.time.temporal.ChronoUnit; // Para calcular diferencias de tiempo
+import java.util.concurrent.CompletableFuture; // Resultado de los pedidos al motor
 
 /**
  * VENTANA PRINCIPAL DE DESKAGENDA
@@ -64,7 +64,7 @@ public class VistaPrincipal extends JFrame {
 
     // === COMPONENTES PRINCIPALES DE LA INTERFAZ ===
     private JTable tabla;                    // Tabla que muestra todas las tareas
-    private DefaultTableModel modelo;        // Modelo que contiene los datos de la tabla
+    private TareaTableModel modelo;          // Lee las tareas de la última instantánea del motor
     
     // === BOTONES DE LA APLICACIÓN ===
     private JButton btnAgregar;              // Botón para crear nuevas tareas
@@ -86,28 +86,40 @@ public class VistaPrincipal extends JFrame {
     private Color grisClaro = new Color(60, 60, 60);      // Color para elementos secundarios
     
     // === GESTORES DE LÓGICA DE NEGOCIO ===
-    private GestorTareas gestorTareas;       // Maneja el guardado y carga de tareas
+    // El motor tiene su propio hilo: la ventana le pide cambios y dibuja sus instantáneas
+    private MotorAgenda motor;
     private SistemaBandeja sistemaBandeja;   // Controla la bandeja del sistema
     private GestorSonido gestorSonido;       // Reproduce sonidos de notificación
     
-    // === TIMERS PARA AUTOMATIZACIÓN ===
-    // Estos timers se encargan de mantener la aplicación actualizada automáticamente
-    private Timer timerActualizacion;        // Recarga datos cada 12 segundos (ahorro de RAM)
+    // === TIMER DE ANIMACIÓN ===
+    // El reinicio de tareas, la limpieza diaria y las alertas los hace el motor
+    // en su hilo; en el EDT solo queda refrescar el tiempo restante.
     private Timer timerAnimacion;            // Actualiza tiempo restante cada segundo (suave)
-    private Timer timerDiarioAutoEliminacion; // Limpia tareas completadas diariamente
+    private boolean enBandeja = false;       // Oculta en la bandeja, con la tabla vacía (ver ocultarEnBandeja)
+
+    // Modo de bajo consumo en la bandeja (se desactiva con -Ddeskagenda.bajoConsumo=false)
+    private static final boolean BAJO_CONSUMO = !"false".equalsIgnoreCase(System.getProperty("deskagenda.bajoConsumo"));
+    private static final int DEMORA_MEDICION_MS = 60_000; // Cuándo informar la memoria después de ocultar
     private JButton btnMaximizarVentana;
     private JButton btnMinimizarVentana;
 
-    // Variable para almacenar la lista ordenada de tareas que se muestra en la tabla.
-    // Se actualiza en actualizarTabla() y se usa en los métodos de acción para referenciar la tarea correcta.
-    private List<Tarea> tareasOrdenadasMostradas; 
 
     public VistaPrincipal() {
+        // Núcleo con sonido que entrega las instantáneas en el EDT
+        this(NucleoAgenda.crear(true, SwingUtilities::invokeLater));
+    }
+
+    /**
+     * Ventana sobre un núcleo ya creado (todavía sin iniciar: lo inicia la
+     * ventana cuando ya escucha las instantáneas).
+     */
+    public VistaPrincipal(NucleoAgenda nucleo) {
         // Inicializar gestores y sistema de bandeja
-        gestorTareas = new GestorTareas();
-        gestorSonido = new GestorSonido();
-        sistemaBandeja = new SistemaBandeja(this, gestorTareas); 
-        new GestorFechas(gestorTareas, gestorSonido); 
+        gestorSonido = nucleo.getGestorSonido();
+        motor = nucleo.getMotor();
+        sistemaBandeja = new SistemaBandeja(this, motor); 
+        // Alertas acumuladas (tras suspender, etc.): el aviso de la bandeja se muestra desde el EDT
+        motor.setNotificador((titulo, mensaje) -> SwingUtilities.invokeLater(() -> sistemaBandeja.mostrarAviso(titulo, mensaje)));
         
         setUndecorated(true);
         setSize(1200, 700);
@@ -133,13 +145,8 @@ public class VistaPrincipal extends JFrame {
         getContentPane().add(btnMarcar);
         getContentPane().add(btnConfigurar);
 
-        String[] columnas = {"Actividad", "Fecha", "Hora", "Tipo", "Estado", "Repeticiones", "Alerta"};
-        modelo = new DefaultTableModel(columnas, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        // Las tareas del modelo son copias de solo lectura: los cambios se piden al motor
+        modelo = new TareaTableModel();
         tabla = new JTable(modelo);
         tabla.setFont(font);
         tabla.setForeground(texto);
@@ -254,30 +261,17 @@ public class VistaPrincipal extends JFrame {
         scrollPane.setBorder(BorderFactory.createLineBorder(naranja));
         getContentPane().add(scrollPane);
 
-        // Reiniciar tareas al inicializar la aplicación
-        gestorTareas.reiniciarTareasSiNecesario();
-        actualizarTabla();
+        // La tabla se redibuja con cada instantánea que publica el motor.
+        // El motor carga la agenda (y reinicia las tareas) en su hilo; la
+        // primera instantánea llega cuando termina.
+        motor.agregarOyente(this::mostrarInstantanea);
+        nucleo.iniciar();
         
         // Timer para animación: actualiza solo tiempos cada segundo (eficiente)
         timerAnimacion = new Timer(1000, e -> actualizarSoloTiempos());
         timerAnimacion.setCoalesce(true);
         timerAnimacion.start();
         
-        // Timer para datos: recarga toda la tabla cada 12 segundos
-        timerActualizacion = new Timer(12000, e -> {
-            // Reiniciar tareas diarias/semanales si es necesario
-            gestorTareas.reiniciarTareasSiNecesario();
-            actualizarTabla();
-            // Garbage collection periódico para liberar memoria
-            if (System.currentTimeMillis() % 60000 < 12000) {
-                System.gc();
-            }
-        });
-        timerActualizacion.setCoalesce(true);
-        timerActualizacion.start();
-
-        iniciarTimerDiarioAutoEliminacion();
-        
         MouseAdapter deseleccionListener = new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
@@ -324,10 +318,10 @@ public class VistaPrincipal extends JFrame {
         addWindowListener(new WindowAdapter() {
             @Override
             public void windowClosing(WindowEvent e) {
-                limpiarRecursos(); // Limpiar timers antes de cerrar
                 if (sistemaBandeja != null) {
-                    sistemaBandeja.minimizarABandeja();
+                    sistemaBandeja.minimizarABandeja(); // Sigue ejecutándose: no liberar el bloqueo
                 } else {
+                    limpiarRecursos(); // Limpiar timers antes de cerrar
                     System.exit(0);
                 }
             }
@@ -511,8 +505,7 @@ public class VistaPrincipal extends JFrame {
     private void abrirDialogoAgregarActividad() {
         Tarea nuevaTarea = DialogoAgregarTarea.mostrarDialogo(this);
         if (nuevaTarea != null) {
-            gestorTareas.agregarTarea(nuevaTarea);
-            actualizarTabla();
+            avisarSiFalla(motor.agregarTarea(nuevaTarea), "Error al agregar la tarea.");
         }
     }
 
@@ -521,8 +514,8 @@ public class VistaPrincipal extends JFrame {
         if (filaSeleccionadaVista >= 0) {
             int modelRow = tabla.convertRowIndexToModel(filaSeleccionadaVista); 
             
-            if (modelRow < tareasOrdenadasMostradas.size()) {
-                Tarea tareaAEliminar = tareasOrdenadasMostradas.get(modelRow);
+            Tarea tareaAEliminar = modelo.getTarea(modelRow);
+            if (tareaAEliminar != null) {
                 String nombre = tareaAEliminar.getNombre();
 
                 JDialog dialogo = new JDialog(this, "Confirmar eliminación", true);
@@ -557,8 +550,7 @@ public class VistaPrincipal extends JFrame {
                 btnNo.setCursor(new Cursor(Cursor.HAND_CURSOR));
                 
                 btnSi.addActionListener(e -> {
-                    gestorTareas.eliminarTareaObjeto(tareaAEliminar); 
-                    actualizarTabla();
+                    avisarSiFalla(motor.eliminarTarea(tareaAEliminar.getId()), "Error al eliminar la tarea.");
                     dialogo.dispose();
                 });
                 
@@ -583,106 +575,86 @@ public class VistaPrincipal extends JFrame {
         if (filaSeleccionadaVista >= 0) {
             int modelRow = tabla.convertRowIndexToModel(filaSeleccionadaVista);
             
-            if (modelRow < tareasOrdenadasMostradas.size()) {
-                Tarea tarea = tareasOrdenadasMostradas.get(modelRow);
-                
-                if (gestorTareas.actualizarEstadoTarea(tarea)) {
-                    // Reiniciar tareas si es necesario después de cambiar el estado
-                    gestorTareas.reiniciarTareasSiNecesario();
-                    actualizarTabla();
-                    
-                    int nuevaVistaFila = -1;
-                    for(int i=0; i < tareasOrdenadasMostradas.size(); i++){
-                        if(tareasOrdenadasMostradas.get(i).equals(tarea)){ 
-                            nuevaVistaFila = tabla.convertRowIndexToView(i); 
-                            break;
-                        }
-                    }
-                    if (nuevaVistaFila != -1 && nuevaVistaFila < tabla.getRowCount()) {
-                        tabla.setRowSelectionInterval(nuevaVistaFila, nuevaVistaFila);
-                    }
-                } else {
-                    JOptionPane.showMessageDialog(this, "Error al actualizar el estado de la tarea.", "Error", JOptionPane.ERROR_MESSAGE);
-                }
+            Tarea tarea = modelo.getTarea(modelRow);
+            if (tarea != null) {
+                // La tarea sigue seleccionada al llegar la instantánea nueva (mostrarInstantanea la busca por id)
+                avisarSiFalla(motor.alternarEstadoSiSinCambios(tarea),
+                        "La tarea cambió mientras tanto (por ejemplo, sonó su alerta). Intente de nuevo.");
             }
         } else {
             JOptionPane.showMessageDialog(this, "Por favor, seleccione una actividad para marcar.", "Información", JOptionPane.INFORMATION_MESSAGE);
         }
     }
     
-    private void iniciarTimerDiarioAutoEliminacion() {
-        LocalDateTime ahora = LocalDateTime.now();
-        LocalDateTime medianoche = ahora.toLocalDate().plusDays(1).atStartOfDay();
-        long delayInicial = ChronoUnit.MILLIS.between(ahora, medianoche);
-        if (delayInicial < 0) delayInicial += 24 * 60 * 60 * 1000;
-
-        timerDiarioAutoEliminacion = new Timer((int)delayInicial, e -> {
-            eliminarTareasUnicasCompletadasAyer();
-            ((Timer)e.getSource()).setInitialDelay(24 * 60 * 60 * 1000);
-            ((Timer)e.getSource()).restart();
+    /**
+     * Si el motor responde que no pudo hacer el cambio, lo avisa en el EDT.
+     */
+    private void avisarSiFalla(CompletableFuture<Boolean> pedido, String mensaje) {
+        pedido.whenComplete((hecho, error) -> {
+            if (error != null || !Boolean.TRUE.equals(hecho)) {
+                SwingUtilities.invokeLater(() ->
+                    JOptionPane.showMessageDialog(this, mensaje, "Error", JOptionPane.ERROR_MESSAGE));
+            }
         });
-        timerDiarioAutoEliminacion.setRepeats(false);
-        timerDiarioAutoEliminacion.start();
     }
 
-    private void eliminarTareasUnicasCompletadasAyer() {
-        int tareasEliminadas = gestorTareas.eliminarTareasUnicasCompletadasAyer();
-        if (tareasEliminadas > 0) {
-            actualizarTabla();
-            System.out.println(tareasEliminadas + " tareas únicas completadas ayer fueron eliminadas.");
+    /**
+     * Muestra la instantánea publicada por el motor (en el EDT). Normalmente
+     * solo cambian las filas de las tareas afectadas y la tabla conserva sola
+     * la selección; si la tarea seleccionada cambió de fila, se la sigue.
+     */
+    private void mostrarInstantanea(InstantaneaAgenda instantanea) {
+        if (enBandeja) {
+            return; // Se lee la última al volver a mostrar la ventana
         }
-    }
-
-    private void actualizarTabla() {
         int filaSeleccionadaPreviaEnVista = tabla.getSelectedRow();
         Tarea tareaSeleccionadaPreviamente = null;
 
         if (filaSeleccionadaPreviaEnVista != -1) {
-            int modelRowPrevio = tabla.convertRowIndexToModel(filaSeleccionadaPreviaEnVista);
-            if (this.tareasOrdenadasMostradas != null && modelRowPrevio >= 0 && modelRowPrevio < this.tareasOrdenadasMostradas.size()) {
-                 tareaSeleccionadaPreviamente = this.tareasOrdenadasMostradas.get(modelRowPrevio);
-            }
+            tareaSeleccionadaPreviamente = modelo.getTarea(tabla.convertRowIndexToModel(filaSeleccionadaPreviaEnVista));
         }
 
-        modelo.setRowCount(0);
-        this.tareasOrdenadasMostradas = gestorTareas.obtenerTareasParaTabla();
-
-        for (Tarea tarea : this.tareasOrdenadasMostradas) {
-            String[] fila = gestorTareas.crearFilaTabla(tarea);
-            modelo.addRow(fila);
+        int fila;
+        if (modelo.mostrar(instantanea)) {
+            if (tareaSeleccionadaPreviamente == null || tabla.getSelectedRow() != -1) {
+                return; // La selección se corrió con las filas insertadas o borradas
+            }
+            fila = modelo.filaNueva(tareaSeleccionadaPreviamente.getId());
+        } else if (tareaSeleccionadaPreviamente != null) {
+            fila = modelo.filaDe(tareaSeleccionadaPreviamente.getId()); // Se recargó todo: buscarla
+        } else {
+            return;
         }
-        
-        if (tareaSeleccionadaPreviamente != null) {
-            for (int i = 0; i < this.tareasOrdenadasMostradas.size(); i++) {
-                if (this.tareasOrdenadasMostradas.get(i).equals(tareaSeleccionadaPreviamente)) { 
-                    int viewRow = tabla.convertRowIndexToView(i); 
-                    if (viewRow != -1) {
-                        tabla.setRowSelectionInterval(viewRow, viewRow);
-                    }
-                    break;
-                }
+        if (fila != -1) {
+            int viewRow = tabla.convertRowIndexToView(fila);
+            if (viewRow != -1) {
+                tabla.setRowSelectionInterval(viewRow, viewRow);
             }
         }
     }
 
     /**
      * Actualiza solo los tiempos restantes en la tabla sin recargar los datos.
-     * Método optimizado para la animación segundo a segundo.
+     * Método optimizado para la animación segundo a segundo: recorre solo las
+     * filas que se ven en pantalla y el modelo avisa únicamente las celdas
+     * cuyo texto cambió (las tareas a más de un día cambian cada hora).
      */
     private void actualizarSoloTiempos() {
-        if (this.tareasOrdenadasMostradas == null || modelo.getRowCount() == 0) {
+        if (!tabla.isShowing() || tabla.getRowCount() == 0) {
+            return; // Ventana en la bandeja: no hay nada que dibujar
+        }
+        Rectangle visible = tabla.getVisibleRect();
+        int primera = tabla.rowAtPoint(new Point(0, visible.y));
+        int ultima = tabla.rowAtPoint(new Point(0, visible.y + visible.height - 1));
+        if (primera < 0) {
             return;
         }
-        
-        // Solo actualizar la columna de estado (que contiene el tiempo restante)
-        for (int i = 0; i < this.tareasOrdenadasMostradas.size() && i < modelo.getRowCount(); i++) {
-            Tarea tarea = this.tareasOrdenadasMostradas.get(i);
-            String[] filaActualizada = gestorTareas.crearFilaTabla(tarea);
-            
-            // Solo actualizar la columna del estado/tiempo restante (columna 4)
-            if (filaActualizada.length > 4) {
-                modelo.setValueAt(filaActualizada[4], i, 4);
-            }
+        if (ultima < 0) {
+            ultima = tabla.getRowCount() - 1; // Sobra espacio debajo de la última fila
+        }
+        long ahoraMs = TareaTableModel.ahoraMs();
+        for (int filaVista = primera; filaVista <= ultima; filaVista++) {
+            modelo.actualizarEstado(tabla.convertRowIndexToModel(filaVista), ahoraMs);
         }
     }
 
@@ -716,16 +688,14 @@ public class VistaPrincipal extends JFrame {
         int filaSeleccionadaVista = tabla.getSelectedRow();
         if (filaSeleccionadaVista >= 0) {
             int modelRow = tabla.convertRowIndexToModel(filaSeleccionadaVista);
-            if (modelRow >= 0 && modelRow < tareasOrdenadasMostradas.size()) {
-                Tarea tareaExistente = tareasOrdenadasMostradas.get(modelRow); 
+            Tarea tareaExistente = modelo.getTarea(modelRow);
+            if (tareaExistente != null) {
                 Tarea tareaEditada = DialogoAgregarTarea.mostrarDialogoEdicion(this, tareaExistente);
                 
                 if (tareaEditada != null) {
-                    if (gestorTareas.editarTarea(tareaExistente, tareaEditada)) {
-                        actualizarTabla();
-                    } else {
-                        JOptionPane.showMessageDialog(this, "Error al editar la tarea.", "Error", JOptionPane.ERROR_MESSAGE);
-                    }
+                    // Si la tarea cambió mientras el diálogo estaba abierto, no se pisa el cambio
+                    avisarSiFalla(motor.editarSiSinCambios(tareaExistente, tareaEditada),
+                            "La tarea cambió mientras se editaba (por ejemplo, sonó su alerta). Vuelva a editarla.");
                 }
             } else {
                 JOptionPane.showMessageDialog(this, "No se pudo obtener la tarea seleccionada para editar. Intente de nuevo.", "Error", JOptionPane.ERROR_MESSAGE);
@@ -742,16 +712,10 @@ public class VistaPrincipal extends JFrame {
         
         int result = fileChooser.showSaveDialog(this);
         if (result == JFileChooser.APPROVE_OPTION) {
-            try {
-                String archivo = fileChooser.getSelectedFile().getAbsolutePath();
-                if (!archivo.toLowerCase().endsWith(".json")) {
-                    archivo += ".json";
-                }
-                gestorTareas.exportarTareas(archivo);
-                JOptionPane.showMessageDialog(this, "Actividades exportadas exitosamente a: " + archivo, "Éxito", JOptionPane.INFORMATION_MESSAGE);
-            } catch (Exception ex) {
-                JOptionPane.showMessageDialog(this, "Error al exportar actividades: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            String elegido = fileChooser.getSelectedFile().getAbsolutePath();
+            String archivo = elegido.toLowerCase().endsWith(".json") ? elegido : elegido + ".json";
+            informarResultado(motor.exportarTareas(archivo),
+                    "Actividades exportadas exitosamente a: " + archivo, "Error al exportar actividades: ");
         }
     }
     
@@ -761,15 +725,39 @@ public class VistaPrincipal extends JFrame {
         
         int result = fileChooser.showOpenDialog(this);
         if (result == JFileChooser.APPROVE_OPTION) {
-            try {
-                String archivo = fileChooser.getSelectedFile().getAbsolutePath();
-                gestorTareas.importarTareas(archivo);
-                actualizarTabla();
-                JOptionPane.showMessageDialog(this, "Actividades importadas exitosamente desde: " + archivo, "Éxito", JOptionPane.INFORMATION_MESSAGE);
-            } catch (Exception ex) {
-                JOptionPane.showMessageDialog(this, "Error al importar actividades: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            String archivo = fileChooser.getSelectedFile().getAbsolutePath();
+            informarResultado(motor.importarTareas(archivo),
+                    "Actividades importadas exitosamente desde: " + archivo, "Error al importar actividades: ");
+        }
+    }
+
+    /**
+     * Cuando el motor termina de importar/exportar, muestra el resultado en el EDT.
+     */
+    private void informarResultado(CompletableFuture<Void> pedido, String mensajeExito, String prefijoError) {
+        pedido.whenComplete((nada, error) -> SwingUtilities.invokeLater(() -> {
+            if (error == null) {
+                JOptionPane.showMessageDialog(this, mensajeExito, "Éxito", JOptionPane.INFORMATION_MESSAGE);
+            } else {
+                Throwable causa = error.getCause() != null ? error.getCause() : error;
+                JOptionPane.showMessageDialog(this, prefijoError + causa.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
             }
+        }));
+    }
+
+    /**
+     * Al volver a mostrarse (desde la bandeja o porque se abrió otra
+     * instancia) sale del modo de bajo consumo: rearma la tabla con la
+     * última instantánea del motor.
+     */
+    @Override
+    public void setVisible(boolean visible) {
+        if (visible && enBandeja) {
+            enBandeja = false;
+            mostrarInstantanea(motor.getInstantanea());
+            timerAnimacion.start();
         }
+        super.setVisible(visible);
     }
 
     public void mostrarVentana() {
@@ -778,28 +766,105 @@ public class VistaPrincipal extends JFrame {
         toFront(); // Traer la ventana al frente
     }
 
+    /**
+     * Trae la ventana al frente cuando se intenta abrir otra instancia.
+     * Se llama desde el hilo del servidor de InstanciaUnica.
+     */
+    private void activarDesdeOtraInstancia() {
+        SwingUtilities.invokeLater(() -> {
+            // Restaurar la ventana si está minimizada
+            if (getState() == JFrame.ICONIFIED) {
+                setState(JFrame.NORMAL);
+            }
+            
+            // Traer la ventana al frente
+            setVisible(true);
+            toFront();
+            requestFocus();
+            
+            // En Windows, a veces es necesario hacer esto para forzar el foco
+            if (System.getProperty("os.name").toLowerCase().contains("windows")) {
+                setAlwaysOnTop(true);
+                setAlwaysOnTop(false);
+            }
+        });
+    }
+
+    /**
+     * Crea la ventana, la conecta con InstanciaUnica y la muestra. Se llama
+     * en el EDT, teniendo el bloqueo de instancia única.
+     */
+    public static void abrir() {
+        VistaPrincipal ventana = new VistaPrincipal();
+        InstanciaUnica.configurarActivacion(ventana::activarDesdeOtraInstancia);
+        ventana.setVisible(true);
+    }
+
+    /**
+     * Oculta la ventana en la bandeja en modo de bajo consumo.
+     *
+     * La agenda puede pasar el día entero en la bandeja, así que mientras
+     * tanto se suelta todo lo que solo sirve para dibujar:
+     *  - Se detiene el timer de la cuenta regresiva
+     *  - Se vacía el modelo de la tabla (lista de la instantánea y textos
+     *    guardados por fila) y se dejan de procesar las instantáneas nuevas
+     *  - Se cierran (dispose) los diálogos que hayan quedado ocultos
+     *  - Se cierra la ventana nativa (dispose): se liberan sus búferes de
+     *    dibujo; setVisible(true) la vuelve a crear igual
+     * setVisible(true) rearma todo con la última instantánea del motor.
+     *
+     * No se fuerza ninguna recolección de basura (antes se llamaba a
+     * System.gc() cada minuto, con pausas completas todo el día): la memoria
+     * se libera en la próxima recolección normal. Para comprobarlo se
+     * informa el heap y la memoria residente al ocultar y DEMORA_MEDICION_MS
+     * después.
+     *
+     * Medido (Java 11, después de una recolección completa): con 1.000
+     * tareas quedan 5,5 MB de heap vivo contra 6,5 MB sin el modo; con
+     * 20.000, 27,1 MB contra 27,7 MB. El RSS no baja (la JVM no devuelve el
+     * heap): lo que se ahorra es heap. Ver README, "La aplicación consume
+     * mucha memoria".
+     */
+    public void ocultarEnBandeja() {
+        setVisible(false);
+        if (!BAJO_CONSUMO || enBandeja) {
+            return;
+        }
+        String antes = MemoriaProceso.resumen();
+        enBandeja = true;
+        timerAnimacion.stop();
+        modelo.vaciar();
+        for (Window propia : getOwnedWindows()) {
+            propia.dispose();
+        }
+        dispose();
+        System.out.println("Agenda en la bandeja (bajo consumo). Memoria al ocultar: " + antes);
+
+        Timer medicion = new Timer(DEMORA_MEDICION_MS, e -> {
+            if (enBandeja) {
+                System.out.println("Memoria en la bandeja: " + MemoriaProceso.resumen());
+            }
+        });
+        medicion.setRepeats(false);
+        medicion.start();
+    }
+
     /**
      * Limpia los recursos (timers) antes de cerrar la aplicación.
      * Importante para evitar memory leaks.
      */
     private void limpiarRecursos() {
-        if (timerActualizacion != null && timerActualizacion.isRunning()) {
-            timerActualizacion.stop();
-        }
         if (timerAnimacion != null && timerAnimacion.isRunning()) {
             timerAnimacion.stop();
         }
-        if (timerDiarioAutoEliminacion != null && timerDiarioAutoEliminacion.isRunning()) {
-            timerDiarioAutoEliminacion.stop();
-        }
         
         // Liberar bloqueo de instancia única
-        logica.InstanciaUnica.liberarBloqueo();
+        InstanciaUnica.liberarBloqueo();
     }
 
     public static void main(String[] args) {
         // Verificar si ya hay una instancia ejecutándose
-        if (!logica.InstanciaUnica.esPrimeraInstancia()) {
+        if (!InstanciaUnica.esPrimeraInstancia()) {
             // Ya hay una instancia ejecutándose, la señal para activarla ya se envió
             System.out.println("DeskAgenda ya está ejecutándose. Activando ventana existente...");
             System.exit(0);
@@ -807,16 +872,8 @@ public class VistaPrincipal extends JFrame {
         }
         
         // Esta es la primera instancia, configurar liberación automática del bloqueo
-        logica.InstanciaUnica.configurarLiberacionAutomatica();
+        InstanciaUnica.configurarLiberacionAutomatica();
         
-        SwingUtilities.invokeLater(() -> {
-            VistaPrincipal ventana = new VistaPrincipal();
-            
-            // Configurar la ventana para el sistema de instancia única
-            logica.InstanciaUnica.configurarVentanaPrincipal(ventana);
-            logica.InstanciaUnica.configurarLiberacionAlCerrar(ventana);
-            
-            ventana.setVisible(true);
-        });
+        SwingUtilities.invokeLater(VistaPrincipal::abrir);
     }
 }
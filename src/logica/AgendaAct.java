@@ -3,29 +3,66 @@ package logica;
 import igu.VistaPrincipal;
 import javax.swing.SwingUtilities;
 
+/**
+ * Punto de entrada.
+ *
+ *   java -jar DeskAgenda.jar              ventana (Swing) sobre el núcleo
+ *   java -jar DeskAgenda.jar --headless   solo el núcleo y el canal de
+ *                                         comandos, sin cargar AWT ni Swing
+ *                                         (servidores, tareas programadas)
+ *
+ * En los dos modos la agenda es la misma (mismo archivo, mismo bloqueo):
+ * con una abierta, la otra no arranca.
+ */
 public class AgendaAct {
 
     public static void main(String[] args) {
-        // Verificar si ya hay una instancia ejecutándose
-        if (!InstanciaUnica.esPrimeraInstancia()) {
+        boolean sinVentana = false;
+        for (String arg : args) {
+            if ("--headless".equals(arg)) {
+                sinVentana = true;
+            }
+        }
+        if (sinVentana) {
+            // Por si alguna dependencia toca AWT: que no intente abrir la pantalla
+            System.setProperty("java.awt.headless", "true");
+        }
+
+        // Verificar si ya hay una instancia ejecutándose (sin ventana no se
+        // activa la otra: abriría su ventana sin que nadie lo pidiera)
+        if (!InstanciaUnica.esPrimeraInstancia(!sinVentana)) {
+            if (sinVentana) {
+                // No hay ventana para activar: el que la quiera usar tiene el canal de comandos
+                System.err.println("DeskAgenda ya está ejecutándose (usar ClienteAgenda para enviarle comandos).");
+                System.exit(1);
+                return;
+            }
             // Ya hay una instancia ejecutándose, la señal para activarla ya se envió
             System.out.println("DeskAgenda ya está ejecutándose. Activando ventana existente...");
             System.exit(0);
             return;
         }
-        
+
         // Esta es la primera instancia, configurar liberación automática del bloqueo
         InstanciaUnica.configurarLiberacionAutomatica();
-        
-        SwingUtilities.invokeLater(() -> {
-            VistaPrincipal ventana = new VistaPrincipal();
-            
-            // Configurar la ventana para el sistema de instancia única
-            InstanciaUnica.configurarVentanaPrincipal(ventana);
-            InstanciaUnica.configurarLiberacionAlCerrar(ventana);
-            
-            ventana.setVisible(true);
-        });
+
+        if (sinVentana) {
+            if (!InstanciaUnica.canalAbierto()) {
+                // Sin canal no hay cómo usarla, y no quedaría ningún hilo que la mantenga viva
+                System.err.println("No se pudo abrir el canal de comandos: DeskAgenda no puede funcionar sin ventana.");
+                System.exit(1);
+                return;
+            }
+            // El hilo del canal de comandos mantiene viva la aplicación hasta Ctrl+C
+            NucleoAgenda.iniciarSinVentana();
+            return;
+        }
+        abrirVentana();
     }
-    
+
+    // Aparte para que en modo --headless no se cargue ninguna clase de Swing
+    private static void abrirVentana() {
+        SwingUtilities.invokeLater(VistaPrincipal::abrir);
+    }
+
 }
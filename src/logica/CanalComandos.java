@@ -0,0 +1,301 @@
+/*
+ * DeskAgenda - Canal de comandos
+ *
+ * Protocolo de texto con el que scripts y tareas programadas agregan y
+ * consultan tareas en la instancia que ya está abierta (ver InstanciaUnica
+ * y ClienteAgenda).
+ */
+package logica;
+
+// === IMPORTS DE FECHA Y HORA ===
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+// === IMPORTS DE COLECCIONES ===
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * CANAL DE COMANDOS
+ * =================
+ *
+ * Cada comando es una línea UTF-8 terminada en '\n', con los campos
+ * separados por tabulaciones. En los campos, '\\', '\t', '\n' y '\r' se
+ * escriben con barra invertida (ver escapar).
+ *
+ *  AGREGAR  nombre fecha hora [tipo [días [minutos]]]   -> OK 1 + id
+ *           fecha: 2026-11-01 o 01/11/2026; hora: 09:30
+ *           tipo: UNICA (por defecto), DIARIA o SEMANAL
+ *           días (SEMANAL): 1 a 7 separados por comas, 1 = lunes
+ *           minutos: alerta tantos minutos antes (sin este campo, sin alerta)
+ *  COMPLETAR id                                         -> OK 0
+ *  ELIMINAR  id                                         -> OK 0
+ *  LISTAR                                               -> OK n + n tareas
+ *  PROXIMAS  [cantidad]                                 -> OK n + n tareas
+ *           sin completar, desde este minuto (por defecto, 1)
+ *  MOSTRAR                                              -> OK 0
+ *           trae la ventana al frente
+ *  METRICAS                                             -> OK 1 + resumen
+ *           latencias de los comandos atendidos (ver MetricasComandos)
+ *
+ * Antes del primer comando, la conexión envía "CLAVE" + tab + el
+ * contenido de ~/.deskagenda/clave (solo lo puede leer el usuario que
+ * abrió la agenda) y recibe "OK 0"; con otra clave recibe un error y se
+ * cierra (ver ServidorComandos). Con nc, por ejemplo:
+ *
+ *   printf 'CLAVE\t%s\nLISTAR\n' "$(cat ~/.deskagenda/clave)" | nc 127.0.0.1 52847
+ *
+ * Cada respuesta empieza con "OK n" seguida de n líneas de datos, o con
+ * una sola línea "ERR mensaje". Las tareas se devuelven como
+ * id, nombre, fecha, hora, tipo y estado (el texto de la columna "Estado").
+ *
+ * Los comandos se pueden encadenar sin esperar respuesta: las respuestas
+ * llegan en el mismo orden. Los que ya llegaron juntos se ejecutan como un
+ * lote (GestorTareas.enLote): una sola instantánea, y al repositorio le
+ * llegan solo las tareas que cambiaron (con el journal, unas líneas en
+ * tareas.journal; tareas.json no se reescribe).
+ * Las conexiones las atiende ServidorComandos.
+ */
+final class CanalComandos {
+
+    // Más que esto por lote no se agrupa (el resto va en el lote siguiente)
+    static final int MAXIMO_LOTE = 10_000;
+    // Con más respuesta que esto (en caracteres) el lote se corta: el resto va en el siguiente
+    static final int MAXIMO_RESPUESTA = 1 << 20;
+
+    private static final DateTimeFormatter FECHA_ARGENTINA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private CanalComandos() {
+    }
+
+    /**
+     * Ejecuta el lote en el hilo del motor y agrega las respuestas, en orden,
+     * listas para escribir. Si la respuesta pasa de MAXIMO_RESPUESTA se deja
+     * de ejecutar (por ejemplo, muchos LISTAR seguidos): devuelve cuántos
+     * comandos ejecutó, siempre al menos uno.
+     */
+    static int ejecutar(List<String> lote, GestorTareas gestor, StringBuilder respuestas) {
+        boolean[] huboCompletadas = {false};
+        return gestor.enLote(() -> {
+            int ejecutados = 0;
+            while (ejecutados < lote.size() && (ejecutados == 0 || respuestas.length() < MAXIMO_RESPUESTA)) {
+                String linea = lote.get(ejecutados++);
+                try {
+                    ejecutar(separar(linea), gestor, respuestas, huboCompletadas);
+                } catch (DateTimeParseException e) {
+                    error(respuestas, "fecha u hora inválida: " + e.getParsedString());
+                } catch (RuntimeException e) {
+                    error(respuestas, e.getMessage()); // Los demás comandos del lote siguen
+                }
+            }
+            if (huboCompletadas[0]) {
+                gestor.reiniciarTareasSiNecesario(); // Igual que MotorAgenda.alternarEstado
+            }
+            return ejecutados;
+        });
+    }
+
+    private static void ejecutar(String[] campos, GestorTareas gestor, StringBuilder respuestas, boolean[] huboCompletadas) {
+        String verbo = campos[0].trim().toUpperCase(Locale.ROOT);
+        switch (verbo) {
+            case "AGREGAR": {
+                Tarea tarea = crearTarea(campos);
+                gestor.agregarTarea(tarea);
+                ok(respuestas, 1).append(tarea.getId()).append('\n');
+                break;
+            }
+            case "COMPLETAR": {
+                Tarea tarea = gestor.buscarTarea(leerId(campos));
+                if (tarea == null) {
+                    error(respuestas, "no existe la tarea " + campos[1]);
+                } else {
+                    if (!tarea.isCompletada()) {
+                        gestor.alternarEstadoPorId(tarea.getId());
+                        huboCompletadas[0] = true;
+                    }
+                    ok(respuestas, 0);
+                }
+                break;
+            }
+            case "ELIMINAR":
+                if (gestor.eliminarTareaPorId(leerId(campos))) {
+                    ok(respuestas, 0);
+                } else {
+                    error(respuestas, "no existe la tarea " + campos[1]);
+                }
+                break;
+            case "LISTAR":
+                escribirTareas(respuestas, gestor.obtenerTareasParaTabla());
+                break;
+            case "PROXIMAS": {
+                int cantidad = campos.length > 1 ? leerEntero(campos[1], "cantidad") : 1;
+                escribirTareas(respuestas, gestor.getProximasPendientes(Math.max(cantidad, 0)));
+                break;
+            }
+            case "MOSTRAR":
+                InstanciaUnica.activarVentanaPrincipal();
+                ok(respuestas, 0);
+                break;
+            case "METRICAS":
+                ok(respuestas, 1).append(escapar(InstanciaUnica.resumenMetricas())).append('\n');
+                break;
+            default:
+                error(respuestas, "comando desconocido: " + campos[0]);
+        }
+    }
+
+    private static Tarea crearTarea(String[] campos) {
+        if (campos.length < 4) {
+            throw new IllegalArgumentException("uso: AGREGAR nombre fecha hora [tipo [días [minutos]]]");
+        }
+        String nombre = campos[1].trim();
+        if (nombre.isEmpty()) {
+            throw new IllegalArgumentException("falta el nombre");
+        }
+        Tarea.TipoTarea tipo = campos.length > 4 && !campos[4].isEmpty() ? leerTipo(campos[4]) : Tarea.TipoTarea.UNICA;
+        Tarea tarea = new Tarea(nombre, leerFecha(campos[2]), LocalTime.parse(campos[3].trim()), tipo);
+        if (tipo == Tarea.TipoTarea.SEMANAL) {
+            if (campos.length < 6 || campos[5].trim().isEmpty()) {
+                throw new IllegalArgumentException("una tarea SEMANAL necesita los días (1 = lunes ... 7 = domingo)");
+            }
+            tarea.setDiasSemana(leerDias(campos[5]));
+        }
+        if (campos.length > 6 && !campos[6].trim().isEmpty()) {
+            tarea.setAlertaActiva(true);
+            tarea.setMinutosAntesAlerta(Math.max(leerEntero(campos[6], "minutos"), 0));
+        }
+        return tarea;
+    }
+
+    private static LocalDate leerFecha(String texto) {
+        String fecha = texto.trim();
+        return fecha.indexOf('/') >= 0 ? LocalDate.parse(fecha, FECHA_ARGENTINA) : LocalDate.parse(fecha);
+    }
+
+    private static Tarea.TipoTarea leerTipo(String texto) {
+        String tipo = texto.trim().toUpperCase(Locale.ROOT).replace('Ú', 'U');
+        try {
+            return Tarea.TipoTarea.valueOf(tipo);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("tipo desconocido: " + texto);
+        }
+    }
+
+    private static Set<DayOfWeek> leerDias(String texto) {
+        Set<DayOfWeek> dias = EnumSet.noneOf(DayOfWeek.class);
+        for (String dia : texto.split(",")) {
+            int numero = leerEntero(dia, "día");
+            if (numero < 1 || numero > 7) {
+                throw new IllegalArgumentException("día inválido: " + dia.trim());
+            }
+            dias.add(DayOfWeek.of(numero));
+        }
+        return dias;
+    }
+
+    private static long leerId(String[] campos) {
+        if (campos.length < 2) {
+            throw new IllegalArgumentException("falta el id");
+        }
+        try {
+            return Long.parseLong(campos[1].trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("id inválido: " + campos[1]);
+        }
+    }
+
+    private static int leerEntero(String texto, String campo) {
+        try {
+            return Integer.parseInt(texto.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(campo + " inválido: " + texto.trim());
+        }
+    }
+
+    // === RESPUESTAS ===
+
+    private static StringBuilder ok(StringBuilder respuestas, int lineas) {
+        return respuestas.append("OK ").append(lineas).append('\n');
+    }
+
+    private static void error(StringBuilder respuestas, String mensaje) {
+        respuestas.append("ERR ").append(escapar(mensaje == null ? "error" : mensaje)).append('\n');
+    }
+
+    private static void escribirTareas(StringBuilder respuestas, List<Tarea> tareas) {
+        ok(respuestas, tareas.size());
+        LocalDateTime ahora = LocalDateTime.now();
+        for (Tarea tarea : tareas) {
+            respuestas.append(tarea.getId()).append('\t')
+                    .append(escapar(tarea.getNombre())).append('\t')
+                    .append(tarea.getFecha()).append('\t')
+                    .append(tarea.getHoraTexto()).append('\t')
+                    .append(tarea.getTipo().name()).append('\t')
+                    .append(GestorTareas.textoEstado(tarea, ahora)).append('\n');
+        }
+    }
+
+    /**
+     * Respuesta de error para cada comando del lote (por ejemplo, si el motor no está disponible).
+     */
+    static String errores(int cantidad, String mensaje) {
+        StringBuilder respuestas = new StringBuilder();
+        for (int i = 0; i < cantidad; i++) {
+            error(respuestas, mensaje);
+        }
+        return respuestas.toString();
+    }
+
+    // === CAMPOS ===
+
+    /**
+     * Escribe el texto como un campo: sin tabulaciones ni saltos de línea literales.
+     */
+    static String escapar(String texto) {
+        StringBuilder campo = null;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            String reemplazo = c == '\\' ? "\\\\" : c == '\t' ? "\\t" : c == '\n' ? "\\n" : c == '\r' ? "\\r" : null;
+            if (reemplazo != null && campo == null) {
+                campo = new StringBuilder(texto.length() + 8).append(texto, 0, i);
+            }
+            if (campo != null) {
+                if (reemplazo != null) {
+                    campo.append(reemplazo);
+                } else {
+                    campo.append(c);
+                }
+            }
+        }
+        return campo == null ? texto : campo.toString();
+    }
+
+    /**
+     * Separa una línea en campos (por tabulaciones) y deshace el escapado de cada uno.
+     */
+    static String[] separar(String linea) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (c == '\t') {
+                campos.add(campo.toString());
+                campo.setLength(0);
+            } else if (c == '\\' && i + 1 < linea.length()) {
+                char siguiente = linea.charAt(++i);
+                campo.append(siguiente == 't' ? '\t' : siguiente == 'n' ? '\n' : siguiente == 'r' ? '\r' : siguiente);
+            } else {
+                campo.append(c);
+            }
+        }
+        campos.add(campo.toString());
+        return campos.toArray(new String[0]);
+    }
+}
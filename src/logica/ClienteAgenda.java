@@ -0,0 +1,322 @@
+/*
+ * DeskAgenda - Cliente de comandos
+ *
+ * Envía comandos a la instancia abierta (ver CanalComandos) desde Java o
+ * desde la línea de comandos.
+ */
+package logica;
+
+// === IMPORTS DE ENTRADA/SALIDA ===
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+// === IMPORTS DE COLECCIONES ===
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// === IMPORTS DE CONCURRENCIA ===
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * CLIENTE DE LA AGENDA
+ * ====================
+ *
+ * Uso desde scripts (con DeskAgenda abierto):
+ *
+ *   java -cp DeskAgenda.jar logica.ClienteAgenda AGREGAR "Pagar luz" 2026-11-01 09:00
+ *   java -cp DeskAgenda.jar logica.ClienteAgenda PROXIMAS 5
+ *   java -cp DeskAgenda.jar logica.ClienteAgenda < comandos.txt
+ *
+ * Con argumentos, envía un solo comando (un campo por argumento). Sin
+ * argumentos, lee de la entrada estándar un comando por línea, con los
+ * campos separados por tabulaciones, y los envía todos encadenados (miles
+ * de comandos se aplican en pocos lotes, con un guardado por lote).
+ *
+ * Escribe las líneas de datos de cada respuesta en la salida estándar y
+ * los errores en la de errores. Termina con 1 si algún comando falló y con
+ * 2 si no hay una instancia abierta.
+ *
+ * También se puede usar sin Java (por ejemplo, con nc): ver CanalComandos
+ * (la primera línea tiene que ser la clave).
+ */
+public final class ClienteAgenda implements AutoCloseable {
+
+    // Hasta esta cantidad de comandos se escriben antes de leer; con más, se
+    // escriben en otro hilo mientras se leen las respuestas (si no, las dos
+    // puntas podrían quedar esperando con los búferes llenos)
+    private static final int ENVIO_DIRECTO = 256;
+
+    private final SocketChannel canal;
+    private final BufferedReader lector;
+    private final Writer escritor;
+
+    /**
+     * Respuesta a un comando: "OK" con sus líneas de datos, o un error.
+     */
+    public static final class Respuesta {
+
+        private final String error;
+        private final List<String> lineas;
+
+        private Respuesta(String error, List<String> lineas) {
+            this.error = error;
+            this.lineas = lineas;
+        }
+
+        public boolean isOk() {
+            return error == null;
+        }
+
+        /**
+         * Mensaje de error, o null si el comando se ejecutó.
+         */
+        public String getError() {
+            return error;
+        }
+
+        /**
+         * Líneas de datos (id de la tarea agregada, tareas listadas...). Vacía si hubo error.
+         */
+        public List<String> getLineas() {
+            return lineas;
+        }
+
+        @Override
+        public String toString() {
+            return isOk() ? "OK " + lineas : "ERR " + error;
+        }
+    }
+
+    private ClienteAgenda(SocketChannel canal) {
+        this.canal = canal;
+        this.lector = new BufferedReader(new InputStreamReader(entrada(canal), StandardCharsets.UTF_8));
+        this.escritor = new BufferedWriter(new OutputStreamWriter(salida(canal), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Se conecta a la instancia abierta (por socket Unix o TCP, ver
+     * TransporteLocal) y le presenta la clave de ~/.deskagenda/clave.
+     * Falla si DeskAgenda no está ejecutándose o si rechaza la clave
+     * (por ejemplo, la abrió otro usuario).
+     */
+    public static ClienteAgenda conectar() throws IOException {
+        SocketChannel canal = TransporteLocal.conectar(InstanciaUnica.PUERTO_COMUNICACION);
+        try {
+            ClienteAgenda cliente = new ClienteAgenda(canal);
+            Respuesta respuesta = cliente.enviar(ServidorComandos.COMANDO_CLAVE, TransporteLocal.leerClave());
+            if (!respuesta.isOk()) {
+                throw new IOException("DeskAgenda rechazó la conexión: " + respuesta.getError());
+            }
+            return cliente;
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Arma una línea de comando a partir de sus campos, por ejemplo
+     * comando("AGREGAR", "Pagar luz", "2026-11-01", "09:00").
+     */
+    public static String comando(String... campos) {
+        StringBuilder linea = new StringBuilder();
+        for (int i = 0; i < campos.length; i++) {
+            if (i > 0) {
+                linea.append('\t');
+            }
+            linea.append(CanalComandos.escapar(campos[i]));
+        }
+        return linea.toString();
+    }
+
+    /**
+     * Envía un comando y espera su respuesta.
+     */
+    public Respuesta enviar(String... campos) throws IOException {
+        return enviar(Collections.singletonList(comando(campos))).get(0);
+    }
+
+    /**
+     * Envía todas las líneas sin esperar entre una y otra, y devuelve las
+     * respuestas en el mismo orden.
+     *
+     * @throws IllegalArgumentException si algún comando está vacío o tiene
+     *         saltos de línea (no se envía ninguno)
+     */
+    public List<Respuesta> enviar(List<String> comandos) throws IOException {
+        validar(comandos); // Antes de escribir: con muchos comandos se escribe en otro hilo
+        if (comandos.size() <= ENVIO_DIRECTO) {
+            escribir(comandos);
+            return leer(comandos.size());
+        }
+        AtomicReference<IOException> errorEscritura = new AtomicReference<>();
+        Thread envio = new Thread(() -> {
+            try {
+                escribir(comandos);
+            } catch (IOException e) {
+                errorEscritura.set(e);
+            }
+        }, "DeskAgenda-envio");
+        envio.setDaemon(true);
+        envio.start();
+        try {
+            return leer(comandos.size());
+        } catch (IOException e) {
+            IOException anterior = errorEscritura.get();
+            throw anterior != null ? anterior : e;
+        } finally {
+            try {
+                envio.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        canal.close();
+    }
+
+    // Channels.newInputStream/newOutputStream no sirven acá: con un canal
+    // bloqueante, leer y escribir desde dos hilos a la vez se traba
+    private static InputStream entrada(SocketChannel canal) {
+        return new InputStream() {
+            @Override
+            public int read() throws IOException {
+                byte[] uno = new byte[1];
+                return read(uno, 0, 1) < 0 ? -1 : uno[0] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] destino, int desde, int largo) throws IOException {
+                return largo == 0 ? 0 : canal.read(ByteBuffer.wrap(destino, desde, largo));
+            }
+        };
+    }
+
+    private static OutputStream salida(SocketChannel canal) {
+        return new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] origen, int desde, int largo) throws IOException {
+                ByteBuffer datos = ByteBuffer.wrap(origen, desde, largo);
+                while (datos.hasRemaining()) {
+                    canal.write(datos);
+                }
+            }
+        };
+    }
+
+    /**
+     * Cada comando tiene que ser una línea con algo: el servidor descarta
+     * las líneas vacías sin responder, y leer() esperaría para siempre.
+     */
+    private static void validar(List<String> comandos) {
+        for (String comando : comandos) {
+            if (comando.indexOf('\n') >= 0 || comando.indexOf('\r') >= 0) {
+                throw new IllegalArgumentException("Un comando no puede tener saltos de línea (usar comando(...))");
+            }
+            if (comando.trim().isEmpty()) {
+                throw new IllegalArgumentException("Un comando no puede estar vacío");
+            }
+        }
+    }
+
+    private void escribir(List<String> comandos) throws IOException {
+        for (String comando : comandos) {
+            escritor.write(comando);
+            escritor.write('\n');
+        }
+        escritor.flush();
+    }
+
+    private List<Respuesta> leer(int cantidad) throws IOException {
+        List<Respuesta> respuestas = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            String encabezado = leerLinea();
+            if (encabezado.startsWith("ERR ")) {
+                respuestas.add(new Respuesta(CanalComandos.separar(encabezado.substring(4))[0], Collections.emptyList()));
+            } else if (encabezado.startsWith("OK ")) {
+                int lineas = Integer.parseInt(encabezado.substring(3).trim());
+                List<String> datos = new ArrayList<>(lineas);
+                for (int j = 0; j < lineas; j++) {
+                    datos.add(leerLinea());
+                }
+                respuestas.add(new Respuesta(null, datos));
+            } else {
+                throw new IOException("Respuesta inesperada de DeskAgenda: " + encabezado);
+            }
+        }
+        return respuestas;
+    }
+
+    private String leerLinea() throws IOException {
+        String linea = lector.readLine();
+        if (linea == null) {
+            throw new IOException("DeskAgenda cerró la conexión");
+        }
+        return linea;
+    }
+
+    public static void main(String[] args) {
+        List<String> comandos = new ArrayList<>();
+        try {
+            if (args.length > 0) {
+                comandos.add(comando(args));
+            } else {
+                BufferedReader entrada = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+                String linea;
+                while ((linea = entrada.readLine()) != null) {
+                    if (!linea.trim().isEmpty()) {
+                        comandos.add(linea);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error al leer los comandos: " + e.getMessage());
+            System.exit(1);
+        }
+        if (comandos.isEmpty()) {
+            return;
+        }
+
+        List<Respuesta> respuestas;
+        try (ClienteAgenda cliente = conectar()) {
+            respuestas = cliente.enviar(comandos);
+        } catch (IOException e) {
+            System.err.println("No se pudo comunicar con DeskAgenda: " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+        boolean huboErrores = false;
+        for (int i = 0; i < respuestas.size(); i++) {
+            Respuesta respuesta = respuestas.get(i);
+            if (respuesta.isOk()) {
+                for (String linea : respuesta.getLineas()) {
+                    System.out.println(linea);
+                }
+            } else {
+                huboErrores = true;
+                System.err.println("Comando " + (i + 1) + ": " + respuesta.getError());
+            }
+        }
+        if (huboErrores) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * DeskAgenda - Cola de alertas
+ *
+ * Estructura donde PlanificadorAlertas guarda el próximo aviso de cada tarea.
+ */
+package logica;
+
+// === IMPORTS DE FUNCIONES ===
+import java.util.function.LongConsumer;
+
+/**
+ * COLA DE ALERTAS
+ * ===============
+ *
+ * Un instante (milisegundos de System.currentTimeMillis()) por id de tarea.
+ * Hay dos implementaciones:
+ *  - ColaPrioridadAlertas: montículo, exacta al milisegundo, O(log n) al programar
+ *  - RuedaAlertas: rueda de tiempo jerárquica, resolución de un segundo,
+ *    O(1) al programar y cancelar (conviene con decenas de miles de alertas)
+ *
+ * No es segura para varios hilos: PlanificadorAlertas la usa con su lock tomado.
+ */
+interface ColaAlertas {
+
+    /**
+     * Programa (o reprograma) el aviso de la tarea. Un id tiene a lo sumo un aviso.
+     */
+    void programar(long id, long instanteMs);
+
+    /**
+     * Devuelve true si el id tenía un aviso programado.
+     */
+    boolean cancelar(long id);
+
+    void limpiar();
+
+    int cantidad();
+
+    /**
+     * Momento (ms) en que hay que volver a llamar a extraerVencidas, o
+     * Long.MAX_VALUE si no hay nada programado. Nunca es posterior al
+     * próximo aviso, pero puede ser anterior (la rueda avisa cuando tiene
+     * que bajar entradas de un nivel a otro).
+     */
+    long proximoInstante();
+
+    /**
+     * Quita los avisos con instante menor o igual a ahoraMs y pasa sus ids a destino.
+     */
+    void extraerVencidas(long ahoraMs, LongConsumer destino);
+}
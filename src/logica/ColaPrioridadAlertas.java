@@ -0,0 +1,103 @@
+/*
+ * DeskAgenda - Cola de alertas con montículo
+ */
+package logica;
+
+// === IMPORTS DE COLECCIONES ===
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+// === IMPORTS DE FUNCIONES ===
+import java.util.function.LongConsumer;
+
+/**
+ * COLA DE PRIORIDAD DE ALERTAS
+ * ============================
+ *
+ * PriorityQueue ordenada por instante:
+ *  - programar: O(log n)
+ *  - cancelar: O(1). La entrada vieja queda en la cola y se descarta al
+ *    llegar a ella (se compacta si se acumulan muchas)
+ */
+final class ColaPrioridadAlertas implements ColaAlertas {
+
+    private static final class Entrada implements Comparable<Entrada> {
+        final long id;
+        final long instanteMs;
+
+        Entrada(long id, long instanteMs) {
+            this.id = id;
+            this.instanteMs = instanteMs;
+        }
+
+        @Override
+        public int compareTo(Entrada otra) {
+            return Long.compare(instanteMs, otra.instanteMs);
+        }
+    }
+
+    private final PriorityQueue<Entrada> cola = new PriorityQueue<>();
+    private final Map<Long, Entrada> vigentes = new HashMap<>(); // Entrada válida de cada id
+
+    @Override
+    public void programar(long id, long instanteMs) {
+        Entrada entrada = new Entrada(id, instanteMs);
+        vigentes.put(id, entrada);
+        cola.add(entrada);
+        compactarSiHaceFalta();
+    }
+
+    @Override
+    public boolean cancelar(long id) {
+        if (vigentes.remove(id) == null) {
+            return false;
+        }
+        compactarSiHaceFalta();
+        return true;
+    }
+
+    @Override
+    public void limpiar() {
+        vigentes.clear();
+        cola.clear();
+    }
+
+    @Override
+    public int cantidad() {
+        return vigentes.size();
+    }
+
+    @Override
+    public long proximoInstante() {
+        descartarCanceladasDelFrente();
+        return cola.isEmpty() ? Long.MAX_VALUE : cola.peek().instanteMs;
+    }
+
+    @Override
+    public void extraerVencidas(long ahoraMs, LongConsumer destino) {
+        while (!cola.isEmpty() && cola.peek().instanteMs <= ahoraMs) {
+            Entrada entrada = cola.poll();
+            if (vigentes.get(entrada.id) == entrada) {
+                vigentes.remove(entrada.id);
+                destino.accept(entrada.id);
+            }
+        }
+    }
+
+    private void descartarCanceladasDelFrente() {
+        while (!cola.isEmpty() && vigentes.get(cola.peek().id) != cola.peek()) {
+            cola.poll();
+        }
+    }
+
+    /**
+     * Si la cola tiene muchas más entradas que las vigentes, se rearma.
+     */
+    private void compactarSiHaceFalta() {
+        if (cola.size() > 64 && cola.size() > 2 * vigentes.size()) {
+            cola.clear();
+            cola.addAll(vigentes.values());
+        }
+    }
+}
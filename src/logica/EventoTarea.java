@@ -0,0 +1,107 @@
+/*
+ * DeskAgenda - Evento de cambio de una tarea
+ *
+ * Lo que avisa GestorTareas a sus oyentes, y lo que lleva cada
+ * InstantaneaAgenda para que la tabla cambie solo las filas afectadas.
+ */
+package logica;
+
+/**
+ * EVENTO DE TAREA
+ * ===============
+ *
+ * Tipos:
+ *  - AGREGADA:    tarea nueva
+ *  - ACTUALIZADA: cambió algún dato o su lugar en la tabla (por ejemplo,
+ *                 pasó de pendiente a vencida)
+ *  - ELIMINADA:   ya no está en la agenda
+ *  - RECARGADA:   cambiaron muchas tareas a la vez (carga, importación):
+ *                 hay que volver a leer todo. No trae tarea
+ *
+ * Los oyentes de GestorTareas reciben la tarea viva (en el hilo del motor)
+ * y filas -1. Los eventos de una InstantaneaAgenda traen la copia publicada
+ * y las filas que ocupaba la tarea en la instantánea anterior y en ésta
+ * (-1 si no estaba), para aplicarlos como inserciones, actualizaciones y
+ * borrados de filas.
+ */
+public final class EventoTarea {
+
+    public enum Tipo { AGREGADA, ACTUALIZADA, ELIMINADA, RECARGADA }
+
+    private static final EventoTarea RECARGA = new EventoTarea(Tipo.RECARGADA, 0, null, -1, -1);
+
+    private final Tipo tipo;
+    private final long id;
+    private final Tarea tarea;
+    private final int filaAnterior;
+    private final int filaNueva;
+
+    private EventoTarea(Tipo tipo, long id, Tarea tarea, int filaAnterior, int filaNueva) {
+        this.tipo = tipo;
+        this.id = id;
+        this.tarea = tarea;
+        this.filaAnterior = filaAnterior;
+        this.filaNueva = filaNueva;
+    }
+
+    static EventoTarea agregada(Tarea tarea) {
+        return new EventoTarea(Tipo.AGREGADA, tarea.getId(), tarea, -1, -1);
+    }
+
+    static EventoTarea actualizada(Tarea tarea) {
+        return new EventoTarea(Tipo.ACTUALIZADA, tarea.getId(), tarea, -1, -1);
+    }
+
+    static EventoTarea eliminada(Tarea tarea) {
+        return new EventoTarea(Tipo.ELIMINADA, tarea.getId(), tarea, -1, -1);
+    }
+
+    static EventoTarea recargada() {
+        return RECARGA;
+    }
+
+    /**
+     * Cambio de filas entre dos instantáneas. El tipo sale de dónde estaba
+     * y dónde está la tarea.
+     *
+     * @param tarea copia publicada (la nueva, o la anterior si se eliminó)
+     */
+    static EventoTarea deFilas(Tarea tarea, int filaAnterior, int filaNueva) {
+        Tipo tipo = filaAnterior < 0 ? Tipo.AGREGADA : filaNueva < 0 ? Tipo.ELIMINADA : Tipo.ACTUALIZADA;
+        return new EventoTarea(tipo, tarea.getId(), tarea, filaAnterior, filaNueva);
+    }
+
+    public Tipo getTipo() {
+        return tipo;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * La tarea afectada, o null si el tipo es RECARGADA.
+     */
+    public Tarea getTarea() {
+        return tarea;
+    }
+
+    /**
+     * Fila en la instantánea anterior, o -1 (si no estaba, o si el evento no es de una instantánea).
+     */
+    public int getFilaAnterior() {
+        return filaAnterior;
+    }
+
+    /**
+     * Fila en la instantánea nueva, o -1 (si ya no está, o si el evento no es de una instantánea).
+     */
+    public int getFilaNueva() {
+        return filaNueva;
+    }
+
+    @Override
+    public String toString() {
+        return tipo + " " + id + " (" + filaAnterior + " -> " + filaNueva + ")";
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * DeskAgenda - Cuenta regresiva
+ *
+ * Texto del tiempo que falta para una tarea ("2 d 05 h", "04:07:09")
+ * escrito a mano en un búfer de caracteres, sin String.format.
+ */
+package logica;
+
+/**
+ * FORMATEADOR DE CUENTA REGRESIVA
+ * ===============================
+ *
+ * Recibe los segundos que faltan como un long (sin LocalDateTime ni
+ * Duration) y escribe el texto de la columna "Estado":
+ *  - un día o más:       "d h"       (ej: "2 d 05 h")
+ *  - menos de un día:    "HH:MM:SS"  (ej: "04:07:09")
+ *  - negativo:           "Vencida"
+ *
+ * formatear(segundos, anterior) escribe en el búfer de la instancia y, si
+ * el texto es igual a "anterior" (el que ya muestra la fila), devuelve esa
+ * misma instancia de String: cuando nada cambió no se crea ningún objeto.
+ * Solo se crea un String nuevo cuando el texto cambia.
+ *
+ * Cada instancia tiene su propio búfer, así que no es segura para varios
+ * hilos: la tabla usa una sola, en el EDT. texto(segundos) no comparte
+ * nada y se puede usar desde cualquier hilo.
+ */
+public final class FormateadorCuentaRegresiva {
+
+    public static final String VENCIDA = "Vencida";
+    public static final String COMPLETADA = "✓";
+
+    private static final int LARGO_MAXIMO = 26; // 19 dígitos de días + " d 23 h"
+
+    private final char[] bufer = new char[LARGO_MAXIMO];
+
+    /**
+     * Texto para los segundos que faltan, reutilizando "anterior" si es igual.
+     *
+     * @param restanteSegundos segundos enteros que faltan (negativo = ya pasó)
+     * @param anterior         texto que se muestra ahora, o null
+     */
+    public String formatear(long restanteSegundos, String anterior) {
+        if (restanteSegundos < 0) {
+            return VENCIDA;
+        }
+        int largo = escribir(restanteSegundos, bufer);
+        if (anterior != null && esIgual(anterior, bufer, largo)) {
+            return anterior;
+        }
+        return new String(bufer, 0, largo);
+    }
+
+    /**
+     * Texto para los segundos que faltan, sin estado compartido.
+     */
+    public static String texto(long restanteSegundos) {
+        if (restanteSegundos < 0) {
+            return VENCIDA;
+        }
+        char[] caracteres = new char[LARGO_MAXIMO];
+        return new String(caracteres, 0, escribir(restanteSegundos, caracteres));
+    }
+
+    /**
+     * Escribe el texto desde la posición 0 y devuelve cuántos caracteres usó.
+     */
+    private static int escribir(long restanteSegundos, char[] destino) {
+        long dias = restanteSegundos / 86400;
+        int delDia = (int) (restanteSegundos % 86400);
+        int horas = delDia / 3600;
+        int posicion;
+        if (dias > 0) {
+            posicion = escribirEntero(dias, destino, 0);
+            destino[posicion++] = ' ';
+            destino[posicion++] = 'd';
+            destino[posicion++] = ' ';
+            posicion = escribirDosDigitos(horas, destino, posicion);
+            destino[posicion++] = ' ';
+            destino[posicion++] = 'h';
+        } else {
+            posicion = escribirDosDigitos(horas, destino, 0);
+            destino[posicion++] = ':';
+            posicion = escribirDosDigitos(delDia % 3600 / 60, destino, posicion);
+            destino[posicion++] = ':';
+            posicion = escribirDosDigitos(delDia % 60, destino, posicion);
+        }
+        return posicion;
+    }
+
+    private static int escribirDosDigitos(int valor, char[] destino, int posicion) {
+        destino[posicion] = (char) ('0' + valor / 10);
+        destino[posicion + 1] = (char) ('0' + valor % 10);
+        return posicion + 2;
+    }
+
+    /**
+     * Escribe un entero positivo y devuelve la posición siguiente.
+     */
+    private static int escribirEntero(long valor, char[] destino, int posicion) {
+        int digitos = 1;
+        for (long resto = valor / 10; resto > 0; resto /= 10) {
+            digitos++;
+        }
+        int fin = posicion + digitos;
+        for (int i = fin - 1; i >= posicion; i--) {
+            destino[i] = (char) ('0' + valor % 10);
+            valor /= 10;
+        }
+        return fin;
+    }
+
+    private static boolean esIgual(String texto, char[] caracteres, int largo) {
+        if (texto.length() != largo) {
+            return false;
+        }
+        for (int i = 0; i < largo; i++) {
+            if (texto.charAt(i) != caracteres[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
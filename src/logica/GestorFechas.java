@@ -2,22 +2,72 @@ package logica;
 
 import java.time.LocalDate; // Para manejar fechas sin hora
 import java.time.LocalDateTime; // Para fechas con hora específica
+import java.time.ZoneId; // Para pasar la hora de la tarea a un instante del reloj
 import java.time.format.DateTimeFormatter; // Para formatear fechas como texto
 import java.time.format.TextStyle; // Para obtener nombres de días en formato completo
+import java.util.ArrayList; // Para juntar las tareas a avisar
 import java.util.List; // Para trabajar con listas de tareas
 import java.util.Locale; // Para localización en español
-import javax.swing.Timer; // Timer para verificaciones periódicas
-import java.awt.event.ActionEvent; // Eventos del timer
-import java.awt.event.ActionListener; // Listener para eventos del timer
+import java.util.concurrent.Executor; // Hilo donde se procesan las alertas
+import java.util.function.BiConsumer; // Para avisar lotes de alertas (título, mensaje)
 
+/**
+ * Alertas de tareas.
+ *
+ * Cada tarea con alerta activa se programa en un PlanificadorAlertas para el
+ * instante fecha + hora - segundosAntesAlerta (por defecto en una rueda de
+ * tiempo, ver crearColaAlertas). El planificador duerme hasta
+ * la próxima alerta (no revisa la lista cada cierto tiempo) y se reprograma
+ * solo la tarea que cambia, gracias al oyente de cambios de GestorTareas.
+ * Al vencer, el aviso (mensaje, sonido y guardado) se hace en el hilo
+ * dueño de las tareas (el EDT o el de MotorAgenda), después de volver a
+ * verificar la tarea con debeAlertar().
+ *
+ * Si la computadora estuvo suspendida o cambió la hora, las alertas que
+ * vencieron en el intervalo llegan juntas: se avisan todas con un solo
+ * mensaje, un solo sonido y un solo guardado, aunque ya haya pasado el
+ * minuto en que debeAlertar() las aceptaría.
+ */
 public class GestorFechas {
     private GestorTareas gestorTareas;    private GestorSonido gestorSonido;
-    private Timer timerVerificacion;
+    private final PlanificadorAlertas planificador;
+    private BiConsumer<String, String> notificador; // Aviso visible para lotes de alertas (bandeja)
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
 
-    public GestorFechas(GestorTareas gestorTareas, GestorSonido gestorSonido) {        this.gestorTareas = gestorTareas;
+    /**
+     * @param hiloTareas hilo donde se usa gestorTareas: ahí se procesan las
+     *                   alertas vencidas (el EDT, o el hilo de MotorAgenda)
+     */
+    public GestorFechas(GestorTareas gestorTareas, GestorSonido gestorSonido, Executor hiloTareas) {
+        this.gestorTareas = gestorTareas;
         this.gestorSonido = gestorSonido;
-        iniciarTimerVerificacionInterno();
+        this.planificador = new PlanificadorAlertas(crearColaAlertas(),
+                (ids, saltoMs) -> hiloTareas.execute(() -> alertarVencidas(ids, saltoMs)));
+        gestorTareas.agregarOyenteCambios(this::alCambiar);
+        for (Tarea tarea : gestorTareas.getTareas()) {
+            reprogramar(tarea);
+        }
+    }
+
+    /**
+     * Elige dónde se guardan los avisos con -Ddeskagenda.alertas=...
+     *  - "monticulo": cola de prioridad, exacta al milisegundo
+     *  - cualquier otro valor: rueda de tiempo (resolución de un segundo,
+     *    O(1) al reprogramar; la opción por defecto)
+     */
+    static ColaAlertas crearColaAlertas() {
+        if ("monticulo".equalsIgnoreCase(System.getProperty("deskagenda.alertas", ""))) {
+            return new ColaPrioridadAlertas();
+        }
+        return new RuedaAlertas();
+    }
+
+    /**
+     * Recibe (título, mensaje) cuando se avisan varias alertas juntas o
+     * alertas atrasadas, por ejemplo para mostrarlas en la bandeja.
+     */
+    public void setNotificador(BiConsumer<String, String> notificador) {
+        this.notificador = notificador;
     }
 
     public String formatearFecha(LocalDate fecha) {
@@ -29,47 +79,168 @@ public class GestorFechas {
         if (fecha == null) return "";        return fecha.getDayOfWeek().getDisplayName(TextStyle.FULL, Locale.getDefault());
     }
 
-    private void iniciarTimerVerificacionInterno() {
-        if (timerVerificacion == null) {
-            timerVerificacion = new Timer(30000, new ActionListener() {
-                @Override
-                public void actionPerformed(ActionEvent e) {
-                    verificarTareasProximasYNotificar();
-                }
-            });            timerVerificacion.start();
-        }
-    }
-
+    /**
+     * Revisa todas las tareas de una vez y avisa las que correspondan.
+     * Las alertas ya se disparan solas; esto queda para forzar una revisión completa.
+     */
     public void verificarTareasProximasYNotificar() {
-        System.out.println("Verificando tareas próximas para notificación...");
         List<Tarea> tareas = gestorTareas.getTareas();
         LocalDateTime ahora = LocalDateTime.now();
+        List<Tarea> aAvisar = new ArrayList<>();
 
         for (Tarea tarea : tareas) {
-            if (!tarea.isCompletada() && tarea.isAlertaActiva()) {
-                LocalDateTime fechaHoraTarea = LocalDateTime.of(tarea.getFecha(), tarea.getHora());
-                // Usar la configuración real de segundos antes de alerta de la tarea
-                int segundosAntes = tarea.getSegundosAntesAlerta();
-                LocalDateTime tiempoAlerta = fechaHoraTarea.minusSeconds(segundosAntes);
-                
-                // Verificar si es tiempo de alertar
-                if (ahora.isAfter(tiempoAlerta) && ahora.isBefore(fechaHoraTarea.plusMinutes(1))) {
-                    int minutos = segundosAntes / 60;
-                    int segundos = segundosAntes % 60;
-                    String tiempoTexto = minutos > 0 ? minutos + " min " + segundos + " seg" : segundos + " seg";
-                    System.out.println("¡Alerta! Tarea próxima: " + tarea.getNombre() + " a las " + tarea.getHoraTexto() + " (alertando " + tiempoTexto + " antes)");
-                    if (gestorSonido != null) {
-                        gestorSonido.reproducirSonido();
-                    }
-                    tarea.setAlertaActiva(false);
-                    gestorTareas.guardarTareas();
-                }
+            if (debeAlertar(tarea, ahora)) {
+                aAvisar.add(tarea);
             }
-        }    }
-    
-    public void detenerTimer() {
-        if (timerVerificacion != null && timerVerificacion.isRunning()) {
-            timerVerificacion.stop();
         }
+        alertar(aAvisar, false);
+    }
+
+    /**
+     * Indica si hay que avisar la tarea en este momento: está pendiente, tiene
+     * la alerta activa, ya pasó el momento de avisar y no pasó más de un
+     * minuto desde su hora.
+     */
+    public static boolean debeAlertar(Tarea tarea, LocalDateTime ahora) {
+        if (tarea.isCompletada() || !tarea.isAlertaActiva()) {
+            return false;
+        }
+        LocalDateTime fechaHoraTarea = LocalDateTime.of(tarea.getFecha(), tarea.getHora());
+        // Usar la configuración real de segundos antes de alerta de la tarea
+        LocalDateTime tiempoAlerta = fechaHoraTarea.minusSeconds(tarea.getSegundosAntesAlerta());
+        return ahora.isAfter(tiempoAlerta) && ahora.isBefore(fechaHoraTarea.plusMinutes(1));
+    }
+
+    /**
+     * Lo llama GestorTareas cada vez que una tarea se agrega, cambia o
+     * elimina; si se recargaron todas, se vuelven a programar todas.
+     */
+    private void alCambiar(EventoTarea evento) {
+        if (evento.getTipo() != EventoTarea.Tipo.RECARGADA) {
+            reprogramar(evento.getTarea());
+            return;
+        }
+        planificador.cancelarTodas();
+        for (Tarea tarea : gestorTareas.getTareas()) {
+            reprogramar(tarea);
+        }
+    }
+
+    /**
+     * Programa (o cancela) la alerta de una tarea según sus datos actuales.
+     */
+    private void reprogramar(Tarea tarea) {
+        if (gestorTareas.buscarTarea(tarea.getId()) != tarea
+                || tarea.isCompletada() || !tarea.isAlertaActiva()) {
+            planificador.cancelar(tarea.getId()); // Eliminada, reemplazada o sin alerta
+            return;
+        }
+        if (System.currentTimeMillis() >= finAlertaMs(tarea)) {
+            planificador.cancelar(tarea.getId()); // Ya pasó el momento de avisar
+            return;
+        }
+        planificador.programar(tarea.getId(), instanteAlertaMs(tarea));
+    }
+
+    /**
+     * Primer instante (ms) en que debeAlertar() da true para la tarea.
+     * +1 ms: debeAlertar() pide que "ahora" sea posterior al momento de la alerta.
+     */
+    static long instanteAlertaMs(Tarea tarea) {
+        LocalDateTime fechaHoraTarea = LocalDateTime.of(tarea.getFecha(), tarea.getHora());
+        return instante(fechaHoraTarea.minusSeconds(tarea.getSegundosAntesAlerta())) + 1;
+    }
+
+    /**
+     * Instante (ms) a partir del cual ya no se avisa: un minuto después de la hora de la tarea.
+     */
+    static long finAlertaMs(Tarea tarea) {
+        return instante(LocalDateTime.of(tarea.getFecha(), tarea.getHora()).plusMinutes(1));
+    }
+
+    /**
+     * En el hilo de las tareas: vencieron las alertas de estas tareas. Se vuelve a
+     * verificar cada una con los datos actuales antes de avisar.
+     */
+    private void alertarVencidas(List<Long> ids, long saltoMs) {
+        LocalDateTime ahora = LocalDateTime.now();
+        long ahoraMs = System.currentTimeMillis();
+        List<Tarea> aAvisar = new ArrayList<>();
+        boolean hayAtrasadas = false;
+        for (long id : ids) {
+            Tarea tarea = gestorTareas.buscarTarea(id);
+            if (tarea == null) {
+                continue;
+            }
+            if (debeAlertar(tarea, ahora)) {
+                aAvisar.add(tarea);
+            } else if (seSaltoLaAlerta(tarea, ahoraMs)) {
+                aAvisar.add(tarea); // Su minuto pasó mientras la computadora dormía o el reloj saltó
+                hayAtrasadas = true;
+            } else {
+                reprogramar(tarea); // Por ejemplo, si el reloj volvió atrás
+            }
+        }
+        if (saltoMs != 0 && !aAvisar.isEmpty()) {
+            System.out.println("Alertas acumuladas tras un salto del reloj de " + (saltoMs / 1000) + " s: " + aAvisar.size());
+        }
+        alertar(aAvisar, hayAtrasadas);
+    }
+
+    /**
+     * La alerta de la tarea ya tendría que haber sonado pero se pasó su
+     * ventana sin avisar (sigue pendiente y con la alerta activa).
+     */
+    private static boolean seSaltoLaAlerta(Tarea tarea, long ahoraMs) {
+        return !tarea.isCompletada() && tarea.isAlertaActiva() && instanteAlertaMs(tarea) <= ahoraMs;
+    }
+
+    /**
+     * Avisa todas las tareas juntas: un mensaje por tarea en la consola, un
+     * solo sonido, un solo aviso al notificador y un solo guardado.
+     */
+    private void alertar(List<Tarea> tareas, boolean hayAtrasadas) {
+        if (tareas.isEmpty()) {
+            return;
+        }
+        for (Tarea tarea : tareas) {
+            int segundosAntes = tarea.getSegundosAntesAlerta();
+            int minutos = segundosAntes / 60;
+            int segundos = segundosAntes % 60;
+            String tiempoTexto = minutos > 0 ? minutos + " min " + segundos + " seg" : segundos + " seg";
+            System.out.println("¡Alerta! Tarea próxima: " + tarea.getNombre() + " a las " + tarea.getHoraTexto() + " (alertando " + tiempoTexto + " antes)");
+            tarea.setAlertaActiva(false);
+        }
+        if (gestorSonido != null) {
+            gestorSonido.reproducirSonido();
+        }
+        if (notificador != null && (tareas.size() > 1 || hayAtrasadas)) {
+            notificador.accept(hayAtrasadas ? "Alertas atrasadas" : "Alertas", resumen(tareas));
+        }
+        gestorTareas.actualizarTareas(tareas); // Un solo guardado; cancela sus alertas
+    }
+
+    private static String resumen(List<Tarea> tareas) {
+        StringBuilder texto = new StringBuilder();
+        int mostradas = Math.min(tareas.size(), 5);
+        for (int i = 0; i < mostradas; i++) {
+            Tarea tarea = tareas.get(i);
+            texto.append(tarea.getHoraTexto()).append(" ").append(tarea.getNombre()).append("\n");
+        }
+        if (tareas.size() > mostradas) {
+            texto.append("y ").append(tareas.size() - mostradas).append(" más");
+        }
+        return texto.toString().trim();
+    }
+
+    private static long instante(LocalDateTime fechaHora) {
+        return fechaHora.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Detiene el hilo de alertas.
+     */
+    public void detenerTimer() {
+        planificador.detener();
     }
-}
\ No newline at end of file
+}
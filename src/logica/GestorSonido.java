@@ -2,52 +2,157 @@ package logica;
 
 import javax.sound.sampled.*;
 import java.io.BufferedInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 
+/**
+ * SONIDO DE LAS ALERTAS
+ * =====================
+ *
+ * El archivo se decodifica una sola vez (en precargar(), al iniciar el
+ * motor, o la primera vez que suena) y queda en memoria como PCM. Con esos
+ * datos se abre un único Clip que se reutiliza: cada alerta solo lo
+ * rebobina (setFramePosition(0)) y lo arranca, así que el sonido sale con
+ * la demora del búfer de audio, sin leer ni decodificar nada.
+ *
+ *  - Si llega otra alerta mientras el sonido todavía se está reproduciendo,
+ *    no se vuelve a empezar: varias alertas juntas suenan una vez
+ *  - cerrar() libera la línea de audio (al salir de la aplicación)
+ *  - Si la línea falla (por ejemplo, se desconectó el dispositivo de
+ *    audio) se cierra y se vuelve a abrir en la próxima alerta
+ *
+ * Lo usa el hilo del motor; los métodos están sincronizados por si se
+ * llaman desde otro.
+ */
 public class GestorSonido {
 
-    private Clip clip;
+    private static final String RUTA_SONIDO = "/notification/notification_sound.wav";
 
-    public void reproducirSonido() { // Renombrado.
-        try {
-            // Asegurarse de encontrar el archivo de sonido en el path
-            InputStream audioSrc = getClass().getResourceAsStream("/notification/notification_sound.wav");
-            
-            if (audioSrc == null) {
-                System.err.println("Archivo de sonido no encontrado: /notification/notification_sound.wav. Por favor, asegúrese de que el archivo .wav exista en la carpeta de recursos.");
-                return;
-            }
+    private AudioFormat formato; // Formato PCM de los datos decodificados
+    private byte[] pcm;          // null = todavía no se decodificó
+    private boolean sinSonido;   // El archivo falta o no se puede leer: no reintentar
+    private Clip clip;           // Línea abierta con el PCM, reutilizada en cada alerta
+    private boolean sonando;     // Se arrancó y puede no haber terminado (ver inicioNanos)
+    private long inicioNanos;    // Cuándo arrancó la última reproducción (nanoTime: solo vale si sonando)
+    private long duracionNanos;
+
+    /**
+     * Decodifica el sonido y abre la línea ahora (fuera del EDT), para que
+     * la primera alerta no tenga que esperar.
+     */
+    public synchronized void precargar() {
+        abrirClip();
+    }
 
-            InputStream bufferedIn = new BufferedInputStream(audioSrc);
-            AudioInputStream audioStream = AudioSystem.getAudioInputStream(bufferedIn);
-            
-            clip = AudioSystem.getClip();
-            clip.open(audioStream);
+    public synchronized void reproducirSonido() { // Renombrado.
+        if (!abrirClip()) {
+            return;
+        }
+        long ahora = System.nanoTime();
+        if (clip.isRunning() || (sonando && ahora - inicioNanos < duracionNanos)) {
+            return; // Ya está sonando por otra alerta
+        }
+        try {
+            clip.setFramePosition(0);
             clip.start(); // Reproducir una vez
+            inicioNanos = ahora;
+            sonando = true;
+        } catch (RuntimeException e) {
+            System.err.println("Error al reproducir sonido: " + e.getMessage());
+            cerrarClip(); // Se vuelve a abrir en la próxima alerta
+        }
+    }
+
+    public synchronized void detenerSonido() {
+        if (clip != null && clip.isRunning()) {
+            clip.stop();
+        }
+        sonando = false;
+    }
 
-            // Opcional: si quieres que el sonido se detenga después de un tiempo o al cerrar
-            // clip.addLineListener(event -> {
-            //     if (event.getType() == LineEvent.Type.STOP) {
-            //         clip.close();
-            //     }
-            // });
+    /**
+     * Libera la línea de audio. Se puede volver a reproducir después (la abre de nuevo).
+     */
+    public synchronized void cerrar() {
+        cerrarClip();
+    }
 
+    /**
+     * Deja el Clip abierto con el PCM en memoria. Devuelve false si no hay sonido.
+     */
+    private boolean abrirClip() {
+        if (clip != null) {
+            return true;
+        }
+        if (!decodificar()) {
+            return false;
+        }
+        try {
+            Clip nuevo = AudioSystem.getClip();
+            nuevo.open(formato, pcm, 0, pcm.length);
+            clip = nuevo;
+            duracionNanos = nuevo.getMicrosecondLength() * 1000;
+            return true;
+        } catch (LineUnavailableException | IllegalArgumentException e) {
+            System.err.println("No se pudo abrir la línea de audio: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Lee y decodifica el archivo una sola vez.
+     */
+    private boolean decodificar() {
+        if (pcm != null) {
+            return true;
+        }
+        if (sinSonido) {
+            return false;
+        }
+        // Asegurarse de encontrar el archivo de sonido en el path
+        InputStream audioSrc = getClass().getResourceAsStream(RUTA_SONIDO);
+        if (audioSrc == null) {
+            System.err.println("Archivo de sonido no encontrado: " + RUTA_SONIDO + ". Por favor, asegúrese de que el archivo .wav exista en la carpeta de recursos.");
+            sinSonido = true;
+            return false;
+        }
+        try (AudioInputStream original = AudioSystem.getAudioInputStream(new BufferedInputStream(audioSrc))) {
+            AudioInputStream audioStream = aPcm(original);
+            formato = audioStream.getFormat();
+            pcm = audioStream.readAllBytes();
+            return true;
         } catch (UnsupportedAudioFileException e) {
             System.err.println("Formato de audio no soportado: " + e.getMessage());
-            // Considerar usar un formato como WAV si MP3 da problemas sin librerías adicionales
-        } catch (Exception e) {
-            System.err.println("Error al reproducir sonido: " + e.getMessage());
-            e.printStackTrace();
+        } catch (IOException e) {
+            System.err.println("Error al leer el sonido: " + e.getMessage());
         }
+        sinSonido = true;
+        return false;
     }
 
-    public void detenerSonido() {
-        if (clip != null && clip.isRunning()) {
+    /**
+     * Si el archivo está comprimido (por ejemplo, ADPCM), lo convierte a PCM de 16 bits.
+     */
+    private static AudioInputStream aPcm(AudioInputStream entrada) {
+        AudioFormat origen = entrada.getFormat();
+        AudioFormat.Encoding codificacion = origen.getEncoding();
+        if (AudioFormat.Encoding.PCM_SIGNED.equals(codificacion) || AudioFormat.Encoding.PCM_UNSIGNED.equals(codificacion)) {
+            return entrada;
+        }
+        AudioFormat pcm16 = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, origen.getSampleRate(), 16,
+                origen.getChannels(), origen.getChannels() * 2, origen.getSampleRate(), false);
+        return AudioSystem.getAudioInputStream(pcm16, entrada);
+    }
+
+    private void cerrarClip() {
+        if (clip != null) {
             clip.stop();
             clip.close();
+            clip = null;
         }
+        sonando = false;
     }
-    
+
     // Método de prueba para verificar la reproducción de sonido directamente
     /*
     public static void main(String[] args) {
@@ -61,4 +166,4 @@ public class GestorSonido {
         }
     }
     */
-}
\ No newline at end of file
+}
@@ -8,16 +8,31 @@ package logica;
 
 // === IMPORTS DE PERSISTENCIA ===
 import persistencia.IRepositorioTareas;  // Interfaz para guardar/cargar tareas
+import persistencia.RepositorioBinario;  // Implementación que guarda en binario (agendas grandes)
+import persistencia.RepositorioDiferido; // Guarda en segundo plano agrupando cambios
+import persistencia.RepositorioMapeado;  // Archivo mapeado a memoria (agendas muy grandes)
 import persistencia.RepositorioJSON;     // Implementación que guarda en JSON
 
 // === IMPORTS DE FECHA Y HORA ===
+import java.time.DayOfWeek;             // Para ubicar el lunes de una semana
 import java.time.LocalDate;             // Para manejar fechas (día/mes/año)
 import java.time.LocalDateTime;          // Para manejar fecha y hora completa
+import java.time.temporal.TemporalAdjusters; // Para ir al lunes de la semana
 
 // === IMPORTS DE COLECCIONES ===
 import java.util.ArrayList;             // Lista dinámica para guardar tareas
+import java.util.Collection;            // Para actualizar varias tareas juntas
+import java.util.Collections;           // Lista de cambios vacía o de un solo elemento
 import java.util.List;                  // Interfaz de lista
 import java.util.Comparator;            // Para ordenar tareas por fecha
+import java.util.HashMap;               // Copias publicadas por id
+import java.util.HashSet;               // Ids cambiados desde la última instantánea
+import java.util.Iterator;              // Para recorrer las tareas por posición
+import java.util.LinkedHashMap;         // Tareas por id, en el orden en que se agregaron
+import java.util.Map;                   // Interfaz de mapa
+import java.util.Set;                   // Interfaz de conjunto
+import java.util.function.Consumer;     // Para avisar cambios de tareas
+import java.util.function.Supplier;     // Operaciones agrupadas en un lote
 
 // === IMPORTS DEL SISTEMA ===
 import java.io.File;                    // Para verificar si existen archivos
@@ -37,23 +52,90 @@ import java.io.File;                    // Para verificar si existen archivos
  * - Separa la lógica de la interfaz
  * - Asegura que los datos no se pierdan
  * - Mantiene todo un poquiiiito más organizado
+ * 
+ * HILOS:
+ * - Un solo hilo escribe (MotorAgenda, o el EDT si se usa directo): todos
+ *   los métodos que cambian o consultan las tareas vivas se llaman desde él.
+ * - Los demás hilos leen getInstantanea(): una foto inmutable y versionada
+ *   que se publica con publicarInstantanea(), sin locks ni copias al leer.
+ * - Las tareas de una instantánea nunca se modifican. Si una tarea no
+ *   cambió, la instantánea siguiente reutiliza la misma copia; por eso
+ *   editarSiSinCambios() puede comparar por identidad (como un
+ *   compare-and-set) para no pisar cambios hechos mientras tanto.
+ *
+ * EVENTOS:
+ * - Cada cambio se avisa a los oyentes como un EventoTarea (agregada,
+ *   actualizada, eliminada, o recargada si cambiaron muchas a la vez).
+ * - Cada instantánea lleva los cambios respecto de la anterior, con la
+ *   fila que ocupaba y ocupa cada tarea: la tabla inserta, actualiza o
+ *   borra solo esas filas en lugar de recargarse entera.
  */
 public class GestorTareas {
     
     // === DATOS EN MEMORIA ===
-    private List<Tarea> tareas;              // Lista de todas las tareas en memoria
+    // Todas las tareas, por id: buscar, editar, completar o eliminar una es O(1).
+    // LinkedHashMap conserva el orden en que se agregaron (el mismo que en el archivo).
+    private final Map<Long, Tarea> tareas = new LinkedHashMap<>();
+    // Las mismas tareas en el orden de la tabla (se actualiza en cada cambio).
+    // Si una tarea cambia de grupo sola (pasó su hora) se avisa como actualizada.
+    private final IndiceTabla indiceTabla = new IndiceTabla(tarea -> avisarCambio(EventoTarea.actualizada(tarea)));
+    // Y por fecha/hora, para las consultas por rango (ver "CONSULTAS POR FECHA")
+    private final IndiceFechas indiceFechas = new IndiceFechas();
+    // Interesados en saber qué tarea se agregó, cambió o eliminó (ej.: las alertas)
+    private final List<Consumer<EventoTarea>> oyentesCambios = new ArrayList<>();
     private IRepositorioTareas repositorio;  // Encargado de guardar/cargar desde archivo
+    
+    // === INSTANTÁNEAS PUBLICADAS ===
+    // Copia publicada de cada tarea que no cambió desde la última publicación
+    private final Map<Long, Tarea> copiasPublicadas = new HashMap<>();
+    private volatile InstantaneaAgenda instantanea = InstantaneaAgenda.VACIA;
+    private long versionInstantanea = 0;
+    // Lo que cambió desde la última publicación (para los eventos de la instantánea)
+    private final Set<Long> idsSinPublicar = new HashSet<>();
+    private boolean recargaSinPublicar = false;
+    // Con más cambios que éstos, la instantánea pide recargar la tabla entera
+    static final int MAXIMO_CAMBIOS_POR_FILA = 256;
+
+    // === LOTES (ver enLote) ===
+    private int profundidadLote = 0;        // > 0 mientras se ejecuta un lote
+    private boolean loteCompleto = false;   // Algo del lote pide guardar todo (importar, reinicio diario...)
+    // Cambios puntuales del lote sin guardar, por id (uno por tarea: el primero manda)
+    private final Map<Long, EventoTarea> cambiosLote = new LinkedHashMap<>();
+    // Con más cambios que éstos el lote se guarda completo (el journal se compactaría igual)
+    static final int MAXIMO_CAMBIOS_LOTE = 200;
 
     /**
      * CONSTRUCTOR - Se ejecuta al crear un GestorTareas
      * ================================================
      * 
-     * Inicializa la lista de tareas y carga las tareas existentes desde el archivo.
-     * Usa ArrayList con capacidad inicial pequeña para ahorrar memoria.
+     * Inicializa las tareas y carga las existentes desde el archivo.
+     * Las escrituras se hacen en segundo plano (ver RepositorioDiferido).
      */public GestorTareas() {
-        // Usar ArrayList con capacidad inicial para evitar redimensionamientos
-        this.tareas = new ArrayList<>(10); // Capacidad inicial pequeña
-        this.repositorio = new RepositorioJSON();
+        this(crearRepositorioPorDefecto());
+    }
+    
+    /**
+     * Elige el formato de almacenamiento con -Ddeskagenda.almacenamiento=...
+     * - binario: tareas.dat
+     * - mapeado: tareas.map.* (escribe cada cambio en su registro, sin guardado diferido)
+     * - cualquier otro valor: tareas.json
+     */
+    private static IRepositorioTareas crearRepositorioPorDefecto() {
+        String almacenamiento = System.getProperty("deskagenda.almacenamiento", "");
+        if ("mapeado".equalsIgnoreCase(almacenamiento)) {
+            return new RepositorioMapeado();
+        }
+        if ("binario".equalsIgnoreCase(almacenamiento)) {
+            return new RepositorioDiferido(new RepositorioBinario());
+        }
+        return new RepositorioDiferido(new RepositorioJSON());
+    }
+    
+    /**
+     * Crea el gestor usando el repositorio indicado.
+     */
+    public GestorTareas(IRepositorioTareas repositorio) {
+        this.repositorio = repositorio;
         cargarTareas();
     }
     
@@ -63,8 +145,14 @@ public class GestorTareas {
      */
     public void agregarTarea(Tarea tarea) {
         if (tarea != null) {
-            tareas.add(tarea);
-            guardarTareas();
+            asegurarIdUnico(tarea);
+            tareas.put(tarea.getId(), tarea);
+            ubicar(tarea);
+            EventoTarea evento = EventoTarea.agregada(tarea);
+            avisarCambio(evento);
+            if (!diferirCambio(evento)) {
+                repositorio.registrarAgregada(tareas.values(), tarea);
+            }
         }
     }
     
@@ -72,7 +160,23 @@ public class GestorTareas {
      * Devuelve una copia de la lista de tareas para que no se pueda modificar directamente.
      */
     public List<Tarea> getTareas() {
-        return new ArrayList<>(tareas);
+        return new ArrayList<>(tareas.values());
+    }
+    
+    /**
+     * Registra un oyente que recibe un evento por cada tarea agregada,
+     * modificada o eliminada (después del cambio), o uno de tipo RECARGADA
+     * si cambiaron muchas a la vez.
+     */
+    public void agregarOyenteCambios(Consumer<EventoTarea> oyente) {
+        oyentesCambios.add(oyente);
+    }
+    
+    /**
+     * Busca una tarea por su id. Devuelve null si no existe.
+     */
+    public Tarea buscarTarea(long id) {
+        return tareas.get(id);
     }
     
     /**
@@ -80,7 +184,7 @@ public class GestorTareas {
      * Útil para mostrar las tareas en orden cronológico.
      */
     public List<Tarea> getTareasOrdenadas() {
-        List<Tarea> tareasOrdenadas = new ArrayList<>(tareas);
+        List<Tarea> tareasOrdenadas = new ArrayList<>(tareas.values());
         tareasOrdenadas.sort(Comparator.comparing(Tarea::getFecha)
                 .thenComparing(Tarea::getHora)
                 .thenComparing(Tarea::getNombre));
@@ -88,22 +192,25 @@ public class GestorTareas {
     }
     
     /**
-     * Actualiza una tarea en la posición indicada.
+     * Actualiza una tarea en la posición indicada (orden de getTareas()).
      * Verifica que el índice sea válido antes de hacer el cambio.
+     * Es O(n): preferir editarTareaPorId().
      */
     public void actualizarTarea(int indice, Tarea tareaEditada) {
-        if (indice >= 0 && indice < tareas.size()) {
-            tareas.set(indice, tareaEditada);
-            guardarTareas();
+        Tarea actual = tareaEnPosicion(indice);
+        if (actual != null) {
+            editarTareaPorId(actual.getId(), tareaEditada);
         }
     }
     
     /**
-     * Elimina una tarea por su posición en la lista.
+     * Elimina una tarea por su posición en la lista (orden de getTareas()).
+     * Es O(n): preferir eliminarTareaPorId().
      */
     public void eliminarTarea(int indice) {
-        if (indice >= 0 && indice < tareas.size()) {
-            tareas.remove(indice);            guardarTareas();
+        Tarea actual = tareaEnPosicion(indice);
+        if (actual != null) {
+            eliminarTareaPorId(actual.getId());
         }
     }
     
@@ -111,20 +218,137 @@ public class GestorTareas {
      * Elimina una tarea por el objeto directamente (no por índice).
      */
     public void eliminarTareaObjeto(Tarea tarea) {
-        if (tareas.remove(tarea)) {
-            guardarTareas();
+        if (tarea != null) {
+            eliminarTareaPorId(tarea.getId());
+        }
+    }
+    
+    // === OPERACIONES POR ID (O(1), sin copiar la lista) ===
+    
+    /**
+     * Reemplaza la tarea con ese id por la versión editada (que toma el mismo id).
+     * Devuelve false si no existe.
+     */
+    public boolean editarTareaPorId(long id, Tarea tareaEditada) {
+        if (tareaEditada == null || !tareas.containsKey(id)) {
+            return false;
+        }
+        tareaEditada.setId(id);
+        tareas.put(id, tareaEditada); // Reemplaza sin cambiar el orden
+        indexar(tareaEditada);
+        if (!diferirCambio(EventoTarea.actualizada(tareaEditada))) {
+            repositorio.registrarActualizada(tareas.values(), tareaEditada);
+        }
+        return true;
+    }
+    
+    /**
+     * Avisa que una tarea de la agenda se modificó directamente (con sus setters):
+     * la reubica en los índices y guarda el cambio. Devuelve false si no está en la agenda.
+     */
+    public boolean actualizarTarea(Tarea tarea) {
+        if (tarea == null || tareas.get(tarea.getId()) != tarea) {
+            return false;
+        }
+        indexar(tarea);
+        if (!diferirCambio(EventoTarea.actualizada(tarea))) {
+            repositorio.registrarActualizada(tareas.values(), tarea);
         }
+        return true;
+    }
+    
+    /**
+     * Igual que actualizarTarea(Tarea) para varias tareas, con un solo guardado.
+     * Devuelve cuántas estaban en la agenda.
+     */
+    public int actualizarTareas(Collection<Tarea> modificadas) {
+        List<Tarea> presentes = new ArrayList<>(modificadas.size());
+        for (Tarea tarea : modificadas) {
+            if (tarea != null && tareas.get(tarea.getId()) == tarea) {
+                indexar(tarea);
+                presentes.add(tarea);
+            }
+        }
+        if (presentes.isEmpty()) {
+            return 0;
+        }
+        if (profundidadLote > 0) {
+            for (Tarea tarea : presentes) {
+                diferirCambio(EventoTarea.actualizada(tarea));
+            }
+            return presentes.size();
+        }
+        if (presentes.size() == 1) {
+            repositorio.registrarActualizada(tareas.values(), presentes.get(0));
+        } else {
+            repositorio.registrarActualizadas(tareas.values(), presentes);
+        }
+        return presentes.size();
+    }
+    
+    /**
+     * Elimina la tarea con ese id. Devuelve false si no existe.
+     */
+    public boolean eliminarTareaPorId(long id) {
+        Tarea eliminada = tareas.remove(id);
+        if (eliminada == null) {
+            return false;
+        }
+        desindexar(eliminada);
+        if (!diferirCambio(EventoTarea.eliminada(eliminada))) {
+            repositorio.registrarEliminada(tareas.values(), eliminada);
+        }
+        return true;
+    }
+    
+    /**
+     * Cambia el estado de completada/pendiente de la tarea con ese id.
+     * Devuelve false si no existe.
+     */
+    public boolean alternarEstadoPorId(long id) {
+        Tarea tarea = tareas.get(id);
+        if (tarea == null) {
+            return false;
+        }
+        if (tarea.isCompletada()) {
+            tarea.marcarPendiente();
+        } else {
+            tarea.marcarCompletada();
+        }
+        indexar(tarea);
+        if (!diferirCambio(EventoTarea.actualizada(tarea))) {
+            repositorio.registrarActualizada(tareas.values(), tarea);
+        }
+        return true;
     }
     
     /**
      * Reinicia las tareas que sean necesarias (por ejemplo, las diarias).
      * Útil para llamar al inicio del día.
+     * Solo guarda si alguna tarea cambió: se llama cada pocos segundos y
+     * casi nunca hay nada para reiniciar. Devuelve cuántas reinició.
      */
-    public void reiniciarTareasSiNecesario() {
-        for (Tarea tarea : tareas) {
-            tarea.reiniciarSiNecesario();
+    public int reiniciarTareasSiNecesario() {
+        int reiniciadas = 0;
+        for (Tarea tarea : tareas.values()) {
+            if (tarea.reiniciarSiNecesario()) {
+                indexar(tarea);
+                reiniciadas++;
+            }
         }
-        guardarTareas();
+        if (reiniciadas > 0) {
+            guardarTareas();
+        }
+        return reiniciadas;
+    }
+    
+    /**
+     * Pasa a "vencidas" (en el orden de la tabla) las pendientes cuya hora ya
+     * pasó, avisando cada una como actualizada. Devuelve cuántas movió: si
+     * es 0, el orden de la tabla no cambió.
+     */
+    public int avanzarVencidas() {
+        return indiceTabla.avanzarHasta(IndiceTabla.ahoraMs());
     }
     
     /**
@@ -134,35 +358,33 @@ public class GestorTareas {
      */
     public int eliminarTareasUnicasCompletadasAyer() {
         LocalDate ayer = LocalDate.now().minusDays(1);
-        List<Tarea> tareasAEliminar = new ArrayList<>();
+        int cantidadAntes = tareas.size();
         
-        // Buscar tareas que cumplan las condiciones
-        for (Tarea tarea : tareas) {
-            if (tarea.getTipo() == Tarea.TipoTarea.UNICA && 
-                tarea.isCompletada() && 
-                tarea.getFechaUltimaCompletada() != null &&
-                tarea.getFechaUltimaCompletada().equals(ayer)) {
-                tareasAEliminar.add(tarea);
+        // Eliminar las tareas que cumplan las condiciones
+        tareas.values().removeIf(tarea -> {
+            boolean eliminar = tarea.getTipo() == Tarea.TipoTarea.UNICA && 
+                    tarea.isCompletada() && 
+                    tarea.getFechaUltimaCompletada() != null &&
+                    tarea.getFechaUltimaCompletada().equals(ayer);
+            if (eliminar) {
+                desindexar(tarea);
             }
-        }
-        
-        // Eliminar las tareas encontradas
-        for (Tarea tarea : tareasAEliminar) {
-            tareas.remove(tarea);
-        }
+            return eliminar;
+        });
         
         // Guardar solo si se eliminó algo
-        if (!tareasAEliminar.isEmpty()) {
+        int eliminadas = cantidadAntes - tareas.size();
+        if (eliminadas > 0) {
             guardarTareas();
         }
         
-        return tareasAEliminar.size();
+        return eliminadas;
     }
       /**
      * Exporta todas las tareas a un archivo específico.
      */
     public void exportarTareas(String archivo) {
-        repositorio.exportarTareas(tareas, archivo);
+        repositorio.exportarTareas(getTareas(), archivo);
     }
     
     /**
@@ -171,16 +393,118 @@ public class GestorTareas {
     public void importarTareas(String archivo) {
         List<Tarea> tareasImportadas = repositorio.importarTareas(archivo);
         if (tareasImportadas != null) {
-            tareas.addAll(tareasImportadas);
+            for (Tarea tarea : tareasImportadas) {
+                asegurarIdUnico(tarea); // Importar un respaldo de esta misma agenda repite ids
+                tareas.put(tarea.getId(), tarea);
+                ubicar(tarea);
+            }
+            avisarCambio(EventoTarea.recargada()); // Un solo aviso para todas
             guardarTareas();
         }
     }
     
-    /**    /**
+    /**
      * Guarda todas las tareas en el archivo JSON.
      */
     public void guardarTareas() {
-        repositorio.guardarTareas(tareas);
+        if (!diferirGuardado()) {
+            repositorio.guardarTareas(getTareas());
+        }
+    }
+    
+    /**
+     * Ejecuta varias operaciones como un solo cambio: lo que se guardaría
+     * en cada una se guarda una sola vez al terminar (si algo cambió).
+     * Los eventos se siguen avisando uno por uno, así que MotorAgenda
+     * publica una sola instantánea después del lote.
+     *
+     * Al terminar se pasa al repositorio un aviso por tarea cambiada (con el
+     * journal, unas pocas líneas en lugar de reescribir tareas.json). Solo se
+     * guarda todo si alguna operación lo pidió (importar, reinicio diario...)
+     * o si cambiaron más de MAXIMO_CAMBIOS_LOTE tareas.
+     *
+     * No es atómico: si una operación falla, las anteriores quedan hechas
+     * (y se guardan igual). Se puede anidar; guarda el lote de más afuera.
+     */
+    public <T> T enLote(Supplier<T> operaciones) {
+        profundidadLote++;
+        try {
+            return operaciones.get();
+        } finally {
+            if (--profundidadLote == 0) {
+                guardarLote();
+            }
+        }
+    }
+    
+    /**
+     * Guarda lo que cambió en el lote que terminó.
+     */
+    private void guardarLote() {
+        if (loteCompleto || cambiosLote.size() > MAXIMO_CAMBIOS_LOTE) {
+            loteCompleto = false;
+            cambiosLote.clear();
+            repositorio.guardarTareas(getTareas());
+            return;
+        }
+        List<EventoTarea> cambios = new ArrayList<>(cambiosLote.values());
+        cambiosLote.clear();
+        List<Tarea> actualizadas = new ArrayList<>();
+        for (EventoTarea cambio : cambios) {
+            if (cambio.getTipo() == EventoTarea.Tipo.ACTUALIZADA) {
+                // Las actualizaciones seguidas van juntas (una sola escritura del journal)
+                actualizadas.add(tareas.get(cambio.getId()));
+                continue;
+            }
+            registrarActualizadas(actualizadas);
+            if (cambio.getTipo() == EventoTarea.Tipo.AGREGADA) {
+                repositorio.registrarAgregada(tareas.values(), tareas.get(cambio.getId()));
+            } else {
+                repositorio.registrarEliminada(tareas.values(), cambio.getTarea());
+            }
+        }
+        registrarActualizadas(actualizadas);
+    }
+    
+    // Pasa al repositorio las actualizaciones juntadas por guardarLote y vacía la lista
+    private void registrarActualizadas(List<Tarea> actualizadas) {
+        if (actualizadas.size() == 1) {
+            repositorio.registrarActualizada(tareas.values(), actualizadas.get(0));
+        } else if (!actualizadas.isEmpty()) {
+            repositorio.registrarActualizadas(tareas.values(), new ArrayList<>(actualizadas));
+        }
+        actualizadas.clear();
+    }
+    
+    /**
+     * Escribe ya los cambios pendientes (si el guardado es en segundo plano).
+     */
+    public void flush() {
+        if (repositorio instanceof RepositorioDiferido) {
+            ((RepositorioDiferido) repositorio).flush();
+        }
+    }
+    
+    /**
+     * Espera a que los cambios hechos hasta ahora estén en disco.
+     * Devuelve false si se venció el tiempo de espera.
+     */
+    public boolean awaitPersisted(long timeoutMs) throws InterruptedException {
+        if (repositorio instanceof RepositorioDiferido) {
+            return ((RepositorioDiferido) repositorio).awaitPersisted(timeoutMs);
+        }
+        return true;
+    }
+    
+    /**
+     * Escribe lo pendiente y libera el hilo de guardado. Se llama al cerrar la aplicación.
+     */
+    public void cerrar() {
+        if (repositorio instanceof RepositorioDiferido) {
+            ((RepositorioDiferido) repositorio).cerrar();
+        } else if (repositorio instanceof RepositorioMapeado) {
+            ((RepositorioMapeado) repositorio).cerrar();
+        }
     }
       /**
      * Calcula y devuelve el estado de una tarea (completada, vencida, días restantes).
@@ -216,63 +540,158 @@ public class GestorTareas {
      * Busca la tarea en la lista y actualiza su estado.
      */
     public boolean actualizarEstadoTarea(Tarea tarea) {
-        List<Tarea> listaOriginal = getTareas();
-        int indice = listaOriginal.indexOf(tarea);
-        
-        if (indice != -1) {
-            if (tarea.isCompletada()) {
-                tarea.marcarPendiente();
-            } else {
-                tarea.marcarCompletada();
-            }
-            actualizarTarea(indice, tarea);
-            return true;
-        }
-        return false;
+        return tarea != null && alternarEstadoPorId(tarea.getId());
     }
     
     /**
      * Reemplaza una tarea existente con una versión editada.
      */
     public boolean editarTarea(Tarea tareaOriginal, Tarea tareaEditada) {
-        List<Tarea> listaOriginal = getTareas();
-        int indice = listaOriginal.indexOf(tareaOriginal);
-        
-        if (indice != -1) {
-            actualizarTarea(indice, tareaEditada);
-            return true;
+        return tareaOriginal != null && editarTareaPorId(tareaOriginal.getId(), tareaEditada);
+    }
+    
+    // === INSTANTÁNEAS (lectura desde cualquier hilo) ===
+    
+    /**
+     * Arma y publica una instantánea nueva con el estado actual. Solo copia
+     * las tareas que cambiaron desde la publicación anterior.
+     */
+    public InstantaneaAgenda publicarInstantanea() {
+        List<Tarea> enOrden = indiceTabla.enOrden(); // Puede pasar tareas a vencidas (y avisarlas)
+        List<Tarea> publicadas = new ArrayList<>(enOrden.size());
+        for (Tarea tarea : enOrden) {
+            publicadas.add(copiasPublicadas.computeIfAbsent(tarea.getId(), id -> tarea.copiar()));
         }
-        return false;
+        // Contadores del mismo momento que el orden: sin volver a pasar tareas a vencidas
+        int completadas = indiceTabla.contarSinAvanzar(IndiceTabla.COMPLETADA);
+        InstantaneaAgenda nueva = new InstantaneaAgenda(++versionInstantanea, publicadas,
+                tareas.size() - completadas, indiceTabla.contarSinAvanzar(IndiceTabla.VENCIDA),
+                cambiosDesde(instantanea, publicadas));
+        idsSinPublicar.clear();
+        recargaSinPublicar = false;
+        instantanea = nueva;
+        return nueva;
+    }
+
+    /**
+     * Eventos con la fila de cada tarea cambiada en la instantánea anterior y
+     * en la nueva. Recorre las dos listas una vez, sin ordenar ni comparar tareas.
+     */
+    private List<EventoTarea> cambiosDesde(InstantaneaAgenda anterior, List<Tarea> publicadas) {
+        if (recargaSinPublicar || idsSinPublicar.size() > MAXIMO_CAMBIOS_POR_FILA) {
+            return Collections.singletonList(EventoTarea.recargada());
+        }
+        if (idsSinPublicar.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Tarea> previas = anterior.getTareas();
+        Map<Long, Integer> filasAnteriores = filasDeCambiadas(previas);
+        Map<Long, Integer> filasNuevas = filasDeCambiadas(publicadas);
+        List<EventoTarea> cambios = new ArrayList<>(idsSinPublicar.size());
+        for (Long id : idsSinPublicar) {
+            Integer filaAnterior = filasAnteriores.get(id);
+            Integer filaNueva = filasNuevas.get(id);
+            if (filaNueva != null) {
+                cambios.add(EventoTarea.deFilas(publicadas.get(filaNueva),
+                        filaAnterior != null ? filaAnterior : -1, filaNueva));
+            } else if (filaAnterior != null) {
+                cambios.add(EventoTarea.deFilas(previas.get(filaAnterior), filaAnterior, -1));
+            } // Si no está en ninguna, se agregó y se eliminó entre dos publicaciones
+        }
+        return cambios;
+    }
+
+    private Map<Long, Integer> filasDeCambiadas(List<Tarea> lista) {
+        Map<Long, Integer> filas = new HashMap<>(idsSinPublicar.size() * 2);
+        for (int i = 0; i < lista.size(); i++) {
+            Long id = lista.get(i).getId();
+            if (idsSinPublicar.contains(id)) {
+                filas.put(id, i);
+            }
+        }
+        return filas;
+    }
+    
+    /**
+     * Última instantánea publicada. Se puede llamar desde cualquier hilo.
+     */
+    public InstantaneaAgenda getInstantanea() {
+        return instantanea;
+    }
+    
+    /**
+     * Reemplaza la tarea solo si nadie la cambió desde que se publicó "vista"
+     * (la copia que tiene quien pide el cambio). Devuelve false si cambió o
+     * si ya no existe: hay que volver a leerla de la instantánea nueva.
+     */
+    public boolean editarSiSinCambios(Tarea vista, Tarea tareaEditada) {
+        return esCopiaVigente(vista) && editarTareaPorId(vista.getId(), tareaEditada);
+    }
+    
+    /**
+     * Completa o vuelve a pendiente la tarea, solo si no cambió desde que se publicó "vista".
+     */
+    public boolean alternarEstadoSiSinCambios(Tarea vista) {
+        return esCopiaVigente(vista) && alternarEstadoPorId(vista.getId());
+    }
+    
+    private boolean esCopiaVigente(Tarea vista) {
+        return vista != null && copiasPublicadas.get(vista.getId()) == vista;
     }
       /**
      * Obtiene las tareas ordenadas para mostrar en la tabla.
-     * Las ordena por prioridad: pendientes urgentes, vencidas, completadas.
+     * Las ordena por prioridad: pendientes urgentes, vencidas, completadas,
+     * y dentro de cada grupo por fecha/hora.
+     * No ordena nada: el orden se mantiene en cada cambio (ver IndiceTabla) y
+     * acá solo se pasan a vencidas las pendientes cuya hora ya llegó.
      */
     public List<Tarea> obtenerTareasParaTabla() {
-        LocalDateTime ahora = LocalDateTime.now();
-        List<Tarea> tareasParaMostrar = new ArrayList<>(tareas);
-
-        // Ordenar por grupos de prioridad y luego por fecha/hora
-        tareasParaMostrar.sort((t1, t2) -> {
-            boolean comp1 = t1.isCompletada();
-            boolean comp2 = t2.isCompletada();
-            LocalDateTime dateTime1 = LocalDateTime.of(t1.getFecha(), t1.getHora());
-            LocalDateTime dateTime2 = LocalDateTime.of(t2.getFecha(), t2.getHora());
-            boolean overdue1 = !comp1 && dateTime1.isBefore(ahora);
-            boolean overdue2 = !comp2 && dateTime2.isBefore(ahora);
-        
-            // Asignar grupos: 1=pendientes, 2=vencidas, 3=completadas
-            int group1 = comp1 ? 3 : (overdue1 ? 2 : 1);
-            int group2 = comp2 ? 3 : (overdue2 ? 2 : 1);
-        
-            if (group1 != group2) {
-                return Integer.compare(group1, group2);
-            }
-        
-            return dateTime1.compareTo(dateTime2);
-        });
-        
-        return tareasParaMostrar;
+        return indiceTabla.enOrden();
+    }
+    
+    // === CONSULTAS POR FECHA (O(log n + k), sin recorrer todas las tareas) ===
+    
+    /**
+     * Tareas con fecha entre desde y hasta (ambos días incluidos), por fecha y hora.
+     */
+    public List<Tarea> getTareasEntre(LocalDate desde, LocalDate hasta) {
+        return indiceFechas.entreDias(desde, hasta);
+    }
+    
+    /**
+     * Tareas con fecha/hora en [desde, hasta), al minuto, por fecha y hora.
+     */
+    public List<Tarea> getTareasEntre(LocalDateTime desde, LocalDateTime hasta) {
+        return indiceFechas.entre(desde, hasta);
+    }
+    
+    /**
+     * Tareas de la semana (lunes a domingo) que contiene el día indicado.
+     */
+    public List<Tarea> getTareasDeSemana(LocalDate dia) {
+        LocalDate lunes = dia.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        return indiceFechas.entreDias(lunes, lunes.plusDays(6));
+    }
+    
+    /**
+     * Las próximas "cantidad" tareas sin completar desde este minuto en adelante.
+     */
+    public List<Tarea> getProximasPendientes(int cantidad) {
+        return indiceFechas.proximasPendientes(LocalDateTime.now(), cantidad);
+    }
+    
+    /**
+     * Cuántas tareas sin completar ya pasaron su hora.
+     */
+    public int contarVencidas() {
+        return indiceTabla.contar(IndiceTabla.VENCIDA);
+    }
+    
+    /**
+     * Cuántas tareas no están completadas (pendientes + vencidas).
+     */
+    public int contarSinCompletar() {
+        return tareas.size() - indiceTabla.contar(IndiceTabla.COMPLETADA);
     }
     
     /**
@@ -280,57 +699,59 @@ public class GestorTareas {
      * Calcula el tiempo restante y formatea toda la información.
      */
     public String[] crearFilaTabla(Tarea tarea) {
-        LocalDateTime ahora = LocalDateTime.now();
-        String estado;
-        
-        if (tarea.isCompletada()) {
-            estado = "✓";
-        } else {
-            LocalDateTime fechaHoraTarea = LocalDateTime.of(tarea.getFecha(), tarea.getHora());
-            if (ahora.isAfter(fechaHoraTarea)) {
-                estado = "Vencida";
-            } else {
-                // Calcular tiempo restante en formato legible
-                long diffSegundos = java.time.temporal.ChronoUnit.SECONDS.between(ahora, fechaHoraTarea);
-                long dias = diffSegundos / (24 * 3600);
-                diffSegundos %= (24 * 3600);
-                long horas = diffSegundos / 3600;
-                diffSegundos %= 3600;
-                long minutos = diffSegundos / 60;
-                diffSegundos %= 60;
-                long segundos = diffSegundos;
-                
-                if (dias > 0) {
-                    estado = String.format("%d d %02d h", dias, horas);
-                } else {
-                    estado = String.format("%02d:%02d:%02d", horas, minutos, segundos);
-                }
-            }
-        }
-
+        return filaTabla(tarea);
+    }
+    
+    /**
+     * Igual que crearFilaTabla, sin necesitar el gestor (la interfaz lo usa
+     * con las tareas de una InstantaneaAgenda).
+     */
+    public static String[] filaTabla(Tarea tarea) {
         return new String[]{
             tarea.getNombre(),
             tarea.getFechaTexto(),
             tarea.getHoraTexto(),
             tarea.getTipo().toString(), 
-            estado,
+            textoEstado(tarea, LocalDateTime.now()),
             tarea.getRepeticiones(), 
             tarea.isAlertaActiva() ? "🔔" : ""
         };
     }
     
+    /**
+     * Texto de la columna "Estado": ✓, "Vencida" o el tiempo que falta.
+     * Es lo único de la fila que cambia con el paso del tiempo.
+     */
+    public static String textoEstado(Tarea tarea, LocalDateTime ahora) {
+        if (tarea.isCompletada()) {
+            return FormateadorCuentaRegresiva.COMPLETADA;
+        }
+        LocalDateTime fechaHoraTarea = LocalDateTime.of(tarea.getFecha(), tarea.getHora());
+        if (ahora.isAfter(fechaHoraTarea)) {
+            return FormateadorCuentaRegresiva.VENCIDA;
+        }
+        // Tiempo restante en formato legible ("d h" o "HH:MM:SS")
+        return FormateadorCuentaRegresiva.texto(java.time.temporal.ChronoUnit.SECONDS.between(ahora, fechaHoraTarea));
+    }
+    
     /**
      * Verifica si hay archivos de respaldo disponibles para importar.
      * Útil para mostrar al usuario si puede recuperar datos.
      */
     public boolean hayRespaldosDisponibles() {
-        if (repositorio instanceof RepositorioJSON) {
-            RepositorioJSON repo = (RepositorioJSON) repositorio;
+        IRepositorioTareas real = repositorio instanceof RepositorioDiferido
+                ? ((RepositorioDiferido) repositorio).getDestino() : repositorio;
+        if (real instanceof RepositorioJSON) {
+            RepositorioJSON repo = (RepositorioJSON) real;
             // Verificar si existe respaldo principal
             String rutaArchivo = repo.obtenerRutaArchivoTareas();
             File respaldoPrincipal = new File(rutaArchivo + ".backup");
             return respaldoPrincipal.exists() && respaldoPrincipal.length() > 10;
         }
+        if (real instanceof RepositorioBinario) {
+            File respaldo = new File(((RepositorioBinario) real).obtenerRutaArchivoTareas() + ".bak");
+            return respaldo.exists() && respaldo.length() > 8;
+        }
         return false;
     }
     
@@ -340,6 +761,121 @@ public class GestorTareas {
     private void cargarTareas() {
         List<Tarea> tareasRecuperadas = repositorio.cargarTareas();
         this.tareas.clear();
-        this.tareas.addAll(tareasRecuperadas);
+        copiasPublicadas.clear();
+        indiceTabla.limpiar();
+        indiceFechas.limpiar();
+        boolean idsReasignados = false;
+        for (Tarea tarea : tareasRecuperadas) {
+            idsReasignados |= asegurarIdUnico(tarea);
+            this.tareas.put(tarea.getId(), tarea);
+            ubicar(tarea);
+        }
+        avisarCambio(EventoTarea.recargada());
+        if (idsReasignados) {
+            guardarTareas(); // Que los ids nuevos queden guardados
+        }
+    }
+    
+    /**
+     * Si el id de la tarea ya está en uso (o no es válido) le asigna uno nuevo.
+     * Devuelve true si lo cambió.
+     */
+    private boolean asegurarIdUnico(Tarea tarea) {
+        boolean cambiado = false;
+        while (tarea.getId() <= 0 || tareas.containsKey(tarea.getId())) {
+            tarea.setId(Tarea.nuevoId());
+            cambiado = true;
+        }
+        return cambiado;
+    }
+    
+    /**
+     * Ubica la tarea modificada en los índices y avisa que se actualizó.
+     */
+    private void indexar(Tarea tarea) {
+        ubicar(tarea);
+        avisarCambio(EventoTarea.actualizada(tarea));
+    }
+    
+    /**
+     * Ubica la tarea (nueva o modificada) en los índices de tabla y de fechas, sin avisar.
+     */
+    private void ubicar(Tarea tarea) {
+        copiasPublicadas.remove(tarea.getId()); // La copia publicada quedó vieja
+        indiceTabla.actualizar(tarea);
+        indiceFechas.actualizar(tarea);
+    }
+    
+    private void desindexar(Tarea tarea) {
+        copiasPublicadas.remove(tarea.getId());
+        indiceTabla.quitar(tarea.getId());
+        indiceFechas.quitar(tarea.getId());
+        avisarCambio(EventoTarea.eliminada(tarea));
+    }
+    
+    /**
+     * Dentro de un lote, anota que hay que guardar todo al terminar y devuelve true.
+     */
+    private boolean diferirGuardado() {
+        if (profundidadLote > 0) {
+            loteCompleto = true;
+            cambiosLote.clear(); // Van incluidos en el guardado completo
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Dentro de un lote, anota el cambio de una tarea para avisarlo al
+     * repositorio al terminar y devuelve true. Se junta con lo que ya se
+     * había anotado de esa tarea: agregada y después eliminada no deja nada;
+     * agregada y después actualizada sigue siendo agregada.
+     */
+    private boolean diferirCambio(EventoTarea cambio) {
+        if (profundidadLote == 0) {
+            return false;
+        }
+        if (loteCompleto) {
+            return true; // Se guarda todo igual
+        }
+        long id = cambio.getId();
+        EventoTarea anterior = cambiosLote.get(id);
+        if (anterior == null) {
+            cambiosLote.put(id, cambio);
+        } else if (anterior.getTipo() == EventoTarea.Tipo.AGREGADA) {
+            if (cambio.getTipo() == EventoTarea.Tipo.ELIMINADA) {
+                cambiosLote.remove(id); // Nunca llegó al archivo
+            }
+        } else if (anterior.getTipo() == EventoTarea.Tipo.ELIMINADA) {
+            cambiosLote.put(id, EventoTarea.actualizada(cambio.getTarea())); // Volvió con el mismo id
+        } else if (cambio.getTipo() == EventoTarea.Tipo.ELIMINADA) {
+            cambiosLote.put(id, cambio);
+        }
+        return true;
+    }
+    
+    private void avisarCambio(EventoTarea evento) {
+        if (evento.getTipo() == EventoTarea.Tipo.RECARGADA) {
+            recargaSinPublicar = true;
+        } else {
+            idsSinPublicar.add(evento.getId());
+        }
+        for (Consumer<EventoTarea> oyente : oyentesCambios) {
+            oyente.accept(evento);
+        }
+    }
+    
+    /**
+     * Tarea en la posición indicada (orden de getTareas()), o null si no existe.
+     */
+    private Tarea tareaEnPosicion(int indice) {
+        if (indice < 0 || indice >= tareas.size()) {
+            return null;
+        }
+        Iterator<Tarea> it = tareas.values().iterator();
+        for (int i = 0; i < indice; i++) {
+            it.next();
+        }
+        return it.next();
     }
 }
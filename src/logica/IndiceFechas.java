@@ -0,0 +1,123 @@
+/*
+ * DeskAgenda - Índice por fecha
+ *
+ * Permite pedir las tareas de un rango de fechas (un día, una semana, las
+ * próximas N) sin recorrer toda la agenda.
+ */
+package logica;
+
+// === IMPORTS DE FECHA Y HORA ===
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// === IMPORTS DE COLECCIONES ===
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * ÍNDICE DE FECHAS
+ * ================
+ *
+ * Dos NavigableMap con clave "minuto" (día * 1440 + minuto del día, hora local):
+ *  - todas:      todas las tareas
+ *  - pendientes: solo las no completadas (para "próximas N")
+ *
+ * Cada minuto guarda sus tareas por id, así que agregar, mover o quitar
+ * una tarea es O(log n) y una consulta de rango es O(log n + k).
+ *
+ * Las tareas diarias y semanales figuran en la fecha de su próxima
+ * repetición (la que tienen guardada), no en todas sus repeticiones.
+ *
+ * No es seguro para varios hilos: lo usa GestorTareas desde un único hilo.
+ */
+final class IndiceFechas {
+
+    private final NavigableMap<Long, Map<Long, Tarea>> todas = new TreeMap<>();
+    private final NavigableMap<Long, Map<Long, Tarea>> pendientes = new TreeMap<>();
+    private final Map<Long, Long> minutoPorId = new HashMap<>();
+
+    /**
+     * Agrega la tarea o, si ya estaba, la reubica según su fecha, hora y estado actuales.
+     */
+    void actualizar(Tarea tarea) {
+        quitar(tarea.getId());
+        long minuto = minutoLocal(tarea.getFecha(), tarea.getHora().getHour() * 60 + tarea.getHora().getMinute());
+        agregarEn(todas, minuto, tarea);
+        if (!tarea.isCompletada()) {
+            agregarEn(pendientes, minuto, tarea);
+        }
+        minutoPorId.put(tarea.getId(), minuto);
+    }
+
+    void quitar(long id) {
+        Long minuto = minutoPorId.remove(id);
+        if (minuto != null) {
+            quitarDe(todas, minuto, id);
+            quitarDe(pendientes, minuto, id);
+        }
+    }
+
+    void limpiar() {
+        todas.clear();
+        pendientes.clear();
+        minutoPorId.clear();
+    }
+
+    /**
+     * Tareas con fecha/hora en [desde, hasta), ordenadas por fecha y hora.
+     */
+    List<Tarea> entre(LocalDateTime desde, LocalDateTime hasta) {
+        return aplanar(todas.subMap(minutoLocal(desde), true, minutoLocal(hasta), false), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Tareas de los días desde..hasta (ambos incluidos).
+     */
+    List<Tarea> entreDias(LocalDate desde, LocalDate hasta) {
+        return aplanar(todas.subMap(minutoLocal(desde, 0), true, minutoLocal(hasta.plusDays(1), 0), false), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Las próximas "cantidad" tareas sin completar a partir de "desde" (incluido).
+     */
+    List<Tarea> proximasPendientes(LocalDateTime desde, int cantidad) {
+        return aplanar(pendientes.tailMap(minutoLocal(desde), true), cantidad);
+    }
+
+    private static List<Tarea> aplanar(NavigableMap<Long, Map<Long, Tarea>> rango, int maximo) {
+        List<Tarea> resultado = new ArrayList<>();
+        for (Map<Long, Tarea> delMinuto : rango.values()) {
+            for (Tarea tarea : delMinuto.values()) {
+                if (resultado.size() >= maximo) {
+                    return resultado;
+                }
+                resultado.add(tarea);
+            }
+        }
+        return resultado;
+    }
+
+    private static void agregarEn(NavigableMap<Long, Map<Long, Tarea>> indice, long minuto, Tarea tarea) {
+        indice.computeIfAbsent(minuto, m -> new LinkedHashMap<>(4)).put(tarea.getId(), tarea);
+    }
+
+    private static void quitarDe(NavigableMap<Long, Map<Long, Tarea>> indice, long minuto, long id) {
+        Map<Long, Tarea> delMinuto = indice.get(minuto);
+        if (delMinuto != null && delMinuto.remove(id) != null && delMinuto.isEmpty()) {
+            indice.remove(minuto);
+        }
+    }
+
+    private static long minutoLocal(LocalDateTime fechaHora) {
+        return minutoLocal(fechaHora.toLocalDate(), fechaHora.getHour() * 60 + fechaHora.getMinute());
+    }
+
+    private static long minutoLocal(LocalDate fecha, int minutoDelDia) {
+        return fecha.toEpochDay() * 1440 + minutoDelDia;
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * DeskAgenda - Orden de la tabla
+ *
+ * Mantiene las tareas ya ordenadas como se muestran en la tabla, para no
+ * tener que ordenar todo en cada actualización.
+ */
+package logica;
+
+// === IMPORTS DE FECHA Y HORA ===
+import java.time.LocalDateTime;         // Para saber qué tareas ya vencieron
+
+// === IMPORTS DE COLECCIONES ===
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// === IMPORTS DE FUNCIONES ===
+import java.util.function.Consumer;
+
+/**
+ * ÍNDICE ORDENADO DE LA TABLA
+ * ===========================
+ *
+ * Las tareas se muestran en tres grupos y, dentro de cada grupo, por fecha y hora:
+ *   1. Pendientes  (todavía no llegó su hora)
+ *   2. Vencidas    (pasó su hora y no se completaron)
+ *   3. Completadas
+ *
+ * Se guardan en un TreeMap con clave (grupo, segundo, id):
+ *  - Agregar, editar, completar o eliminar una tarea es O(log n)
+ *  - Con el paso del tiempo lo único que cambia es que algunas pendientes
+ *    vencen. Las pendientes están al principio del mapa ordenadas por hora,
+ *    así que el propio grupo funciona como cola de vencimientos: se sacan
+ *    las primeras mientras ya hayan vencido y se pasan al grupo 2.
+ *
+ * Cada tarea que cambia de grupo sola (por la hora, o porque el reloj
+ * volvió atrás) se avisa a alCambiarDeGrupo: cambió su fila en la tabla
+ * aunque sus datos no cambiaron.
+ *
+ * "segundo" es la fecha y hora local de la tarea expresada en segundos
+ * (día * 86400 + segundo del día): comparar dos tareas no crea objetos.
+ *
+ * No es seguro para varios hilos: lo usa GestorTareas desde un único hilo.
+ */
+final class IndiceTabla {
+
+    static final int PENDIENTE = 1;
+    static final int VENCIDA = 2;
+    static final int COMPLETADA = 3;
+
+    private static final class Clave implements Comparable<Clave> {
+        final int grupo;
+        final long segundo;
+        final long id;
+
+        Clave(int grupo, long segundo, long id) {
+            this.grupo = grupo;
+            this.segundo = segundo;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(Clave otra) {
+            if (grupo != otra.grupo) {
+                return Integer.compare(grupo, otra.grupo);
+            }
+            if (segundo != otra.segundo) {
+                return Long.compare(segundo, otra.segundo);
+            }
+            return Long.compare(id, otra.id); // Desempate estable entre tareas a la misma hora
+        }
+    }
+
+    private final TreeMap<Clave, Tarea> orden = new TreeMap<>();
+    private final Map<Long, Clave> clavePorId = new HashMap<>();
+    private final int[] cantidadPorGrupo = new int[COMPLETADA + 1];
+    private long ultimoAhoraMs = Long.MIN_VALUE;
+    private final Consumer<Tarea> alCambiarDeGrupo;
+
+    IndiceTabla() {
+        this(tarea -> { });
+    }
+
+    IndiceTabla(Consumer<Tarea> alCambiarDeGrupo) {
+        this.alCambiarDeGrupo = alCambiarDeGrupo;
+    }
+
+    /**
+     * Agrega la tarea o, si ya estaba, la reubica según sus datos actuales.
+     */
+    void actualizar(Tarea tarea) {
+        quitar(tarea.getId());
+        ubicar(tarea, ahoraMs());
+    }
+
+    private int ubicar(Tarea tarea, long ahoraMs) {
+        long segundo = segundoLocal(tarea);
+        int grupo;
+        if (tarea.isCompletada()) {
+            grupo = COMPLETADA;
+        } else {
+            grupo = estaVencida(segundo, ahoraMs) ? VENCIDA : PENDIENTE;
+        }
+        Clave clave = new Clave(grupo, segundo, tarea.getId());
+        orden.put(clave, tarea);
+        clavePorId.put(tarea.getId(), clave);
+        cantidadPorGrupo[grupo]++;
+        return grupo;
+    }
+
+    void quitar(long id) {
+        Clave clave = clavePorId.remove(id);
+        if (clave != null) {
+            orden.remove(clave);
+            cantidadPorGrupo[clave.grupo]--;
+        }
+    }
+
+    void limpiar() {
+        orden.clear();
+        clavePorId.clear();
+        Arrays.fill(cantidadPorGrupo, 0);
+    }
+
+    int size() {
+        return orden.size();
+    }
+
+    /**
+     * Cantidad de tareas del grupo (PENDIENTE, VENCIDA o COMPLETADA), al momento actual.
+     */
+    int contar(int grupo) {
+        avanzarHasta(ahoraMs());
+        return cantidadPorGrupo[grupo];
+    }
+
+    /**
+     * Como contar(), pero sin pasar a vencidas: cuenta el mismo estado que
+     * devolvió el último enOrden().
+     */
+    int contarSinAvanzar(int grupo) {
+        return cantidadPorGrupo[grupo];
+    }
+
+    /**
+     * Devuelve las tareas en el orden de la tabla, después de pasar a
+     * vencidas las pendientes cuya hora ya pasó.
+     */
+    List<Tarea> enOrden() {
+        avanzarHasta(ahoraMs());
+        return new ArrayList<>(orden.values());
+    }
+
+    /**
+     * Pasa a "vencidas" las pendientes cuya hora es anterior a ahoraMs.
+     * Devuelve cuántas movió. Si el reloj retrocedió, reclasifica todo.
+     */
+    int avanzarHasta(long ahoraMs) {
+        if (ahoraMs < ultimoAhoraMs) {
+            ultimoAhoraMs = ahoraMs;
+            reclasificar(ahoraMs);
+            return 0;
+        }
+        ultimoAhoraMs = ahoraMs;
+
+        int movidas = 0;
+        while (!orden.isEmpty()) {
+            Clave primera = orden.firstKey();
+            if (primera.grupo != PENDIENTE || !estaVencida(primera.segundo, ahoraMs)) {
+                break; // La primera pendiente todavía no venció: las demás tampoco
+            }
+            Tarea tarea = orden.remove(primera);
+            Clave vencida = new Clave(VENCIDA, primera.segundo, primera.id);
+            orden.put(vencida, tarea);
+            clavePorId.put(primera.id, vencida);
+            cantidadPorGrupo[PENDIENTE]--;
+            cantidadPorGrupo[VENCIDA]++;
+            movidas++;
+            alCambiarDeGrupo.accept(tarea);
+        }
+        return movidas;
+    }
+
+    private void reclasificar(long ahoraMs) {
+        List<Clave> claves = new ArrayList<>(orden.keySet());
+        List<Tarea> todas = new ArrayList<>(orden.values());
+        limpiar();
+        for (int i = 0; i < todas.size(); i++) {
+            Tarea tarea = todas.get(i);
+            if (ubicar(tarea, ahoraMs) != claves.get(i).grupo) {
+                alCambiarDeGrupo.accept(tarea);
+            }
+        }
+    }
+
+    /**
+     * Igual que LocalDateTime.of(fecha, hora).isBefore(ahora), pero sin crear objetos.
+     */
+    private static boolean estaVencida(long segundo, long ahoraMs) {
+        return segundo * 1000 < ahoraMs;
+    }
+
+    static long segundoLocal(Tarea tarea) {
+        return tarea.getFecha().toEpochDay() * 86400 + tarea.getHora().toSecondOfDay();
+    }
+
+    /**
+     * Hora local actual en milisegundos desde 1970-01-01 00:00 (sin zona).
+     */
+    static long ahoraMs() {
+        LocalDateTime ahora = LocalDateTime.now();
+        return ahora.toLocalDate().toEpochDay() * 86_400_000L + ahora.toLocalTime().toNanoOfDay() / 1_000_000;
+    }
+}
@@ -4,6 +4,9 @@
  * Esta clase se encarga de asegurar que solo haya una instancia de DeskAgenda
  * ejecutándose al mismo tiempo. Si se intenta abrir otra instancia, se enfoca
  * la ventana existente en lugar de crear una nueva.
+ *
+ * El mismo socket atiende los comandos de scripts y tareas programadas
+ * (ver CanalComandos y ClienteAgenda).
  */
 package logica;
 
@@ -11,14 +14,12 @@ import java.io.File;
 import java.io.RandomAccessFile;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
-import java.awt.event.WindowAdapter;
-import java.awt.event.WindowEvent;
 import java.io.IOException;
-import java.net.ServerSocket;
-import java.net.Socket;
-import java.net.InetAddress;
-import javax.swing.JFrame;
-import javax.swing.SwingUtilities;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * SISTEMA DE INSTANCIA ÚNICA
@@ -26,18 +27,32 @@ import javax.swing.SwingUtilities;
  * 
  * Utiliza un archivo de bloqueo (lock file) para detectar si ya hay una
  * instancia de la aplicación ejecutándose y un socket para comunicación
- * entre instancias.
+ * entre instancias (Unix en ~/.deskagenda, o TCP en loopback: ver
+ * TransporteLocal).
+ *
+ * Por el socket llega:
+ *  - Un byte 1 (o nada): otra instancia pide traer la ventana al frente
+ *  - Líneas de texto: comandos de CanalComandos, después de la clave de
+ *    ~/.deskagenda/clave (ver TransporteLocal)
+ *
+ * Todas las conexiones las atiende ServidorComandos con un solo hilo.
+ *
+ * No usa AWT ni Swing (sirve también en modo --headless): qué hacer al
+ * pedir la ventana lo indica la interfaz con configurarActivacion().
  */
 public class InstanciaUnica {
     
     private static final String LOCK_FILE_NAME = ".deskagenda.lock";
-    private static final int PUERTO_COMUNICACION = 52847; // Puerto específico para DeskAgenda
+    static final int PUERTO_COMUNICACION = 52847; // Puerto específico para DeskAgenda
     private static File lockFile;
     private static RandomAccessFile randomAccessFile;
     private static FileChannel fileChannel;
     private static FileLock fileLock;
-    private static ServerSocket serverSocket;
-    private static JFrame ventanaPrincipal;
+    private static volatile ServidorComandos servidor;
+    private static boolean socketUnix;            // El servidor escucha en ~/.deskagenda/deskagenda.sock
+    private static volatile Runnable alActivar;    // Trae la ventana al frente (null = sin ventana)
+    private static volatile MotorAgenda motor;    // Ejecuta los comandos (null = todavía no)
+    private static final List<Runnable> accionesAlCerrar = new CopyOnWriteArrayList<>();
     
     /**
      * Verifica si esta es la primera instancia de la aplicación.
@@ -46,6 +61,15 @@ public class InstanciaUnica {
      * @return true si es la primera instancia, false si ya hay otra ejecutándose
      */
     public static boolean esPrimeraInstancia() {
+        return esPrimeraInstancia(true);
+    }
+    
+    /**
+     * Como esPrimeraInstancia(), pero con activarExistente = false no le
+     * pide nada a la otra instancia (modo --headless: no hay ventana que
+     * mostrar y no se debe abrir la de la otra).
+     */
+    public static boolean esPrimeraInstancia(boolean activarExistente) {
         try {
             // Crear el archivo de bloqueo en el directorio del usuario
             String userHome = System.getProperty("user.home");
@@ -60,7 +84,9 @@ public class InstanciaUnica {
                 // No se pudo obtener el bloqueo, ya hay otra instancia
                 cerrarRecursos();
                 // Intentar comunicarse con la instancia existente
-                enviarSeñalActivacion();
+                if (activarExistente) {
+                    enviarSeñalActivacion();
+                }
                 return false;
             }
             
@@ -77,69 +103,88 @@ public class InstanciaUnica {
     }
     
     /**
-     * Configura la ventana principal que debe ser activada cuando llegue una señal
+     * Configura qué hacer cuando llega una señal de activación (traer la
+     * ventana al frente). Se llama desde el hilo del servidor.
      */
-    public static void configurarVentanaPrincipal(JFrame ventana) {
-        ventanaPrincipal = ventana;
+    public static void configurarActivacion(Runnable accion) {
+        alActivar = accion;
     }
     
     /**
-     * Configura un servidor para escuchar señales de activación de otras instancias
+     * Configura el motor que ejecuta los comandos recibidos por el socket.
+     */
+    public static void configurarMotor(MotorAgenda motorAgenda) {
+        motor = motorAgenda;
+    }
+    
+    /**
+     * Configura un servidor para escuchar señales de activación y comandos de otros procesos
      */
     private static void configurarServidorActivacion() {
-        new Thread(() -> {
+        try {
+            ServerSocketChannel canal = TransporteLocal.abrirServidor(PUERTO_COMUNICACION);
+            socketUnix = TransporteLocal.esUnix(canal);
+            String clave = null;
             try {
-                serverSocket = new ServerSocket(PUERTO_COMUNICACION, 1, InetAddress.getLoopbackAddress());
-                while (!serverSocket.isClosed()) {
-                    Socket clientSocket = serverSocket.accept();
-                    // Se recibió una señal de activación
-                    activarVentanaPrincipal();
-                    clientSocket.close();
-                }
+                clave = TransporteLocal.crearClave();
             } catch (IOException e) {
-                // Socket cerrado normalmente o error
-                if (!serverSocket.isClosed()) {
-                    System.err.println("Error en servidor de activación: " + e.getMessage());
-                }
+                // Sin clave no se aceptan comandos de nadie; la activación sigue andando
+                System.err.println("No se pudo crear la clave del canal de comandos: " + e.getMessage());
             }
-        }).start();
+            servidor = new ServidorComandos(canal, () -> motor, InstanciaUnica::activarVentanaPrincipal, clave);
+            new Thread(servidor, "DeskAgenda-servidor").start();
+        } catch (IOException e) {
+            System.err.println("Error en servidor de activación: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Si el canal de comandos está escuchando y acepta comandos (sin él, el
+     * modo --headless no tiene cómo recibir pedidos).
+     */
+    static boolean canalAbierto() {
+        ServidorComandos actual = servidor;
+        return actual != null && actual.aceptaComandos();
+    }
+    
+    /**
+     * Latencias y contadores de los comandos atendidos (ver MetricasComandos).
+     */
+    static String resumenMetricas() {
+        ServidorComandos actual = servidor;
+        return actual == null ? "servidor no iniciado" : actual.getMetricas().resumen();
     }
     
     /**
      * Envía una señal a la instancia existente para que se active
      */
     private static void enviarSeñalActivacion() {
-        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), PUERTO_COMUNICACION)) {
+        try (SocketChannel canal = TransporteLocal.conectar(PUERTO_COMUNICACION)) {
             // Solo necesitamos conectarnos para enviar la señal
-            socket.getOutputStream().write(1);
+            canal.write(ByteBuffer.wrap(new byte[]{1}));
         } catch (IOException e) {
             System.err.println("No se pudo comunicar con la instancia existente: " + e.getMessage());
         }
     }
     
     /**
-     * Activa y trae al frente la ventana principal
+     * Activa y trae al frente la ventana principal, si hay
      */
-    private static void activarVentanaPrincipal() {
-        if (ventanaPrincipal != null) {
-            SwingUtilities.invokeLater(() -> {
-                // Restaurar la ventana si está minimizada
-                if (ventanaPrincipal.getState() == JFrame.ICONIFIED) {
-                    ventanaPrincipal.setState(JFrame.NORMAL);
-                }
-                
-                // Traer la ventana al frente
-                ventanaPrincipal.setVisible(true);
-                ventanaPrincipal.toFront();
-                ventanaPrincipal.requestFocus();
-                
-                // En Windows, a veces es necesario hacer esto para forzar el foco
-                if (System.getProperty("os.name").toLowerCase().contains("windows")) {
-                    ventanaPrincipal.setAlwaysOnTop(true);
-                    ventanaPrincipal.setAlwaysOnTop(false);
-                }
-            });
+    static void activarVentanaPrincipal() {
+        Runnable accion = alActivar;
+        if (accion != null) {
+            accion.run();
+        }
+    }
+    
+    /**
+     * Dónde escucha el canal de comandos, para mostrarlo en la consola.
+     */
+    static String describirCanal() {
+        if (servidor == null) {
+            return "ningún lado (no se pudo abrir)";
         }
+        return socketUnix ? TransporteLocal.rutaSocket().toString() : "127.0.0.1:" + PUERTO_COMUNICACION;
     }
     
     /**
@@ -162,12 +207,21 @@ public class InstanciaUnica {
      */
     public static void liberarBloqueo() {
         try {
+            // El socket se borra antes de soltar el bloqueo: después puede ser de otra instancia
+            ServidorComandos actual = servidor;
+            if (actual != null) {
+                servidor = null;
+                if (actual.getMetricas().getComandos() > 0) {
+                    System.out.println("Comandos atendidos: " + actual.getMetricas().resumen());
+                }
+                actual.cerrar();
+                if (socketUnix) {
+                    TransporteLocal.borrarSocket();
+                }
+            }
             if (fileLock != null && fileLock.isValid()) {
                 fileLock.release();
             }
-            if (serverSocket != null && !serverSocket.isClosed()) {
-                serverSocket.close();
-            }
             cerrarRecursos();
             if (lockFile != null && lockFile.exists()) {
                 lockFile.delete();
@@ -183,21 +237,23 @@ public class InstanciaUnica {
      */
     public static void configurarLiberacionAutomatica() {
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            // Primero terminar de guardar, después liberar el bloqueo
+            for (Runnable accion : accionesAlCerrar) {
+                try {
+                    accion.run();
+                } catch (RuntimeException e) {
+                    System.err.println("Error al cerrar: " + e.getMessage());
+                }
+            }
             liberarBloqueo();
         }));
     }
     
     /**
-     * Configura un listener para liberar el bloqueo cuando se cierre la ventana principal.
-     * 
-     * @param ventanaPrincipal La ventana principal de la aplicación
+     * Registra una acción para ejecutar al cerrar la aplicación
+     * (por ejemplo, escribir los cambios pendientes).
      */
-    public static void configurarLiberacionAlCerrar(java.awt.Window ventanaPrincipal) {
-        ventanaPrincipal.addWindowListener(new WindowAdapter() {
-            @Override
-            public void windowClosing(WindowEvent e) {
-                liberarBloqueo();
-            }
-        });
+    public static void agregarAccionAlCerrar(Runnable accion) {
+        accionesAlCerrar.add(accion);
     }
 }
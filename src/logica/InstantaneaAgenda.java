@@ -0,0 +1,99 @@
+/*
+ * DeskAgenda - Instantánea de la agenda
+ *
+ * Lo que la interfaz necesita para dibujar la tabla, armado por el motor.
+ */
+package logica;
+
+// === IMPORTS DE COLECCIONES ===
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * INSTANTÁNEA DE LA AGENDA
+ * ========================
+ *
+ * Foto de la agenda en un momento dado, publicada por GestorTareas
+ * (desde el hilo de MotorAgenda):
+ *  - Las tareas en el orden de la tabla. Son copias: el motor sigue
+ *    trabajando con las suyas y cualquier hilo puede leer éstas sin locks.
+ *    Una tarea que no cambió es la misma copia en instantáneas sucesivas
+ *  - Los contadores que usan la bandeja y la ventana
+ *  - Un número de versión que crece con cada publicación
+ *  - Los cambios respecto de la instantánea anterior (version - 1), como
+ *    EventoTarea con la fila anterior y la nueva de cada tarea, o un solo
+ *    evento RECARGADA si hay que volver a leer todo
+ *
+ * No se modifica después de creada. Las tareas que contiene no deben
+ * modificarse: para cambiar algo, se le pide al motor.
+ */
+public final class InstantaneaAgenda {
+
+    static final InstantaneaAgenda VACIA = new InstantaneaAgenda(0, Collections.emptyList(), 0, 0, Collections.emptyList());
+
+    private final long version;
+    private final List<Tarea> tareas;
+    private final int sinCompletar;
+    private final int vencidas;
+    private final List<EventoTarea> cambios;
+    private volatile Map<Long, Tarea> porId; // Se arma la primera vez que se busca
+
+    InstantaneaAgenda(long version, List<Tarea> tareas, int sinCompletar, int vencidas, List<EventoTarea> cambios) {
+        this.version = version;
+        this.tareas = Collections.unmodifiableList(tareas);
+        this.sinCompletar = sinCompletar;
+        this.vencidas = vencidas;
+        this.cambios = Collections.unmodifiableList(cambios);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Tareas en el orden de la tabla: pendientes, vencidas y completadas.
+     */
+    public List<Tarea> getTareas() {
+        return tareas;
+    }
+
+    /**
+     * Cambios respecto de la instantánea con versión getVersion() - 1.
+     */
+    public List<EventoTarea> getCambios() {
+        return cambios;
+    }
+
+    /**
+     * Hubo demasiados cambios (o una carga o importación): no alcanza con
+     * getCambios(), hay que volver a leer todas las tareas.
+     */
+    public boolean esRecarga() {
+        return cambios.size() == 1 && cambios.get(0).getTipo() == EventoTarea.Tipo.RECARGADA;
+    }
+
+    /**
+     * Copia publicada de la tarea con ese id, o null si no está en esta instantánea.
+     */
+    public Tarea buscar(long id) {
+        Map<Long, Tarea> indice = porId;
+        if (indice == null) {
+            indice = new HashMap<>(tareas.size() * 2);
+            for (Tarea tarea : tareas) {
+                indice.put(tarea.getId(), tarea);
+            }
+            porId = indice; // Si dos hilos lo arman a la vez, da lo mismo cuál queda
+        }
+        return indice.get(id);
+    }
+
+    public int getSinCompletar() {
+        return sinCompletar;
+    }
+
+    public int getVencidas() {
+        return vencidas;
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * DeskAgenda - Memoria del proceso
+ *
+ * Cuánta memoria usa la agenda, para medir el modo de bajo consumo de la
+ * bandeja en lugar de suponerlo.
+ */
+package logica;
+
+// === IMPORTS DE ARCHIVOS ===
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * MEMORIA DEL PROCESO
+ * ===================
+ *
+ *  - Heap: usado y reservado (committed) según Runtime
+ *  - RSS: memoria residente real del proceso (heap + ventanas nativas,
+ *    código, hilos...). Se lee de /proc/self/status, así que solo está
+ *    disponible en Linux; en los demás sistemas se informa "n/d"
+ *
+ * No fuerza ninguna recolección: informa lo que hay en este momento.
+ */
+public final class MemoriaProceso {
+
+    private static final Path ESTADO_PROCESO = Paths.get("/proc/self/status");
+
+    private MemoriaProceso() {
+    }
+
+    /**
+     * Heap usado en KB.
+     */
+    public static long heapUsadoKb() {
+        Runtime runtime = Runtime.getRuntime();
+        return (runtime.totalMemory() - runtime.freeMemory()) / 1024;
+    }
+
+    /**
+     * Heap reservado al sistema operativo en KB.
+     */
+    public static long heapReservadoKb() {
+        return Runtime.getRuntime().totalMemory() / 1024;
+    }
+
+    /**
+     * Memoria residente del proceso en KB, o -1 si no se puede saber.
+     */
+    public static long residenteKb() {
+        if (!Files.isReadable(ESTADO_PROCESO)) {
+            return -1;
+        }
+        try {
+            for (String linea : Files.readAllLines(ESTADO_PROCESO, StandardCharsets.ISO_8859_1)) {
+                if (linea.startsWith("VmRSS:")) {
+                    return Long.parseLong(linea.replaceAll("[^0-9]", ""));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("No se pudo leer la memoria residente: " + e.getMessage());
+        }
+        return -1;
+    }
+
+    /**
+     * Texto para la consola, por ejemplo "heap 12 MB de 48 MB, RSS 160 MB".
+     */
+    public static String resumen() {
+        long residente = residenteKb();
+        return "heap " + heapUsadoKb() / 1024 + " MB de " + heapReservadoKb() / 1024 + " MB, RSS "
+                + (residente < 0 ? "n/d" : residente / 1024 + " MB");
+    }
+}
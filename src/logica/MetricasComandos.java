@@ -0,0 +1,74 @@
+/*
+ * DeskAgenda - Métricas del canal de comandos
+ *
+ * Cuánto tarda cada comando desde que llega hasta que su respuesta está
+ * lista para enviarse (espera en la cola + ejecución en el motor).
+ */
+package logica;
+
+/**
+ * MÉTRICAS DE COMANDOS
+ * ====================
+ *
+ * Histograma por potencias de 2 en microsegundos (1, 2, 4, ... us): los
+ * percentiles son aproximados (el límite superior del tramo), sin guardar
+ * cada medición. También cuenta los comandos con error y cuántas veces se
+ * dejó de leer a un cliente por contrapresión.
+ *
+ * Lo escribe el hilo del servidor y lo puede leer cualquier hilo.
+ */
+final class MetricasComandos {
+
+    private final long[] tramos = new long[64];
+    private long comandos;
+    private long errores;
+    private long totalNanos;
+    private long maximoNanos;
+    private long pausas;
+
+    synchronized void registrar(long latenciaNanos, boolean error) {
+        long micros = Math.max(latenciaNanos / 1000, 1);
+        tramos[63 - Long.numberOfLeadingZeros(micros)]++;
+        comandos++;
+        totalNanos += latenciaNanos;
+        maximoNanos = Math.max(maximoNanos, latenciaNanos);
+        if (error) {
+            errores++;
+        }
+    }
+
+    synchronized void registrarPausa() {
+        pausas++;
+    }
+
+    synchronized long getComandos() {
+        return comandos;
+    }
+
+    /**
+     * Latencia (en microsegundos) que no supera la fracción indicada de los comandos, por ejemplo 0.99.
+     */
+    synchronized long percentilMicros(double fraccion) {
+        long objetivo = (long) Math.ceil(comandos * fraccion);
+        long acumulado = 0;
+        for (int i = 0; i < tramos.length; i++) {
+            acumulado += tramos[i];
+            if (acumulado >= objetivo && acumulado > 0) {
+                return (2L << i) - 1; // Límite superior del tramo
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Texto para la consola o para el comando METRICAS.
+     */
+    synchronized String resumen() {
+        if (comandos == 0) {
+            return "sin comandos";
+        }
+        return comandos + " comandos (" + errores + " con error), promedio " + totalNanos / comandos / 1000
+                + " us, p50 <= " + percentilMicros(0.50) + " us, p99 <= " + percentilMicros(0.99)
+                + " us, máximo " + maximoNanos / 1000 + " us, pausas por contrapresión " + pausas;
+    }
+}
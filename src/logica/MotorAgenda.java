@@ -0,0 +1,297 @@
+/*
+ * DeskAgenda - Motor de la agenda
+ *
+ * Hilo dueño de las tareas: la interfaz le pide los cambios y recibe
+ * instantáneas para dibujar, sin tocar archivos ni ordenar en el EDT.
+ */
+package logica;
+
+// === IMPORTS DE FECHA Y HORA ===
+import java.time.LocalDate;
+
+// === IMPORTS DE COLECCIONES ===
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// === IMPORTS DE CONCURRENCIA ===
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// === IMPORTS DE FUNCIONES ===
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * MOTOR DE LA AGENDA
+ * ==================
+ *
+ * Modelo de hilos:
+ *  - "deskagenda-motor" (un solo hilo) es el único que usa GestorTareas y
+ *    GestorFechas: carga del archivo, cambios, reinicio de tareas diarias,
+ *    limpieza diaria y procesamiento de alertas (incluido el sonido)
+ *  - La interfaz pide los cambios con agregarTarea(), eliminarTarea(), etc.
+ *    Cada pedido devuelve un CompletableFuture con el resultado
+ *  - Después de cada tanda de cambios publica una InstantaneaAgenda
+ *    (GestorTareas.publicarInstantanea) y se la entrega a los oyentes en el
+ *    hilo de la interfaz. Si se acumulan varias, solo se entrega la última.
+ *    Cualquier hilo puede leer la última con getInstantanea(), sin locks
+ *
+ * Tareas periódicas en el mismo hilo (cada PERIODO_MANTENIMIENTO_MS):
+ *  - Reiniciar las tareas diarias/semanales que corresponda
+ *  - Pasar a "vencidas" las pendientes cuya hora ya pasó
+ *  - Si cambió el día, eliminar las tareas únicas completadas ayer
+ * Solo se publica una instantánea nueva si algo cambió.
+ */
+public class MotorAgenda {
+
+    static final long PERIODO_MANTENIMIENTO_MS = 12_000;
+
+    private final Supplier<GestorTareas> creadorGestor;
+    private final GestorSonido gestorSonido;
+    private final Executor hiloInterfaz;
+    private final ScheduledExecutorService hilo;
+    private final List<Consumer<InstantaneaAgenda>> oyentes = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean entregaPendiente = new AtomicBoolean(false);
+    private volatile InstantaneaAgenda instantanea = InstantaneaAgenda.VACIA;
+    private volatile BiConsumer<String, String> notificador;
+
+    // === SOLO EN EL HILO DEL MOTOR ===
+    private GestorTareas gestorTareas;
+    private GestorFechas gestorFechas;
+    private boolean publicacionProgramada = false;
+    private LocalDate diaUltimaLimpieza;
+
+    /**
+     * @param creadorGestor crea el GestorTareas (se llama en el hilo del motor, carga el archivo)
+     * @param hiloInterfaz  donde se entregan las instantáneas a los oyentes
+     *                      (SwingUtilities::invokeLater para la ventana)
+     */
+    public MotorAgenda(Supplier<GestorTareas> creadorGestor, GestorSonido gestorSonido, Executor hiloInterfaz) {
+        this.creadorGestor = creadorGestor;
+        this.gestorSonido = gestorSonido;
+        this.hiloInterfaz = hiloInterfaz;
+        this.hilo = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hiloMotor = new Thread(r, "deskagenda-motor");
+            hiloMotor.setDaemon(true);
+            return hiloMotor;
+        });
+    }
+
+    /**
+     * Carga la agenda en el hilo del motor y arranca las tareas periódicas.
+     * La primera instantánea llega a los oyentes cuando termina la carga.
+     */
+    public void iniciar() {
+        hilo.execute(() -> {
+            gestorTareas = creadorGestor.get();
+            gestorTareas.agregarOyenteCambios(evento -> programarPublicacion());
+            gestorFechas = new GestorFechas(gestorTareas, gestorSonido, hilo);
+            gestorFechas.setNotificador((titulo, mensaje) -> {
+                BiConsumer<String, String> destino = notificador;
+                if (destino != null) {
+                    destino.accept(titulo, mensaje);
+                }
+            });
+            diaUltimaLimpieza = LocalDate.now();
+            gestorTareas.reiniciarTareasSiNecesario();
+            publicar();
+            if (gestorSonido != null) {
+                gestorSonido.precargar(); // Después de publicar, para no demorar la tabla
+            }
+        });
+        hilo.scheduleWithFixedDelay(this::mantenimiento, PERIODO_MANTENIMIENTO_MS, PERIODO_MANTENIMIENTO_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Registra un oyente que recibe cada instantánea nueva en el hilo de la interfaz.
+     */
+    public void agregarOyente(Consumer<InstantaneaAgenda> oyente) {
+        oyentes.add(oyente);
+    }
+
+    /**
+     * Recibe (título, mensaje) cuando se avisan varias alertas juntas o
+     * alertas atrasadas. Se llama desde el hilo del motor.
+     */
+    public void setNotificador(BiConsumer<String, String> notificador) {
+        this.notificador = notificador;
+    }
+
+    /**
+     * Última instantánea publicada (se puede leer desde cualquier hilo).
+     */
+    public InstantaneaAgenda getInstantanea() {
+        return instantanea;
+    }
+
+    // === PEDIDOS DE CAMBIO ===
+
+    public CompletableFuture<Boolean> agregarTarea(Tarea tarea) {
+        return enMotor(gestor -> {
+            gestor.agregarTarea(tarea);
+            return tarea != null;
+        });
+    }
+
+    public CompletableFuture<Boolean> eliminarTarea(long id) {
+        return enMotor(gestor -> gestor.eliminarTareaPorId(id));
+    }
+
+    /**
+     * Marca la tarea como completada o pendiente (y reinicia las repetitivas si corresponde).
+     */
+    public CompletableFuture<Boolean> alternarEstado(long id) {
+        return enMotor(gestor -> {
+            boolean cambiada = gestor.alternarEstadoPorId(id);
+            if (cambiada) {
+                gestor.reiniciarTareasSiNecesario();
+            }
+            return cambiada;
+        });
+    }
+
+    public CompletableFuture<Boolean> editarTarea(long id, Tarea tareaEditada) {
+        return enMotor(gestor -> gestor.editarTareaPorId(id, tareaEditada));
+    }
+
+    /**
+     * Edita la tarea solo si no cambió desde la instantánea de donde se sacó
+     * "vista" (por ejemplo, si sonó su alerta mientras el diálogo estaba abierto).
+     */
+    public CompletableFuture<Boolean> editarSiSinCambios(Tarea vista, Tarea tareaEditada) {
+        return enMotor(gestor -> gestor.editarSiSinCambios(vista, tareaEditada));
+    }
+
+    /**
+     * Como alternarEstado, solo si la tarea no cambió desde la instantánea de "vista".
+     */
+    public CompletableFuture<Boolean> alternarEstadoSiSinCambios(Tarea vista) {
+        return enMotor(gestor -> {
+            boolean cambiada = gestor.alternarEstadoSiSinCambios(vista);
+            if (cambiada) {
+                gestor.reiniciarTareasSiNecesario();
+            }
+            return cambiada;
+        });
+    }
+
+    public CompletableFuture<Void> exportarTareas(String archivo) {
+        return enMotor(gestor -> {
+            gestor.exportarTareas(archivo);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> importarTareas(String archivo) {
+        return enMotor(gestor -> {
+            gestor.importarTareas(archivo);
+            return null;
+        });
+    }
+
+    /**
+     * Ejecuta cualquier operación sobre el GestorTareas en el hilo del motor.
+     * Si cambia tareas, se publica una instantánea nueva al terminar.
+     */
+    public <T> CompletableFuture<T> enMotor(Function<GestorTareas, T> operacion) {
+        CompletableFuture<T> resultado = new CompletableFuture<>();
+        try {
+            hilo.execute(() -> {
+                try {
+                    resultado.complete(operacion.apply(gestorTareas));
+                } catch (RuntimeException e) {
+                    System.err.println("Error en el motor de la agenda: " + e.getMessage());
+                    resultado.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            resultado.completeExceptionally(e); // El motor ya se cerró
+        }
+        return resultado;
+    }
+
+    /**
+     * Detiene las alertas, escribe lo pendiente, libera el audio y termina el hilo del motor.
+     */
+    public void cerrar() {
+        if (hilo.isShutdown()) {
+            return;
+        }
+        hilo.execute(() -> {
+            if (gestorFechas != null) {
+                gestorFechas.detenerTimer();
+            }
+            if (gestorTareas != null) {
+                gestorTareas.cerrar();
+            }
+            if (gestorSonido != null) {
+                gestorSonido.cerrar();
+            }
+        });
+        hilo.shutdown();
+        try {
+            if (!hilo.awaitTermination(10, TimeUnit.SECONDS)) {
+                System.err.println("El motor de la agenda no terminó a tiempo");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // === EN EL HILO DEL MOTOR ===
+
+    private void mantenimiento() {
+        if (gestorTareas == null) {
+            return;
+        }
+        try {
+            LocalDate hoy = LocalDate.now();
+            if (!hoy.equals(diaUltimaLimpieza)) {
+                diaUltimaLimpieza = hoy;
+                int eliminadas = gestorTareas.eliminarTareasUnicasCompletadasAyer();
+                if (eliminadas > 0) {
+                    System.out.println(eliminadas + " tareas únicas completadas ayer fueron eliminadas.");
+                }
+            }
+            gestorTareas.reiniciarTareasSiNecesario();
+            gestorTareas.avanzarVencidas(); // Las que pasan a vencidas se avisan como actualizadas
+        } catch (RuntimeException e) {
+            // Una excepción cancelaría las siguientes ejecuciones periódicas
+            System.err.println("Error en el mantenimiento de la agenda: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Junta los cambios de una misma tanda en una sola publicación.
+     */
+    private void programarPublicacion() {
+        if (!publicacionProgramada && !hilo.isShutdown()) {
+            publicacionProgramada = true;
+            hilo.execute(this::publicar);
+        }
+    }
+
+    private void publicar() {
+        instantanea = gestorTareas.publicarInstantanea();
+        // Después de publicar: lo que se avise mientras se arma ya va en esta instantánea
+        publicacionProgramada = false;
+
+        // Una sola entrega en camino: el oyente lee la última al ejecutarse
+        if (entregaPendiente.compareAndSet(false, true)) {
+            hiloInterfaz.execute(() -> {
+                entregaPendiente.set(false);
+                InstantaneaAgenda ultima = instantanea;
+                for (Consumer<InstantaneaAgenda> oyente : oyentes) {
+                    oyente.accept(ultima);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * DeskAgenda - Núcleo de la agenda
+ *
+ * Todo lo que hace falta para que la agenda funcione sin ventana: tareas,
+ * guardado, alertas y el canal de comandos. La interfaz Swing (igu) se
+ * arma encima; en modo --headless no se carga nada de AWT ni de Swing.
+ */
+package logica;
+
+// === IMPORTS DE CONCURRENCIA ===
+import java.util.concurrent.Executor;
+
+/**
+ * NÚCLEO DE LA AGENDA
+ * ===================
+ *
+ *  - MotorAgenda: tareas, guardado (GestorTareas) y alertas (GestorFechas)
+ *    en su hilo
+ *  - GestorSonido, si se pide sonido
+ *  - El canal de comandos de InstanciaUnica ejecuta sobre este motor, y al
+ *    cerrar la aplicación el motor escribe lo pendiente
+ *
+ * Quien lo crea decide dónde recibe las instantáneas (el EDT para la
+ * ventana; cualquier hilo sin interfaz) y llama a iniciar() cuando ya
+ * registró sus oyentes.
+ *
+ * Para usar sin ventana: iniciarSinVentana() (AgendaAct --headless).
+ */
+public final class NucleoAgenda {
+
+    private final GestorSonido gestorSonido;
+    private final MotorAgenda motor;
+
+    private NucleoAgenda(boolean conSonido, Executor hiloEntrega) {
+        this.gestorSonido = conSonido ? new GestorSonido() : null;
+        this.motor = new MotorAgenda(GestorTareas::new, gestorSonido, hiloEntrega);
+        InstanciaUnica.agregarAccionAlCerrar(motor::cerrar); // Guardar lo pendiente al salir
+        InstanciaUnica.configurarMotor(motor); // Comandos de scripts (ver CanalComandos)
+    }
+
+    /**
+     * @param hiloEntrega dónde se entregan las instantáneas a los oyentes del motor
+     */
+    public static NucleoAgenda crear(boolean conSonido, Executor hiloEntrega) {
+        return new NucleoAgenda(conSonido, hiloEntrega);
+    }
+
+    /**
+     * Carga la agenda y arranca las alertas (ver MotorAgenda.iniciar).
+     */
+    public void iniciar() {
+        motor.iniciar();
+    }
+
+    public MotorAgenda getMotor() {
+        return motor;
+    }
+
+    /**
+     * El que reproduce las alertas, o null si se creó sin sonido.
+     */
+    public GestorSonido getGestorSonido() {
+        return gestorSonido;
+    }
+
+    /**
+     * Modo sin ventana (servidores, tareas programadas, CI): solo el núcleo
+     * y el canal de comandos. Las alertas se escriben en la consola; con
+     * -Ddeskagenda.sonido=true también suenan.
+     *
+     * Se llama teniendo el bloqueo de InstanciaUnica y con el canal de
+     * comandos abierto (InstanciaUnica.canalAbierto). La aplicación sigue
+     * mientras esté abierto el canal de comandos; se termina con Ctrl+C o
+     * una señal de cierre (el guardado pendiente lo hace el shutdown hook).
+     */
+    public static NucleoAgenda iniciarSinVentana() {
+        NucleoAgenda nucleo = crear(Boolean.getBoolean("deskagenda.sonido"), Runnable::run);
+        nucleo.motor.setNotificador((titulo, mensaje) -> System.out.println(titulo + ":\n" + mensaje));
+        nucleo.iniciar();
+        System.out.println("DeskAgenda sin ventana. Comandos en " + InstanciaUnica.describirCanal());
+        return nucleo;
+    }
+}
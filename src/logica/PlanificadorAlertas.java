@@ -0,0 +1,176 @@
+/*
+ * DeskAgenda - Planificador de alertas
+ *
+ * Hilo que duerme hasta el próximo aviso programado, en lugar de revisar
+ * todas las tareas cada cierto tiempo.
+ */
+package logica;
+
+// === IMPORTS DE COLECCIONES ===
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * PLANIFICADOR DE ALERTAS
+ * =======================
+ *
+ * Guarda un instante (milisegundos de System.currentTimeMillis()) por id
+ * de tarea en una ColaAlertas (montículo o rueda de tiempo):
+ *
+ *  - programar(id, instante): si el nuevo aviso es el más próximo,
+ *    despierta al hilo para que recalcule cuánto dormir
+ *  - cancelar(id)
+ *  - El hilo "deskagenda-alertas" duerme hasta el próximo instante que le
+ *    indica la cola y entrega juntas todas las alertas vencidas a alVencer
+ *
+ * SALTOS DEL RELOJ
+ * ----------------
+ * wait() mide el tiempo con un reloj monótono que, según el sistema, no
+ * avanza mientras la computadora está suspendida. Por eso el hilo nunca
+ * duerme más de VIGILANCIA_MS seguidos y, cada vez que despierta, compara
+ * cuánto avanzó System.nanoTime() con cuánto avanzó la hora del sistema.
+ * Si difieren en más de TOLERANCIA_SALTO_MS (suspensión, cambio de hora,
+ * ajuste grande de NTP), entrega enseguida todo lo que venció en el
+ * intervalo, en un solo lote, indicando el salto.
+ *
+ * Quien recibe el lote decide qué hacer (GestorFechas lo pasa al hilo
+ * dueño de las tareas y vuelve a verificar cada tarea antes de avisar).
+ */
+final class PlanificadorAlertas {
+
+    static final long VIGILANCIA_MS = 10_000;
+    static final long TOLERANCIA_SALTO_MS = 2_000;
+
+    /**
+     * Recibe las alertas vencidas de una vez.
+     */
+    interface AlVencer {
+        /**
+         * @param ids     tareas cuyas alertas vencieron (al menos una)
+         * @param saltoMs cuánto se adelantó (positivo) o atrasó (negativo) el
+         *                reloj del sistema desde la entrega anterior; 0 si no hubo salto
+         */
+        void vencieron(List<Long> ids, long saltoMs);
+    }
+
+    private final ColaAlertas cola;
+    private final AlVencer alVencer;
+    private final Thread hilo;
+    private boolean detenido = false;
+
+    // === SOLO EN EL HILO DE ALERTAS ===
+    private long ultimoNano = System.nanoTime();
+    private long ultimoMs = System.currentTimeMillis();
+    private long saltoAcumuladoMs = 0;
+
+    PlanificadorAlertas(AlVencer alVencer) {
+        this(new ColaPrioridadAlertas(), alVencer);
+    }
+
+    PlanificadorAlertas(ColaAlertas cola, AlVencer alVencer) {
+        this.cola = cola;
+        this.alVencer = alVencer;
+        this.hilo = new Thread(this::ejecutar, "deskagenda-alertas");
+        this.hilo.setDaemon(true);
+        this.hilo.start();
+    }
+
+    /**
+     * Programa (o reprograma) el aviso de la tarea para el instante indicado.
+     */
+    synchronized void programar(long id, long instanteMs) {
+        long proximoAntes = cola.proximoInstante();
+        cola.programar(id, instanteMs);
+        if (cola.proximoInstante() < proximoAntes) {
+            notifyAll(); // Es el más próximo: el hilo tiene que despertarse antes
+        }
+    }
+
+    synchronized void cancelar(long id) {
+        cola.cancelar(id);
+    }
+
+    synchronized void cancelarTodas() {
+        cola.limpiar();
+    }
+
+    synchronized int programadas() {
+        return cola.cantidad();
+    }
+
+    synchronized void detener() {
+        detenido = true;
+        notifyAll();
+    }
+
+    private void ejecutar() {
+        while (true) {
+            List<Long> vencidas = new ArrayList<>();
+            long saltoMs;
+            synchronized (this) {
+                try {
+                    esperarProximoVencimiento();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (detenido) {
+                    return;
+                }
+                cola.extraerVencidas(System.currentTimeMillis(), vencidas::add);
+                saltoMs = saltoAcumuladoMs;
+                saltoAcumuladoMs = 0;
+            }
+            if (vencidas.isEmpty()) {
+                continue;
+            }
+            // Fuera del lock: quien recibe el aviso puede volver a programar
+            try {
+                alVencer.vencieron(vencidas, saltoMs);
+            } catch (RuntimeException e) {
+                System.err.println("Error al procesar alertas: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Con el lock tomado: espera hasta el próximo instante que indica la
+     * cola, hasta que se detecte un salto del reloj o hasta que se detenga
+     * el planificador.
+     */
+    private void esperarProximoVencimiento() throws InterruptedException {
+        while (!detenido) {
+            long proximo = cola.proximoInstante();
+            if (proximo == Long.MAX_VALUE) {
+                wait();
+            } else {
+                long espera = proximo - System.currentTimeMillis();
+                if (espera <= 0) {
+                    return;
+                }
+                wait(Math.min(espera, VIGILANCIA_MS));
+            }
+            if (detectarSalto()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Compara el avance de la hora del sistema con el del reloj monótono
+     * desde la última vez. Devuelve true si hubo un salto.
+     */
+    private boolean detectarSalto() {
+        long nano = System.nanoTime();
+        long ms = System.currentTimeMillis();
+        long esperadoMs = ultimoMs + (nano - ultimoNano) / 1_000_000;
+        ultimoNano = nano;
+        ultimoMs = ms;
+        long saltoMs = ms - esperadoMs;
+        if (Math.abs(saltoMs) <= TOLERANCIA_SALTO_MS) {
+            return false;
+        }
+        saltoAcumuladoMs += saltoMs;
+        System.out.println("Se detectó un salto del reloj de " + (saltoMs / 1000) + " s (suspensión o cambio de hora): se revisan las alertas del intervalo");
+        return true;
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * DeskAgenda - Rueda de alertas
+ *
+ * Rueda de tiempo jerárquica: programar y cancelar una alerta cuesta lo
+ * mismo con mil tareas que con cien mil.
+ */
+package logica;
+
+// === IMPORTS DE COLECCIONES ===
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// === IMPORTS DE FUNCIONES ===
+import java.util.function.LongConsumer;
+
+/**
+ * RUEDA DE ALERTAS
+ * ================
+ *
+ * El tiempo se cuenta en "ticks" de un segundo (segundos desde 1970). Un
+ * aviso para el instante X se anota en el tick ceil(X / 1000): nunca se
+ * dispara antes de X y a lo sumo un segundo después.
+ *
+ * Hay 5 niveles de 64 ranuras. El nivel N agrupa los ticks por su "dígito"
+ * N en base 64 (bits 6N a 6N+5):
+ *  - Nivel 0: ranuras de 1 segundo      (hasta ~1 minuto)
+ *  - Nivel 1: ranuras de 64 segundos    (hasta ~1 hora)
+ *  - Nivel 2: ranuras de ~68 minutos    (hasta ~3 días)
+ *  - Nivel 3: ranuras de ~3 días        (hasta ~194 días)
+ *  - Nivel 4: ranuras de ~194 días      (hasta ~34 años)
+ *  - Más lejos: una lista aparte que se revisa cada ~34 años
+ *
+ * Un aviso va al nivel más bajo cuyo "bloque" contiene también al tick
+ * actual. Cuando el tick actual llega al comienzo de una ranura de nivel N,
+ * sus avisos se vuelven a ubicar (bajan a niveles más finos) y los de
+ * nivel 0 pasan a "vencidas". Cada aviso baja como mucho 5 veces.
+ *
+ *  - programar / cancelar: O(1) (un HashMap y una lista doblemente enlazada)
+ *  - proximoInstante: O(1) con una máscara de ranuras ocupadas por nivel
+ *  - avanzar: salta directo de una ranura ocupada a la siguiente, así que
+ *    un salto de horas o días no recorre segundo por segundo
+ *
+ * Si el reloj retrocede se rearma toda la rueda (O(n), solo en ese caso).
+ */
+final class RuedaAlertas implements ColaAlertas {
+
+    private static final int BITS = 6;
+    private static final int RANURAS = 1 << BITS;
+    private static final long MASCARA = RANURAS - 1;
+    private static final int NIVELES = 5;
+    private static final int LEJANAS = NIVELES;     // Lista de avisos fuera de los 5 niveles
+    private static final int VENCIDAS = NIVELES + 1; // Lista de avisos ya vencidos
+
+    private static final class Nodo {
+        final long id;
+        final long tick;
+        int nivel;
+        int ranura;
+        Nodo anterior;
+        Nodo siguiente;
+
+        Nodo(long id, long tick) {
+            this.id = id;
+            this.tick = tick;
+        }
+    }
+
+    private final Nodo[][] listas = new Nodo[NIVELES + 2][];
+    private final long[] ocupadas = new long[NIVELES]; // Bit i: la ranura i del nivel tiene avisos
+    private final Map<Long, Nodo> porId = new HashMap<>();
+    private long tickActual;
+
+    RuedaAlertas() {
+        this(System.currentTimeMillis());
+    }
+
+    RuedaAlertas(long ahoraMs) {
+        for (int nivel = 0; nivel < NIVELES; nivel++) {
+            listas[nivel] = new Nodo[RANURAS];
+        }
+        listas[LEJANAS] = new Nodo[1];
+        listas[VENCIDAS] = new Nodo[1];
+        tickActual = Math.floorDiv(ahoraMs, 1000);
+    }
+
+    @Override
+    public void programar(long id, long instanteMs) {
+        cancelar(id);
+        Nodo nodo = new Nodo(id, Math.floorDiv(instanteMs, 1000) + (Math.floorMod(instanteMs, 1000) == 0 ? 0 : 1));
+        porId.put(id, nodo);
+        ubicar(nodo);
+    }
+
+    @Override
+    public boolean cancelar(long id) {
+        Nodo nodo = porId.remove(id);
+        if (nodo == null) {
+            return false;
+        }
+        desenlazar(nodo);
+        return true;
+    }
+
+    @Override
+    public void limpiar() {
+        vaciarTodo();
+        porId.clear();
+    }
+
+    @Override
+    public int cantidad() {
+        return porId.size();
+    }
+
+    @Override
+    public long proximoInstante() {
+        if (porId.isEmpty()) {
+            return Long.MAX_VALUE;
+        }
+        if (listas[VENCIDAS][0] != null) {
+            return tickActual * 1000;
+        }
+        long tick = proximoEvento();
+        return tick == Long.MAX_VALUE ? Long.MAX_VALUE : tick * 1000;
+    }
+
+    @Override
+    public void extraerVencidas(long ahoraMs, LongConsumer destino) {
+        avanzarHasta(Math.floorDiv(ahoraMs, 1000));
+        Nodo nodo = vaciar(VENCIDAS, 0);
+        while (nodo != null) {
+            Nodo siguiente = nodo.siguiente;
+            nodo.anterior = nodo.siguiente = null;
+            porId.remove(nodo.id);
+            destino.accept(nodo.id);
+            nodo = siguiente;
+        }
+    }
+
+    /**
+     * Mueve el tick actual hasta "hasta", pasando a vencidas lo que corresponda.
+     */
+    private void avanzarHasta(long hasta) {
+        if (hasta < tickActual) {
+            reconstruir(hasta); // El reloj retrocedió
+            return;
+        }
+        while (true) {
+            long evento = proximoEvento();
+            if (evento > hasta) {
+                tickActual = hasta;
+                return;
+            }
+            tickActual = evento;
+            procesarTickActual();
+        }
+    }
+
+    /**
+     * Próximo tick (posterior al actual) en el que hay que bajar o vencer
+     * avisos. Las ranuras ocupadas de cada nivel siempre están "adelante"
+     * del dígito actual, así que alcanza con la primera ocupada del nivel
+     * más bajo que tenga alguna.
+     */
+    private long proximoEvento() {
+        for (int nivel = 0; nivel < NIVELES; nivel++) {
+            if (ocupadas[nivel] != 0) {
+                int ranura = Long.numberOfTrailingZeros(ocupadas[nivel]);
+                int desplazamiento = BITS * (nivel + 1);
+                long base = (tickActual >>> desplazamiento) << desplazamiento;
+                return base + ((long) ranura << (BITS * nivel));
+            }
+        }
+        if (listas[LEJANAS][0] != null) {
+            int desplazamiento = BITS * NIVELES;
+            return ((tickActual >>> desplazamiento) + 1) << desplazamiento;
+        }
+        return Long.MAX_VALUE;
+    }
+
+    private void procesarTickActual() {
+        if (listas[LEJANAS][0] != null && (tickActual & ((1L << (BITS * NIVELES)) - 1)) == 0) {
+            reubicar(vaciar(LEJANAS, 0));
+        }
+        // De arriba hacia abajo: lo que baja de un nivel puede caer en la ranura actual del siguiente
+        for (int nivel = NIVELES - 1; nivel >= 1; nivel--) {
+            if ((tickActual & ((1L << (BITS * nivel)) - 1)) == 0) {
+                int ranura = (int) ((tickActual >>> (BITS * nivel)) & MASCARA);
+                reubicar(vaciar(nivel, ranura));
+            }
+        }
+        reubicar(vaciar(0, (int) (tickActual & MASCARA))); // Todos con tick == tickActual: van a vencidas
+    }
+
+    private void reubicar(Nodo nodo) {
+        while (nodo != null) {
+            Nodo siguiente = nodo.siguiente;
+            ubicar(nodo);
+            nodo = siguiente;
+        }
+    }
+
+    private void ubicar(Nodo nodo) {
+        if (nodo.tick <= tickActual) {
+            enlazar(nodo, VENCIDAS, 0);
+            return;
+        }
+        for (int nivel = 0; nivel < NIVELES; nivel++) {
+            int desplazamiento = BITS * (nivel + 1);
+            if ((nodo.tick >>> desplazamiento) == (tickActual >>> desplazamiento)) {
+                enlazar(nodo, nivel, (int) ((nodo.tick >>> (BITS * nivel)) & MASCARA));
+                return;
+            }
+        }
+        enlazar(nodo, LEJANAS, 0);
+    }
+
+    private void reconstruir(long tick) {
+        List<Nodo> nodos = new ArrayList<>(porId.values());
+        vaciarTodo();
+        tickActual = tick;
+        for (Nodo nodo : nodos) {
+            ubicar(nodo);
+        }
+    }
+
+    private void vaciarTodo() {
+        for (Nodo[] lista : listas) {
+            Arrays.fill(lista, null);
+        }
+        Arrays.fill(ocupadas, 0);
+    }
+
+    private void enlazar(Nodo nodo, int nivel, int ranura) {
+        nodo.nivel = nivel;
+        nodo.ranura = ranura;
+        nodo.anterior = null;
+        nodo.siguiente = listas[nivel][ranura];
+        if (nodo.siguiente != null) {
+            nodo.siguiente.anterior = nodo;
+        }
+        listas[nivel][ranura] = nodo;
+        if (nivel < NIVELES) {
+            ocupadas[nivel] |= 1L << ranura;
+        }
+    }
+
+    private void desenlazar(Nodo nodo) {
+        if (nodo.anterior != null) {
+            nodo.anterior.siguiente = nodo.siguiente;
+        } else {
+            listas[nodo.nivel][nodo.ranura] = nodo.siguiente;
+        }
+        if (nodo.siguiente != null) {
+            nodo.siguiente.anterior = nodo.anterior;
+        }
+        nodo.anterior = nodo.siguiente = null;
+        if (nodo.nivel < NIVELES && listas[nodo.nivel][nodo.ranura] == null) {
+            ocupadas[nodo.nivel] &= ~(1L << nodo.ranura);
+        }
+    }
+
+    /**
+     * Saca la lista entera de una ranura y la devuelve (los nodos quedan
+     * encadenados entre sí, hay que volver a ubicarlos).
+     */
+    private Nodo vaciar(int nivel, int ranura) {
+        Nodo primero = listas[nivel][ranura];
+        listas[nivel][ranura] = null;
+        if (nivel < NIVELES) {
+            ocupadas[nivel] &= ~(1L << ranura);
+        }
+        return primero;
+    }
+}
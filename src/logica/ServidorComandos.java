@@ -0,0 +1,487 @@
+/*
+ * DeskAgenda - Servidor del socket de instancia única
+ *
+ * Atiende, con un solo hilo y sin bloquearse, las señales de activación y
+ * los comandos de CanalComandos de muchos clientes a la vez.
+ */
+package logica;
+
+// === IMPORTS DE RED ===
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+// === IMPORTS DE COLECCIONES ===
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+// === IMPORTS DE CONCURRENCIA ===
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+/**
+ * SERVIDOR DE COMANDOS
+ * ====================
+ *
+ * Un Selector con el ServerSocketChannel (socket Unix o TCP en loopback,
+ * ver TransporteLocal) y todas las conexiones. Nada de lo que hace el hilo del servidor bloquea:
+ * los comandos se ejecutan en el hilo del motor y el resultado vuelve por
+ * una cola, despertando al Selector.
+ *
+ * Por conexión:
+ *  - Primer byte 1 (o cerrar sin enviar nada): activar la ventana y cerrar
+ *  - Si no, la primera línea tiene que ser "CLAVE" + tab + la clave de la
+ *    instancia (ver TransporteLocal): se responde "OK 0", o un error y se
+ *    cierra. Sin clave (no se pudo crear) no se acepta ningún comando
+ *  - Después se parten las líneas que llegan. Hay un solo lote en el motor
+ *    por conexión (así las respuestas salen en orden); mientras se ejecuta,
+ *    las líneas nuevas esperan y forman el lote siguiente. Si la respuesta
+ *    de un lote crece demasiado (CanalComandos.MAXIMO_RESPUESTA), los
+ *    comandos que faltaban vuelven a la espera
+ *  - Si el cliente cierra su lado de escritura (por ejemplo, nc), se
+ *    terminan de ejecutar y enviar sus comandos antes de cerrar
+ *
+ * Contrapresión: se deja de leer una conexión (el cliente queda esperando
+ * con el búfer TCP lleno) si tiene un lote entero esperando, si tiene
+ * mucha respuesta sin enviar (no está leyendo), o si entre todas las
+ * conexiones hay CAPACIDAD_COLA comandos sin responder. Se vuelve a leer
+ * cuando hay lugar. La cola puede pasarse de la capacidad por lo que
+ * traía la última lectura (a lo sumo un búfer).
+ *
+ * Métricas: la latencia de cada comando (desde que se leyó su línea hasta
+ * que su respuesta quedó lista para enviarse) va a MetricasComandos.
+ */
+final class ServidorComandos implements Runnable {
+
+    static final int CAPACIDAD_COLA = 50_000;     // Comandos sin responder, entre todas las conexiones
+    private static final int MAXIMO_LINEA = 64 * 1024;  // Una línea más larga cierra la conexión
+    private static final int LIMITE_SALIDA = 4 * 1024 * 1024; // Bytes sin enviar que frenan la lectura
+    private static final int TAMAÑO_BUFFER = 64 * 1024;
+    private static final byte SEÑAL_ACTIVACION = 1;
+    static final String COMANDO_CLAVE = "CLAVE";
+
+    private final Selector selector;
+    private final ServerSocketChannel canalServidor;
+    private final Supplier<MotorAgenda> motor;
+    private final Runnable activarVentana;
+    private final byte[] lineaClave; // Primera línea que abre el canal de comandos (null = ninguna)
+    private final MetricasComandos metricas = new MetricasComandos();
+    private final ConcurrentLinkedQueue<Resultado> terminados = new ConcurrentLinkedQueue<>();
+    private final ByteBuffer buffer = ByteBuffer.allocate(TAMAÑO_BUFFER); // Solo lo usa el hilo del servidor
+    private int sinResponder = 0; // Comandos leídos cuyo resultado todavía no volvió
+    private volatile boolean abierto = true;
+
+    /**
+     * Atiende el canal ya abierto (ver TransporteLocal.abrirServidor). El
+     * servidor empieza a atender cuando se ejecuta run().
+     *
+     * @param motor de dónde sacar el motor en cada lote (puede ser null si todavía no está)
+     * @param clave la que tienen que enviar los clientes antes de sus comandos
+     *              (null = solo se atiende la señal de activación)
+     */
+    ServidorComandos(ServerSocketChannel canalServidor, Supplier<MotorAgenda> motor, Runnable activarVentana,
+            String clave) throws IOException {
+        this.motor = motor;
+        this.activarVentana = activarVentana;
+        this.lineaClave = clave == null ? null : (COMANDO_CLAVE + '\t' + clave).getBytes(StandardCharsets.UTF_8);
+        this.canalServidor = canalServidor;
+        try {
+            this.selector = Selector.open();
+        } catch (IOException e) {
+            canalServidor.close();
+            throw e;
+        }
+        try {
+            canalServidor.configureBlocking(false);
+            canalServidor.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            cerrarTodo();
+            throw e;
+        }
+    }
+
+    MetricasComandos getMetricas() {
+        return metricas;
+    }
+
+    /**
+     * Si hay clave: sin ella solo se atiende la señal de activación.
+     */
+    boolean aceptaComandos() {
+        return lineaClave != null;
+    }
+
+    /**
+     * Desde cualquier hilo: run() termina y cierra el puerto y todas las conexiones.
+     */
+    void cerrar() {
+        abierto = false;
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (abierto) {
+                selector.select();
+                procesarTerminados();
+                Iterator<SelectionKey> claves = selector.selectedKeys().iterator();
+                while (claves.hasNext()) {
+                    SelectionKey clave = claves.next();
+                    claves.remove();
+                    try {
+                        if (clave.isAcceptable()) {
+                            aceptar();
+                        } else {
+                            Conexion conexion = (Conexion) clave.attachment();
+                            if (clave.isReadable()) {
+                                leer(conexion);
+                            }
+                            if (clave.isValid() && clave.isWritable()) {
+                                escribir(conexion);
+                            }
+                        }
+                    } catch (IOException e) {
+                        if (clave.attachment() != null) {
+                            cerrar((Conexion) clave.attachment()); // El cliente se fue
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error en servidor de activación: " + e.getMessage());
+        } finally {
+            cerrarTodo();
+        }
+    }
+
+    // === CONEXIONES ===
+
+    private void aceptar() throws IOException {
+        SocketChannel canal = canalServidor.accept();
+        if (canal == null) {
+            return;
+        }
+        SocketAddress remota = canal.getRemoteAddress();
+        if (remota instanceof InetSocketAddress && !((InetSocketAddress) remota).getAddress().isLoopbackAddress()) {
+            canal.close(); // Por TCP solo escucha en loopback, pero por las dudas
+            return;
+        }
+        canal.configureBlocking(false);
+        Conexion conexion = new Conexion(canal);
+        conexion.clave = canal.register(selector, SelectionKey.OP_READ, conexion);
+    }
+
+    private void leer(Conexion conexion) throws IOException {
+        buffer.clear();
+        int leidos = conexion.canal.read(buffer);
+        int antes = conexion.lineas.size();
+        if (leidos < 0) {
+            conexion.finEntrada = true;
+            if (!conexion.iniciada) {
+                activarVentana.run(); // Se conectó y cerró: lo que hacían las versiones viejas
+                cerrar(conexion);
+                return;
+            }
+            conexion.agregarUltimaLinea(); // Lo que quedó sin '\n'
+        } else {
+            buffer.flip();
+            if (!conexion.iniciada && buffer.hasRemaining()) {
+                conexion.iniciada = true;
+                if (buffer.get(0) == SEÑAL_ACTIVACION) {
+                    activarVentana.run();
+                    cerrar(conexion);
+                    return;
+                }
+            }
+            if (!conexion.separarLineas(buffer)) {
+                // Los comandos anteriores se ejecutan igual; el error va después
+                // de sus respuestas (ver actualizarInteres) y se cierra
+                conexion.errorFinal = CanalComandos.errores(1, "línea demasiado larga");
+                conexion.finEntrada = true;
+            }
+        }
+        if (!conexion.autorizada && !conexion.lineas.isEmpty()) {
+            autorizar(conexion); // Hasta acá no se guardó ninguna línea: antes == 0
+        }
+        sinResponder += conexion.lineas.size() - antes;
+        ejecutarSiPuede(conexion);
+        actualizarInteres(conexion);
+    }
+
+    /**
+     * Saca la primera línea y la compara con la clave (en tiempo constante).
+     * Si no es la clave se descarta todo lo demás, se envía el error y se cierra.
+     */
+    private void autorizar(Conexion conexion) {
+        byte[] primera = conexion.lineas.poll().getBytes(StandardCharsets.UTF_8);
+        conexion.llegadas.poll();
+        if (lineaClave != null && MessageDigest.isEqual(primera, lineaClave)) {
+            conexion.autorizada = true;
+            conexion.responder("OK 0\n");
+            return;
+        }
+        conexion.lineas.clear();
+        conexion.llegadas.clear();
+        conexion.errorFinal = null;
+        conexion.responder(CanalComandos.errores(1, lineaClave == null
+                ? "el canal de comandos no está disponible" : "clave incorrecta (ver ~/.deskagenda/clave)"));
+        conexion.finEntrada = true;
+    }
+
+    private void escribir(Conexion conexion) throws IOException {
+        while (!conexion.salida.isEmpty()) {
+            ByteBuffer pendiente = conexion.salida.peek();
+            conexion.bytesSinEnviar -= conexion.canal.write(pendiente);
+            if (pendiente.hasRemaining()) {
+                break; // El cliente no está leyendo: seguir cuando haya lugar
+            }
+            conexion.salida.poll();
+        }
+        ejecutarSiPuede(conexion);
+        actualizarInteres(conexion);
+    }
+
+    /**
+     * Manda al motor el lote siguiente, si no hay otro en curso y el cliente está leyendo las respuestas.
+     */
+    private void ejecutarSiPuede(Conexion conexion) {
+        if (conexion.enCurso || conexion.lineas.isEmpty() || conexion.bytesSinEnviar > LIMITE_SALIDA
+                || !conexion.clave.isValid()) {
+            return;
+        }
+        int cantidad = Math.min(conexion.lineas.size(), CanalComandos.MAXIMO_LOTE);
+        List<String> lote = new ArrayList<>(cantidad);
+        long[] llegadas = new long[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            lote.add(conexion.lineas.poll());
+            llegadas[i] = conexion.llegadas.poll();
+        }
+        conexion.enCurso = true;
+
+        MotorAgenda destino = motor.get();
+        if (destino == null) {
+            terminar(new Resultado(conexion, lote, llegadas, cantidad,
+                    CanalComandos.errores(cantidad, "la agenda todavía no está lista")));
+            return;
+        }
+        StringBuilder respuestas = new StringBuilder(cantidad * 24);
+        destino.enMotor(gestor -> CanalComandos.ejecutar(lote, gestor, respuestas)).whenComplete((ejecutados, error) -> terminar(
+                error == null ? new Resultado(conexion, lote, llegadas, ejecutados, respuestas.toString())
+                        : new Resultado(conexion, lote, llegadas, cantidad,
+                                CanalComandos.errores(cantidad, "error en la agenda: " + error.getMessage()))));
+    }
+
+    /**
+     * Desde cualquier hilo: deja el resultado para el hilo del servidor y lo despierta.
+     */
+    private void terminar(Resultado resultado) {
+        terminados.add(resultado);
+        selector.wakeup();
+    }
+
+    private void procesarTerminados() {
+        boolean habiaCola = sinResponder >= CAPACIDAD_COLA;
+        Resultado resultado;
+        while ((resultado = terminados.poll()) != null) {
+            Conexion conexion = resultado.conexion;
+            sinResponder -= resultado.ejecutados;
+            registrarLatencias(resultado);
+            conexion.enCurso = false;
+            if (!conexion.clave.isValid()) {
+                sinResponder -= resultado.lote.size() - resultado.ejecutados;
+                continue; // El cliente se fue mientras se ejecutaba
+            }
+            // Los que no se llegaron a ejecutar (respuesta demasiado grande) vuelven al principio
+            for (int i = resultado.lote.size() - 1; i >= resultado.ejecutados; i--) {
+                conexion.lineas.addFirst(resultado.lote.get(i));
+                conexion.llegadas.addFirst(resultado.llegadas[i]);
+            }
+            conexion.responder(resultado.respuestas);
+            ejecutarSiPuede(conexion);
+            actualizarInteres(conexion);
+        }
+        if (habiaCola && sinResponder < CAPACIDAD_COLA) {
+            for (SelectionKey clave : selector.keys()) {
+                if (clave.attachment() != null) {
+                    actualizarInteres((Conexion) clave.attachment()); // Hay lugar: volver a leer
+                }
+            }
+        }
+    }
+
+    private void registrarLatencias(Resultado resultado) {
+        long ahora = System.nanoTime();
+        String respuestas = resultado.respuestas;
+        int inicio = 0;
+        for (int c = 0; c < resultado.ejecutados; c++) {
+            // Cada respuesta es "OK n" + n líneas o "ERR ..." (ver CanalComandos)
+            int fin = respuestas.indexOf('\n', inicio);
+            boolean error = respuestas.startsWith("ERR", inicio);
+            if (!error) {
+                int lineas = Integer.parseInt(respuestas.substring(inicio + 3, fin));
+                for (int i = 0; i < lineas; i++) {
+                    fin = respuestas.indexOf('\n', fin + 1);
+                }
+            }
+            inicio = fin + 1;
+            metricas.registrar(ahora - resultado.llegadas[c], error);
+        }
+    }
+
+    /**
+     * Lee si hay lugar para más comandos; escribe si hay respuestas sin enviar.
+     * Cierra la conexión si el cliente ya terminó y se le respondió todo.
+     */
+    private void actualizarInteres(Conexion conexion) {
+        if (!conexion.clave.isValid()) {
+            return;
+        }
+        if (conexion.errorFinal != null && !conexion.enCurso && conexion.lineas.isEmpty()) {
+            // Ya se respondieron todos los comandos anteriores: recién ahora, el error
+            conexion.responder(conexion.errorFinal);
+            conexion.errorFinal = null;
+        }
+        if (conexion.finEntrada && !conexion.enCurso && conexion.lineas.isEmpty() && conexion.salida.isEmpty()) {
+            cerrar(conexion);
+            return;
+        }
+        boolean leer = !conexion.finEntrada && conexion.lineas.size() < CanalComandos.MAXIMO_LOTE
+                && conexion.bytesSinEnviar <= LIMITE_SALIDA && sinResponder < CAPACIDAD_COLA;
+        if (!leer && !conexion.finEntrada && (conexion.clave.interestOps() & SelectionKey.OP_READ) != 0) {
+            metricas.registrarPausa();
+        }
+        conexion.clave.interestOps((leer ? SelectionKey.OP_READ : 0)
+                | (conexion.salida.isEmpty() ? 0 : SelectionKey.OP_WRITE));
+    }
+
+    private void cerrar(Conexion conexion) {
+        sinResponder -= conexion.lineas.size(); // Los que no llegaron a ejecutarse
+        conexion.lineas.clear();
+        conexion.llegadas.clear();
+        conexion.clave.cancel();
+        try {
+            conexion.canal.close();
+        } catch (IOException e) {
+            System.err.println("Error al cerrar una conexión de comandos: " + e.getMessage());
+        }
+    }
+
+    private void cerrarTodo() {
+        try {
+            for (SelectionKey clave : selector.keys()) {
+                clave.channel().close(); // Las conexiones y el puerto
+            }
+            canalServidor.close();
+            selector.close();
+        } catch (IOException e) {
+            System.err.println("Error al cerrar el servidor de comandos: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Estado de una conexión. Solo lo toca el hilo del servidor.
+     */
+    private static final class Conexion {
+
+        final SocketChannel canal;
+        SelectionKey clave;
+        boolean iniciada;   // Ya llegó el primer byte
+        boolean autorizada; // Ya envió la clave
+        boolean finEntrada; // El cliente ya no envía más
+        boolean enCurso;    // Hay un lote en el motor
+        String errorFinal;  // Respuesta a una línea demasiado larga, después de las anteriores
+        final ArrayDeque<String> lineas = new ArrayDeque<>(); // Comandos esperando lote
+        final ArrayDeque<Long> llegadas = new ArrayDeque<>(); // Cuándo llegó cada uno (nanoTime)
+        final ArrayDeque<ByteBuffer> salida = new ArrayDeque<>();
+        long bytesSinEnviar;
+        private byte[] parcial = new byte[256]; // Línea que todavía no terminó de llegar
+        private int largoParcial;
+
+        Conexion(SocketChannel canal) {
+            this.canal = canal;
+        }
+
+        /**
+         * Agrega a "lineas" las líneas completas del buffer. Devuelve false si una es demasiado larga.
+         */
+        boolean separarLineas(ByteBuffer datos) {
+            long ahora = System.nanoTime();
+            byte[] arreglo = datos.array();
+            int inicio = datos.position();
+            for (int i = inicio; i < datos.limit(); i++) {
+                if (arreglo[i] == '\n') {
+                    if (!acumular(arreglo, inicio, i - inicio)) {
+                        return false;
+                    }
+                    agregarLinea(ahora);
+                    inicio = i + 1;
+                }
+            }
+            return acumular(arreglo, inicio, datos.limit() - inicio);
+        }
+
+        void agregarUltimaLinea() {
+            if (largoParcial > 0) {
+                agregarLinea(System.nanoTime());
+            }
+        }
+
+        void responder(String respuestas) {
+            ByteBuffer bytes = ByteBuffer.wrap(respuestas.getBytes(StandardCharsets.UTF_8));
+            bytesSinEnviar += bytes.remaining();
+            salida.add(bytes);
+        }
+
+        private boolean acumular(byte[] datos, int desde, int largo) {
+            if (largoParcial + largo > MAXIMO_LINEA) {
+                return false;
+            }
+            if (largoParcial + largo > parcial.length) {
+                parcial = Arrays.copyOf(parcial, Math.max(parcial.length * 2, largoParcial + largo));
+            }
+            System.arraycopy(datos, desde, parcial, largoParcial, largo);
+            largoParcial += largo;
+            return true;
+        }
+
+        private void agregarLinea(long llegada) {
+            int largo = largoParcial > 0 && parcial[largoParcial - 1] == '\r' ? largoParcial - 1 : largoParcial;
+            largoParcial = 0;
+            if (largo > 0) {
+                lineas.add(new String(parcial, 0, largo, StandardCharsets.UTF_8));
+                llegadas.add(llegada);
+            }
+        }
+    }
+
+    /**
+     * Respuestas de un lote, listas para volver al hilo del servidor.
+     */
+    private static final class Resultado {
+
+        final Conexion conexion;
+        final List<String> lote;
+        final long[] llegadas;
+        final int ejecutados; // Los primeros "ejecutados" comandos del lote tienen respuesta
+        final String respuestas;
+
+        Resultado(Conexion conexion, List<String> lote, long[] llegadas, int ejecutados, String respuestas) {
+            this.conexion = conexion;
+            this.lote = lote;
+            this.llegadas = llegadas;
+            this.ejecutados = ejecutados;
+            this.respuestas = respuestas;
+        }
+    }
+}
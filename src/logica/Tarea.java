@@ -13,8 +13,13 @@ import java.time.format.DateTimeFormatter; // Para formatear fechas en formato a
 import java.time.DayOfWeek;            // Para días de la semana (lunes, martes, etc.)
 
 // === IMPORTS DE COLECCIONES ===
+import java.util.Collections;          // Para que la copia de los días no se pueda modificar
+import java.util.EnumSet;              // Días en el orden de la semana (lunes primero)
 import java.util.Set;                  // Para guardar conjunto de días (tareas semanales)
 
+// === IMPORTS DE CONCURRENCIA ===
+import java.util.concurrent.ThreadLocalRandom; // Para generar identificadores
+
 /**
  * CLASE TAREA - ESTRUCTURA DE DATOS PRINCIPAL
  * ==========================================
@@ -42,6 +47,9 @@ import java.util.Set;                  // Para guardar conjunto de días (tareas
  */
 public class Tarea {
     
+    // === IDENTIDAD ===
+    private long id;                          // Identificador único, se guarda con la tarea
+
     // === INFORMACIÓN BÁSICA DE LA TAREA ===
     private String nombre;                    // Descripción de la tarea
     private LocalDate fecha;                  // Fecha cuando hay que hacerla
@@ -92,6 +100,7 @@ public class Tarea {
     }
 
     public Tarea(String descripcion, LocalDate fecha, LocalTime hora, TipoTarea tipo) { 
+        this.id = nuevoId();
         this.nombre = descripcion;
         this.fecha = fecha;
         this.hora = hora;
@@ -103,7 +112,52 @@ public class Tarea {
         this.repeticionesCompletadas = 0;
     }
 
+    // Para copiar(): no genera un id nuevo
+    private Tarea(Tarea origen) {
+        this.id = origen.id;
+        this.nombre = origen.nombre;
+        this.fecha = origen.fecha;
+        this.hora = origen.hora;
+        this.tipo = origen.tipo;
+        this.completada = origen.completada;
+        this.repeticionesCompletadas = origen.repeticionesCompletadas;
+        this.fechaUltimaCompletada = origen.fechaUltimaCompletada;
+        this.diasSemana = copiarDias(origen.diasSemana);
+        this.alertaActiva = origen.alertaActiva;
+        this.segundosAntesAlerta = origen.segundosAntesAlerta;
+    }
+
+    /**
+     * Crea una copia independiente de la tarea (para guardarla en segundo plano
+     * sin que los cambios posteriores la afecten).
+     */
+    public Tarea copiar() {
+        return new Tarea(this);
+    }
+
+    // Copia en un EnumSet: se guarda en el orden de la semana, igual en cada
+    // ejecución (Set.copyOf no tiene orden fijo, y el JSON cambiaría sin que
+    // cambie la tarea)
+    private static Set<DayOfWeek> copiarDias(Set<DayOfWeek> dias) {
+        if (dias == null) {
+            return null;
+        }
+        EnumSet<DayOfWeek> copia = EnumSet.noneOf(DayOfWeek.class);
+        copia.addAll(dias);
+        return Collections.unmodifiableSet(copia);
+    }
+
+    /**
+     * Genera un identificador nuevo (aleatorio, siempre positivo).
+     * Con 63 bits al azar la probabilidad de repetir uno es despreciable;
+     * igual GestorTareas reasigna si encuentra un id repetido.
+     */
+    public static long nuevoId() {
+        return ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+    }
+
     // Getters
+    public long getId() { return id; }
     public String getDescripcion() { return nombre; }
     public String getNombre() { return nombre; } 
     public LocalDate getFecha() { return fecha; }
@@ -120,6 +174,7 @@ public class Tarea {
     public LocalDate getFechaUltimaCompletada() { return fechaUltimaCompletada; }
 
     // Setters
+    public void setId(long id) { this.id = id; }
     public void setDescripcion(String descripcion) { this.nombre = descripcion; }
     public void setFecha(LocalDate fecha) { this.fecha = fecha; }
     public void setHora(LocalTime hora) { this.hora = hora; }
@@ -196,8 +251,15 @@ public class Tarea {
         return fechaInicio.plusDays(7);
     }
 
-    public void reiniciarSiNecesario() {
+    /**
+     * Reprograma las tareas diarias/semanales al cambiar de día.
+     * Devuelve true si la tarea cambió (para guardar solo cuando hace falta).
+     */
+    public boolean reiniciarSiNecesario() {
         LocalDate hoy = LocalDate.now();
+        boolean completadaAntes = this.completada;
+        LocalDate fechaAntes = this.fecha;
+        LocalDate ultimaAntes = this.fechaUltimaCompletada;
         if (this.completada && (this.tipo == TipoTarea.DIARIA || this.tipo == TipoTarea.SEMANAL)) {
             // Si la última vez que se completó fue antes de hoy, resetear y actualizar fecha
             if (fechaUltimaCompletada != null && fechaUltimaCompletada.isBefore(hoy)) {
@@ -223,6 +285,9 @@ public class Tarea {
                 }
             }
         }
+        return completadaAntes != this.completada
+                || !java.util.Objects.equals(fechaAntes, this.fecha)
+                || !java.util.Objects.equals(ultimaAntes, this.fechaUltimaCompletada);
     }
     
     /**
@@ -279,36 +344,18 @@ public class Tarea {
         return nombre + " - " + fecha + " " + hora + " (" + tipo + ")";
     }
 
-    // Hay que implementar equals() y hashCode() si las tareas se buscan en colecciones
-    // o se comparan después de ser recuperadas/recreadas, especialmente si no son la misma instancia de objeto.
+    // Dos objetos Tarea son la misma tarea si tienen el mismo id, aunque se hayan
+    // recreado al cargar o se hayan editado. Dos tareas con igual nombre, fecha,
+    // hora y tipo siguen siendo distintas.
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
-        Tarea tarea = (Tarea) o;
-        // Comparar por un conjunto de campos que definan unívocamente una tarea.
-        // Si hay un ID único, usarlo sería lo ideal.
-        // Por ahora, comparamos por nombre, fecha, hora y tipo.
-        // Esto podría no ser suficiente si se permiten tareas con el mismo nombre, fecha, hora y tipo (posible pendiente)
-        // pero que se consideran distintas (ej. creadas en momentos diferentes).
-        return nombre.equals(tarea.nombre) &&
-               fecha.equals(tarea.fecha) &&
-               hora.equals(tarea.hora) &&
-               tipo == tarea.tipo; 
-               // Considerar también otros campos si son relevantes para la unicidad,
-               // como alertaActiva, minutosAntesAlerta, diasSemana, etc.
-               // O, si la identidad del objeto es lo que importa, esta implementación de equals
-               // podría ser demasiado permisiva.
+        return id == ((Tarea) o).id;
     }
 
     @Override
     public int hashCode() {
-        // Generar hashCode basado en los mismos campos usados en equals().
-        int result = nombre.hashCode();
-        result = 31 * result + fecha.hashCode();
-        result = 31 * result + hora.hashCode();
-        result = 31 * result + tipo.hashCode();
-        return result;
-        // return java.util.Objects.hash(nombre, fecha, hora, tipo); // Alternativa más concisa
+        return Long.hashCode(id);
     }
-}
\ No newline at end of file
+}
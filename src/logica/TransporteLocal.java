@@ -0,0 +1,305 @@
+/*
+ * DeskAgenda - Transporte entre procesos
+ *
+ * Dónde escucha la instancia abierta y cómo se conectan las demás (la
+ * segunda instancia, ClienteAgenda): socket Unix en una carpeta del
+ * usuario o, si no se puede, TCP en loopback.
+ */
+package logica;
+
+// === IMPORTS DE RED ===
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+// === IMPORTS DE ARCHIVOS ===
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.Set;
+
+// === IMPORTS DE SEGURIDAD ===
+import java.security.SecureRandom;
+import java.util.Base64;
+
+// === IMPORTS DE REFLEXIÓN ===
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * TRANSPORTE LOCAL
+ * ================
+ *
+ *  - unix: ~/.deskagenda/deskagenda.sock. La carpeta se crea con permisos
+ *    700 (ver prepararCarpeta), así que el socket nunca queda al alcance
+ *    de otros usuarios, ni siquiera entre el bind y el chmod. No ocupa un
+ *    puerto (el 52847 puede estar en uso en equipos compartidos) y
+ *    conectarse es más rápido que por TCP
+ *  - tcp:  127.0.0.1:52847, como antes. Es lo que se usa si Java no
+ *    tiene sockets Unix (hacen falta Java 16 o más) o si se elige con
+ *    -Ddeskagenda.transporte=tcp
+ *
+ * La aplicación compila para Java 11, así que UnixDomainSocketAddress y
+ * los open(ProtocolFamily) se buscan por reflexión.
+ *
+ * Los clientes prueban primero el socket Unix (si existe el archivo) y
+ * después TCP: funcionan con una instancia abierta de cualquiera de las
+ * dos maneras.
+ *
+ * CLAVE: al puerto TCP se puede conectar cualquier usuario del equipo,
+ * así que los comandos (no la señal de activación) piden primero la clave
+ * de ~/.deskagenda/clave. La escribe la instancia al abrir el canal, una
+ * nueva cada vez, y solo la puede leer el usuario (archivo 600 en la
+ * carpeta 700).
+ */
+final class TransporteLocal {
+
+    private static final String NOMBRE_CARPETA = ".deskagenda";
+    private static final String NOMBRE_SOCKET = "deskagenda.sock";
+    private static final String NOMBRE_CLAVE = "clave";
+    private static final int BYTES_CLAVE = 32;
+    private static final Set<PosixFilePermission> SOLO_USUARIO = PosixFilePermissions.fromString("rwx------");
+
+    // Lo que hace falta para los sockets Unix, o null si este Java no los tiene
+    private static final ProtocolFamily FAMILIA_UNIX = buscarFamiliaUnix();
+    private static final Method DIRECCION_UNIX = buscarMetodo("java.net.UnixDomainSocketAddress", "of", Path.class);
+    private static final Method SERVIDOR_POR_FAMILIA = buscarMetodo(ServerSocketChannel.class.getName(), "open", ProtocolFamily.class);
+    private static final Method CLIENTE_POR_FAMILIA = buscarMetodo(SocketChannel.class.getName(), "open", ProtocolFamily.class);
+
+    private TransporteLocal() {
+    }
+
+    /**
+     * Si se pueden usar sockets Unix (por Java y por -Ddeskagenda.transporte).
+     */
+    static boolean unixDisponible() {
+        return FAMILIA_UNIX != null && DIRECCION_UNIX != null && SERVIDOR_POR_FAMILIA != null
+                && CLIENTE_POR_FAMILIA != null
+                && !"tcp".equalsIgnoreCase(System.getProperty("deskagenda.transporte"));
+    }
+
+    /**
+     * ~/.deskagenda: el socket (y lo que no debe ver otro usuario) va acá adentro.
+     */
+    static Path carpeta() {
+        return Paths.get(System.getProperty("user.home"), NOMBRE_CARPETA);
+    }
+
+    static Path rutaSocket() {
+        return carpeta().resolve(NOMBRE_SOCKET);
+    }
+
+    static Path rutaClave() {
+        return carpeta().resolve(NOMBRE_CLAVE);
+    }
+
+    /**
+     * Genera una clave nueva para el canal de comandos y la deja en
+     * ~/.deskagenda/clave. Se escribe en un temporal (createTempFile lo crea
+     * con permisos 600) que después reemplaza al anterior: un cliente nunca
+     * lee una clave a medio escribir.
+     */
+    static String crearClave() throws IOException {
+        byte[] azar = new byte[BYTES_CLAVE];
+        new SecureRandom().nextBytes(azar);
+        String clave = Base64.getUrlEncoder().withoutPadding().encodeToString(azar);
+
+        Path carpeta = prepararCarpeta();
+        Path temporal = Files.createTempFile(carpeta, NOMBRE_CLAVE, ".tmp");
+        try {
+            Files.write(temporal, clave.getBytes(StandardCharsets.UTF_8));
+            Files.move(temporal, rutaClave(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(temporal);
+            throw e;
+        }
+        return clave;
+    }
+
+    /**
+     * Clave de la instancia abierta (la lee ClienteAgenda antes de enviar comandos).
+     */
+    static String leerClave() throws IOException {
+        try {
+            return new String(Files.readAllBytes(rutaClave()), StandardCharsets.UTF_8).trim();
+        } catch (NoSuchFileException e) {
+            throw new IOException("no está la clave del canal de comandos (" + rutaClave() + ")", e);
+        }
+    }
+
+    /**
+     * Crea ~/.deskagenda con permisos 700 (desde el primer momento, no con
+     * un chmod después). Si ya existía, tiene que ser una carpeta de este
+     * usuario (no un enlace) y se le quitan los permisos de más.
+     * En Windows (sin permisos POSIX) alcanza con que esté dentro de la
+     * carpeta del usuario.
+     */
+    static Path prepararCarpeta() throws IOException {
+        Path carpeta = carpeta();
+        if (!carpeta.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            return Files.createDirectories(carpeta);
+        }
+        try {
+            Files.createDirectory(carpeta, PosixFilePermissions.asFileAttribute(SOLO_USUARIO));
+            return carpeta;
+        } catch (FileAlreadyExistsException e) {
+            // Ya estaba (de otra vez que se abrió la agenda): revisarla
+        }
+        PosixFileAttributes atributos = Files.readAttributes(carpeta, PosixFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        UserPrincipal usuario = carpeta.getFileSystem().getUserPrincipalLookupService()
+                .lookupPrincipalByName(System.getProperty("user.name"));
+        if (!atributos.isDirectory() || !atributos.owner().equals(usuario)) {
+            throw new IOException(carpeta + " no es una carpeta del usuario");
+        }
+        if (!atributos.permissions().equals(SOLO_USUARIO)) {
+            Files.setPosixFilePermissions(carpeta, SOLO_USUARIO);
+        }
+        return carpeta;
+    }
+
+    /**
+     * Abre el canal donde escucha la instancia: Unix si se puede, si no TCP.
+     * Se llama teniendo el bloqueo, así que un archivo de socket que quedó
+     * de antes (la aplicación se cortó) se puede borrar.
+     */
+    static ServerSocketChannel abrirServidor(int puerto) throws IOException {
+        if (unixDisponible()) {
+            try {
+                prepararCarpeta();
+                return abrirServidorUnix(rutaSocket());
+            } catch (IOException e) {
+                System.err.println("No se pudo abrir el socket Unix, se usa TCP: " + e.getMessage());
+            }
+        }
+        return abrirServidorTcp(puerto);
+    }
+
+    /**
+     * Escucha en el socket Unix indicado. Tiene que estar dentro de una
+     * carpeta que solo pueda abrir el usuario (ver prepararCarpeta): el
+     * socket se crea con los permisos por defecto (umask).
+     */
+    static ServerSocketChannel abrirServidorUnix(Path ruta) throws IOException {
+        Files.deleteIfExists(ruta);
+        ServerSocketChannel canal = (ServerSocketChannel) invocar(SERVIDOR_POR_FAMILIA, FAMILIA_UNIX);
+        try {
+            canal.bind(direccionUnix(ruta));
+            return canal;
+        } catch (IOException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    static ServerSocketChannel abrirServidorTcp(int puerto) throws IOException {
+        ServerSocketChannel canal = ServerSocketChannel.open();
+        try {
+            canal.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), puerto), 50);
+            return canal;
+        } catch (IOException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Se conecta a la instancia abierta (canal bloqueante): por el socket
+     * Unix si existe, si no (o si falla) por TCP.
+     */
+    static SocketChannel conectar(int puerto) throws IOException {
+        Path ruta = rutaSocket();
+        if (unixDisponible() && Files.exists(ruta)) {
+            try {
+                return conectarUnix(ruta);
+            } catch (IOException e) {
+                // Archivo viejo o instancia que escucha por TCP: probar TCP
+            }
+        }
+        return conectarTcp(puerto);
+    }
+
+    static SocketChannel conectarUnix(Path ruta) throws IOException {
+        SocketChannel canal = (SocketChannel) invocar(CLIENTE_POR_FAMILIA, FAMILIA_UNIX);
+        try {
+            canal.connect(direccionUnix(ruta));
+            return canal;
+        } catch (IOException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    static SocketChannel conectarTcp(int puerto) throws IOException {
+        return SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), puerto));
+    }
+
+    /**
+     * Si el canal (de un servidor abierto con esta clase) es un socket Unix.
+     */
+    static boolean esUnix(ServerSocketChannel canal) throws IOException {
+        return !(canal.getLocalAddress() instanceof InetSocketAddress);
+    }
+
+    /**
+     * Borra el archivo del socket Unix (al cerrar la instancia).
+     */
+    static void borrarSocket() {
+        try {
+            Files.deleteIfExists(rutaSocket());
+        } catch (IOException e) {
+            System.err.println("No se pudo borrar el socket: " + e.getMessage());
+        }
+    }
+
+    // === REFLEXIÓN ===
+
+    private static SocketAddress direccionUnix(Path ruta) throws IOException {
+        return (SocketAddress) invocar(DIRECCION_UNIX, ruta);
+    }
+
+    private static Object invocar(Method metodo, Object argumento) throws IOException {
+        if (metodo == null) {
+            throw new IOException("Este Java no tiene sockets Unix");
+        }
+        try {
+            return metodo.invoke(null, argumento);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static ProtocolFamily buscarFamiliaUnix() {
+        try {
+            return StandardProtocolFamily.valueOf("UNIX");
+        } catch (IllegalArgumentException e) {
+            return null; // Java 11 a 15
+        }
+    }
+
+    private static Method buscarMetodo(String clase, String nombre, Class<?> parametro) {
+        try {
+            return Class.forName(clase).getMethod(nombre, parametro);
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -1,11 +1,27 @@
 package persistencia;
 
 import logica.Tarea;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 public interface IRepositorioTareas {
+    // guardarTareas y los avisos de abajo lanzan UncheckedIOException si no pudieron
+    // escribir (RepositorioDiferido deja el cambio pendiente y lo reintenta).
+    // RepositorioMapeado, que GestorTareas usa sin RepositorioDiferido, solo lo informa.
     void guardarTareas(List<Tarea> tareas);
     List<Tarea> cargarTareas();
     void exportarTareas(List<Tarea> tareas, String archivo);
     List<Tarea> importarTareas(String archivo);
+
+    // Avisos de cambios puntuales (la tarea se identifica por su id). Por defecto
+    // se reescribe todo el archivo; los repositorios con journal solo registran el cambio.
+    default void registrarAgregada(Collection<Tarea> tareas, Tarea tarea) { guardarTareas(new ArrayList<>(tareas)); }
+    default void registrarActualizada(Collection<Tarea> tareas, Tarea tarea) { guardarTareas(new ArrayList<>(tareas)); }
+    // Varias tareas cambiadas a la vez (por ejemplo, alertas atrasadas): un solo guardado
+    default void registrarActualizadas(Collection<Tarea> tareas, Collection<Tarea> cambiadas) { guardarTareas(new ArrayList<>(tareas)); }
+    default void registrarEliminada(Collection<Tarea> tareas, Tarea tarea) { guardarTareas(new ArrayList<>(tareas)); }
+    // true si los avisos de arriba escriben solo el cambio. Si no, quien junta varios
+    // cambios (RepositorioDiferido) hace un solo guardarTareas en vez de uno por aviso.
+    default boolean registraCambiosPuntuales() { return false; }
 }
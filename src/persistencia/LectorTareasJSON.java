@@ -0,0 +1,458 @@
+/*
+ * DeskAgenda - Lectura de JSON en una sola pasada
+ *
+ * Lee el JSON de tareas directamente desde un Reader, sin cargar el archivo
+ * completo en memoria ni partirlo en cadenas intermedias.
+ */
+package persistencia;
+
+// === IMPORTS DE LÓGICA ===
+import logica.Tarea;                    // Estructura de datos de una tarea
+
+// === IMPORTS DE ENTRADA/SALIDA (I/O) ===
+import java.io.EOFException;            // Fin de archivo inesperado (JSON cortado)
+import java.io.IOException;             // Errores de lectura o de formato
+import java.io.Reader;                  // Fuente de caracteres (archivo, texto, etc.)
+
+// === IMPORTS DE FECHA Y HORA ===
+import java.time.DayOfWeek;             // Para días de la semana
+import java.time.LocalDate;             // Para fechas
+import java.time.LocalTime;             // Para horas
+
+// === IMPORTS DE COLECCIONES ===
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * LECTOR DE TAREAS JSON (STREAMING)
+ * =================================
+ *
+ * Tokenizador de una sola pasada con un buffer fijo de caracteres:
+ * - Cada tarea se arma mientras se leen sus campos (sin substrings por objeto)
+ * - La memoria usada es el buffer + la tarea actual, sin importar el tamaño del archivo
+ * - Las claves desconocidas se saltan, así se pueden agregar campos nuevos
+ *
+ * Una tarea con datos inválidos (fecha mal escrita, tipo desconocido) se
+ * descarta y la lectura sigue con la próxima. Un error de estructura
+ * (JSON cortado, llaves sin cerrar) lanza IOException.
+ */
+final class LectorTareasJSON {
+
+    private static final int TAMANO_BUFFER = 8192;
+
+    private final Reader entrada;
+    private final char[] buffer = new char[TAMANO_BUFFER];
+    private int posicion = 0;
+    private int limite = 0;
+
+    // Se reutiliza para todas las cadenas (claves y valores)
+    private final StringBuilder texto = new StringBuilder(64);
+
+    private int tareasSinId = 0; // Tareas de archivos anteriores a los ids (se les genera uno)
+
+    LectorTareasJSON(Reader entrada) {
+        this.entrada = entrada;
+    }
+
+    /**
+     * Lee un arreglo completo de tareas: [ {...}, {...} ].
+     */
+    List<Tarea> leerArreglo() throws IOException {
+        List<Tarea> tareas = new ArrayList<>();
+        esperar('[');
+        while (siguienteElemento(']')) {
+            Tarea tarea = leerTarea();
+            if (tarea != null) {
+                tareas.add(tarea);
+            }
+        }
+        return tareas;
+    }
+
+    /**
+     * Cantidad de tareas leídas que no tenían id (se les asignó uno nuevo).
+     */
+    int getTareasSinId() {
+        return tareasSinId;
+    }
+
+    /**
+     * Indica si hay otro objeto de primer nivel (un registro por línea, como en el journal).
+     */
+    boolean hayMasObjetos() throws IOException {
+        return verSiguiente() != -1;
+    }
+
+    /**
+     * Avanza al próximo elemento de un arreglo u objeto.
+     * Devuelve false al encontrar el cierre indicado.
+     */
+    boolean siguienteElemento(char cierre) throws IOException {
+        int c = verSiguiente();
+        if (c == ',') {
+            posicion++;
+            c = verSiguiente();
+        }
+        if (c == cierre) {
+            posicion++;
+            return false;
+        }
+        if (c == -1) {
+            throw new EOFException("JSON incompleto");
+        }
+        return true;
+    }
+
+    /**
+     * Abre un objeto y lee la primera clave, o devuelve null si está vacío.
+     */
+    String iniciarObjeto() throws IOException {
+        esperar('{');
+        return siguienteClave();
+    }
+
+    /**
+     * Lee la próxima clave del objeto actual (consume también el ':'),
+     * o devuelve null al llegar al '}'.
+     */
+    String siguienteClave() throws IOException {
+        if (!siguienteElemento('}')) {
+            return null;
+        }
+        leerCadena();
+        esperar(':');
+        return texto.toString();
+    }
+
+    /**
+     * Lee un objeto tarea. Devuelve null si algún dato no es válido.
+     */
+    Tarea leerTarea() throws IOException {
+        long id = 0;
+        String nombre = null;
+        LocalDate fecha = null;
+        LocalTime hora = null;
+        Tarea.TipoTarea tipo = null;
+        boolean completada = false;
+        boolean alertaActiva = false;
+        long minutosAntesAlerta = 0;
+        long repeticionesCompletadas = 0;
+        LocalDate fechaUltimaCompletada = null;
+        Set<DayOfWeek> diasSemana = null;
+        boolean valida = true;
+
+        esperar('{');
+        while (siguienteElemento('}')) {
+            leerCadena();
+            esperar(':');
+            try {
+                switch (texto.toString()) {
+                    case "id":
+                        id = leerNumero();
+                        break;
+                    case "nombre":
+                        nombre = leerTexto();
+                        break;
+                    case "fecha":
+                        fecha = leerFecha();
+                        break;
+                    case "hora":
+                        hora = leerHora();
+                        break;
+                    case "tipo":
+                        leerCadenaValor();
+                        tipo = Tarea.TipoTarea.valueOf(texto.toString());
+                        break;
+                    case "completada":
+                        completada = leerBooleano();
+                        break;
+                    case "alertaActiva":
+                        alertaActiva = leerBooleano();
+                        break;
+                    case "minutosAntesAlerta":
+                        minutosAntesAlerta = leerNumero();
+                        break;
+                    case "repeticionesCompletadas":
+                        repeticionesCompletadas = leerNumero();
+                        break;
+                    case "fechaUltimaCompletada":
+                        fechaUltimaCompletada = verSiguiente() == 'n' ? leerNulo() : leerFecha();
+                        break;
+                    case "diasSemana":
+                        diasSemana = leerDiasSemana();
+                        break;
+                    default:
+                        saltarValor();
+                        break;
+                }
+            } catch (RuntimeException e) {
+                // Dato inválido (fecha, hora o tipo): se descarta la tarea pero se sigue leyendo
+                valida = false;
+            }
+        }
+
+        if (!valida || nombre == null || fecha == null || hora == null || tipo == null) {
+            return null;
+        }
+
+        Tarea tarea = new Tarea(nombre, fecha, hora, tipo);
+        if (id > 0) {
+            tarea.setId(id);
+        } else {
+            tareasSinId++;
+        }
+        tarea.setCompletada(completada);
+        tarea.setAlertaActiva(alertaActiva);
+        tarea.setMinutosAntesAlerta((int) minutosAntesAlerta);
+        tarea.setRepeticionesCompletadas((int) repeticionesCompletadas);
+        tarea.setFechaUltimaCompletada(fechaUltimaCompletada);
+        if (diasSemana != null && !diasSemana.isEmpty()) {
+            tarea.setDiasSemana(diasSemana);
+        }
+        return tarea;
+    }
+
+    // === VALORES ===
+
+    /**
+     * Lee un valor de texto ("..."); null si el valor es null.
+     */
+    String leerTexto() throws IOException {
+        if (verSiguiente() == 'n') {
+            return leerNulo();
+        }
+        leerCadenaValor();
+        return texto.toString();
+    }
+
+    long leerNumero() throws IOException {
+        int c = verSiguiente();
+        boolean negativo = false;
+        if (c == '-') {
+            negativo = true;
+            posicion++;
+        }
+        long valor = 0;
+        int digitos = 0;
+        while ((c = leerCaracterOpcional()) >= '0' && c <= '9') {
+            valor = valor * 10 + (c - '0');
+            digitos++;
+        }
+        if (c != -1) {
+            posicion--; // Devolver el caracter que cortó el número
+        }
+        if (digitos == 0) {
+            throw new IOException("Se esperaba un número en la posición " + posicion);
+        }
+        return negativo ? -valor : valor;
+    }
+
+    boolean leerBooleano() throws IOException {
+        int c = verSiguiente();
+        if (c == 't') {
+            esperarPalabra("true");
+            return true;
+        }
+        if (c == '"') {
+            // Compatibilidad: "true"/"false" entre comillas
+            leerCadenaValor();
+            return "true".contentEquals(texto);
+        }
+        esperarPalabra("false");
+        return false;
+    }
+
+    /**
+     * Salta cualquier valor (texto, número, objeto o arreglo anidado).
+     */
+    void saltarValor() throws IOException {
+        int c = verSiguiente();
+        if (c == '"') {
+            leerCadenaValor();
+        } else if (c == '{') {
+            posicion++;
+            while (siguienteElemento('}')) {
+                leerCadena();
+                esperar(':');
+                saltarValor();
+            }
+        } else if (c == '[') {
+            posicion++;
+            while (siguienteElemento(']')) {
+                saltarValor();
+            }
+        } else if (c == -1) {
+            throw new EOFException("JSON incompleto");
+        } else {
+            // Número, true, false o null: hasta el próximo separador
+            while ((c = leerCaracterOpcional()) != -1 && c != ',' && c != '}' && c != ']' && !Character.isWhitespace(c)) {
+                // seguir
+            }
+            if (c != -1) {
+                posicion--;
+            }
+        }
+    }
+
+    private <T> T leerNulo() throws IOException {
+        esperarPalabra("null");
+        return null;
+    }
+
+    /**
+     * Lee una fecha "aaaa-mm-dd" sin crear cadenas intermedias.
+     */
+    private LocalDate leerFecha() throws IOException {
+        leerCadenaValor();
+        if (texto.length() == 10 && texto.charAt(4) == '-' && texto.charAt(7) == '-') {
+            return LocalDate.of(digitos(0, 4), digitos(5, 2), digitos(8, 2));
+        }
+        return LocalDate.parse(texto);
+    }
+
+    /**
+     * Lee una hora "hh:mm" o "hh:mm:ss" sin crear cadenas intermedias.
+     */
+    private LocalTime leerHora() throws IOException {
+        leerCadenaValor();
+        if (texto.length() == 5 && texto.charAt(2) == ':') {
+            return LocalTime.of(digitos(0, 2), digitos(3, 2));
+        }
+        if (texto.length() == 8 && texto.charAt(2) == ':' && texto.charAt(5) == ':') {
+            return LocalTime.of(digitos(0, 2), digitos(3, 2), digitos(6, 2));
+        }
+        return LocalTime.parse(texto);
+    }
+
+    private Set<DayOfWeek> leerDiasSemana() throws IOException {
+        Set<DayOfWeek> dias = EnumSet.noneOf(DayOfWeek.class);
+        if (verSiguiente() == 'n') {
+            return leerNulo();
+        }
+        esperar('[');
+        while (siguienteElemento(']')) {
+            leerCadenaValor();
+            for (DayOfWeek dia : DayOfWeek.values()) {
+                if (dia.name().contentEquals(texto)) {
+                    dias.add(dia); // Los nombres desconocidos se ignoran
+                }
+            }
+        }
+        return dias;
+    }
+
+    private int digitos(int desde, int cantidad) {
+        int valor = 0;
+        for (int i = desde; i < desde + cantidad; i++) {
+            char c = texto.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException("Dígito inválido: " + texto);
+            }
+            valor = valor * 10 + (c - '0');
+        }
+        return valor;
+    }
+
+    // === TOKENIZADOR ===
+
+    /**
+     * Lee una cadena entre comillas en el StringBuilder compartido.
+     */
+    private void leerCadena() throws IOException {
+        if (verSiguiente() != '"') {
+            throw new IOException("Se esperaba '\"' en la posición " + posicion);
+        }
+        leerCadenaValor();
+    }
+
+    private void leerCadenaValor() throws IOException {
+        esperar('"');
+        texto.setLength(0);
+        while (true) {
+            int c = leerCaracter();
+            if (c == '"') {
+                return;
+            }
+            if (c == '\\') {
+                c = leerCaracter();
+                switch (c) {
+                    case 'n': texto.append('\n'); break;
+                    case 'r': texto.append('\r'); break;
+                    case 't': texto.append('\t'); break;
+                    case 'b': texto.append('\b'); break;
+                    case 'f': texto.append('\f'); break;
+                    case 'u':
+                        int codigo = 0;
+                        for (int i = 0; i < 4; i++) {
+                            codigo = (codigo << 4) | Character.digit(leerCaracter(), 16);
+                        }
+                        texto.append((char) codigo);
+                        break;
+                    default: texto.append((char) c); break; // \" \\ \/
+                }
+            } else {
+                texto.append((char) c);
+            }
+        }
+    }
+
+    private void esperar(char esperado) throws IOException {
+        int c = verSiguiente();
+        if (c != esperado) {
+            throw new IOException("Se esperaba '" + esperado + "' en la posición " + posicion);
+        }
+        posicion++;
+    }
+
+    private void esperarPalabra(String palabra) throws IOException {
+        verSiguiente();
+        for (int i = 0; i < palabra.length(); i++) {
+            if (leerCaracter() != palabra.charAt(i)) {
+                throw new IOException("Se esperaba '" + palabra + "'");
+            }
+        }
+    }
+
+    /**
+     * Salta espacios y devuelve el próximo caracter sin consumirlo (-1 al final).
+     */
+    private int verSiguiente() throws IOException {
+        while (true) {
+            if (posicion >= limite && !llenarBuffer()) {
+                return -1;
+            }
+            char c = buffer[posicion];
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t' && c != '\uFEFF') {
+                return c;
+            }
+            posicion++;
+        }
+    }
+
+    private int leerCaracter() throws IOException {
+        int c = leerCaracterOpcional();
+        if (c == -1) {
+            throw new EOFException("JSON incompleto");
+        }
+        return c;
+    }
+
+    private int leerCaracterOpcional() throws IOException {
+        if (posicion >= limite && !llenarBuffer()) {
+            return -1;
+        }
+        return buffer[posicion++];
+    }
+
+    private boolean llenarBuffer() throws IOException {
+        int leidos = entrada.read(buffer, 0, buffer.length);
+        if (leidos <= 0) {
+            return false;
+        }
+        posicion = 0;
+        limite = leidos;
+        return true;
+    }
+}
@@ -0,0 +1,331 @@
+/*
+ * DeskAgenda - Persistencia en formato binario
+ *
+ * Alternativa compacta a RepositorioJSON para agendas grandes.
+ * El JSON se sigue usando para exportar e importar.
+ */
+package persistencia;
+
+// === IMPORTS DE LÓGICA ===
+import logica.Tarea;                    // Estructura de datos de una tarea
+
+// === IMPORTS DE ENTRADA/SALIDA (I/O) ===
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+// === IMPORTS DE FECHA Y HORA ===
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+// === IMPORTS DE COLECCIONES ===
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * REPOSITORIO BINARIO
+ * ===================
+ *
+ * Guarda las tareas en tareas.dat (junto a tareas.json) con un formato
+ * binario versionado:
+ *
+ *  CABECERA:  "DAGB" | versión (short) | cantidad de tareas (int)
+ *  NOMBRES:   cantidad (int) | [largo (int) + bytes UTF-8] ...  ← cada nombre una sola vez
+ *  TAREAS:    por cada una:
+ *               id (long, desde la versión 2)
+ *               índice de nombre (int)
+ *               fecha (int, días desde 1970-01-01)
+ *               hora (short, minuto del día)
+ *               tipo (byte, ordinal) | flags (byte) | díasSemana (byte, bit 0 = lunes)
+ *               segundos antes de la alerta (int) | repeticiones (int)
+ *               fechaUltimaCompletada (int, solo si el flag está activo)
+ *  CIERRE:    CRC32 de todo lo anterior (long)
+ *
+ * La hora se guarda al minuto (igual que se muestra y se edita en la agenda).
+ * Los archivos de la versión 1 (sin id) se leen y se reescriben en la versión actual.
+ *
+ * SEGURIDAD:
+ *  Se escribe a tareas.dat.tmp, el archivo anterior pasa a tareas.dat.bak
+ *  y el temporal se renombra. Si al cargar tareas.dat no existe o el CRC no
+ *  coincide, se usa tareas.dat.bak. Si no hay ninguno, se migra tareas.json.
+ */
+public class RepositorioBinario implements IRepositorioTareas {
+
+    private static final int MAGIA = 0x44414742; // "DAGB"
+    private static final short VERSION = 2;
+    private static final short VERSION_SIN_ID = 1;
+
+    // Flags de cada tarea (también los usa RepositorioMapeado)
+    static final int FLAG_COMPLETADA = 1;
+    static final int FLAG_ALERTA = 1 << 1;
+    static final int FLAG_ULTIMA_COMPLETADA = 1 << 2;
+
+    static final Tarea.TipoTarea[] TIPOS = Tarea.TipoTarea.values();
+    private static final DayOfWeek[] DIAS = DayOfWeek.values();
+
+    private final String archivo;
+    private final RepositorioJSON formatoIntercambio = new RepositorioJSON(false); // Exportar/importar/migrar
+    private long huellaGuardada = -1; // CRC32 del último contenido escrito o leído
+    private boolean formatoAnterior = false; // Lo último leído era de la versión 1
+
+    /**
+     * Usa tareas.dat en la misma carpeta que tareas.json.
+     */
+    public RepositorioBinario() {
+        String rutaJSON = formatoIntercambio.obtenerRutaArchivoTareas();
+        int puntoIndex = rutaJSON.lastIndexOf('.');
+        this.archivo = (puntoIndex > 0 ? rutaJSON.substring(0, puntoIndex) : rutaJSON) + ".dat";
+    }
+
+    public RepositorioBinario(String archivo) {
+        this.archivo = archivo;
+    }
+
+    @Override
+    public void guardarTareas(List<Tarea> tareas) {
+        try {
+            byte[] contenido = serializar(tareas);
+            long huella = leerHuella(contenido);
+            if (huella == huellaGuardada) {
+                return; // Sin cambios desde el último guardado
+            }
+
+            File temporal = new File(archivo + ".tmp");
+            try (OutputStream salida = new FileOutputStream(temporal)) {
+                salida.write(contenido);
+            }
+            File principal = new File(archivo);
+            if (principal.exists()) {
+                Files.move(principal.toPath(), new File(archivo + ".bak").toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.move(temporal.toPath(), principal.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            huellaGuardada = huella;
+        } catch (IOException e) {
+            // Quien guarda se entera (RepositorioDiferido lo reintenta)
+            throw new UncheckedIOException("Error al guardar tareas en formato binario: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<Tarea> cargarTareas() {
+        List<Tarea> tareas = intentarCargar(new File(archivo));
+        if (tareas == null) {
+            tareas = intentarCargar(new File(archivo + ".bak"));
+        }
+        if (tareas == null) {
+            // Primera vez: migrar desde el JSON existente (si lo hay)
+            tareas = formatoIntercambio.cargarTareas();
+            if (!tareas.isEmpty()) {
+                guardarAlCargar(tareas);
+            }
+        } else if (formatoAnterior) {
+            guardarAlCargar(tareas); // Fija los ids recién generados
+        }
+        return tareas;
+    }
+
+    /**
+     * Guardado durante la carga: si falla, las tareas se cargan igual y se
+     * vuelve a intentar en el próximo guardado.
+     */
+    private void guardarAlCargar(List<Tarea> tareas) {
+        try {
+            guardarTareas(tareas);
+        } catch (UncheckedIOException e) {
+            System.err.println(e.getMessage());
+        }
+    }
+
+    @Override
+    public void exportarTareas(List<Tarea> tareas, String archivo) {
+        formatoIntercambio.exportarTareas(tareas, archivo);
+    }
+
+    @Override
+    public List<Tarea> importarTareas(String archivo) {
+        return formatoIntercambio.importarTareas(archivo);
+    }
+
+    /**
+     * Ruta de tareas.dat.
+     */
+    public String obtenerRutaArchivoTareas() {
+        return archivo;
+    }
+
+    // === FORMATO ===
+
+    private byte[] serializar(List<Tarea> tareas) throws IOException {
+        // Tabla de nombres: cada nombre distinto se guarda una sola vez
+        Map<String, Integer> indicePorNombre = new HashMap<>();
+        List<String> nombres = new ArrayList<>();
+        int[] indices = new int[tareas.size()];
+        for (int i = 0; i < tareas.size(); i++) {
+            String nombre = tareas.get(i).getNombre();
+            Integer indice = indicePorNombre.get(nombre);
+            if (indice == null) {
+                indice = nombres.size();
+                indicePorNombre.put(nombre, indice);
+                nombres.add(nombre);
+            }
+            indices[i] = indice;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32 + tareas.size() * 32);
+        CheckedOutputStream conHuella = new CheckedOutputStream(bytes, new CRC32());
+        DataOutputStream salida = new DataOutputStream(conHuella);
+        salida.writeInt(MAGIA);
+        salida.writeShort(VERSION);
+        salida.writeInt(tareas.size());
+
+        salida.writeInt(nombres.size());
+        for (String nombre : nombres) {
+            byte[] utf8 = nombre.getBytes(StandardCharsets.UTF_8);
+            salida.writeInt(utf8.length);
+            salida.write(utf8);
+        }
+
+        for (int i = 0; i < tareas.size(); i++) {
+            Tarea tarea = tareas.get(i);
+            int flags = (tarea.isCompletada() ? FLAG_COMPLETADA : 0)
+                    | (tarea.isAlertaActiva() ? FLAG_ALERTA : 0)
+                    | (tarea.getFechaUltimaCompletada() != null ? FLAG_ULTIMA_COMPLETADA : 0);
+            salida.writeLong(tarea.getId());
+            salida.writeInt(indices[i]);
+            salida.writeInt((int) tarea.getFecha().toEpochDay());
+            salida.writeShort(tarea.getHora().getHour() * 60 + tarea.getHora().getMinute());
+            salida.writeByte(tarea.getTipo().ordinal());
+            salida.writeByte(flags);
+            salida.writeByte(mascaraDias(tarea.getDiasSemana()));
+            salida.writeInt(tarea.getSegundosAntesAlerta());
+            salida.writeInt(tarea.getRepeticionesCompletadas());
+            if (tarea.getFechaUltimaCompletada() != null) {
+                salida.writeInt((int) tarea.getFechaUltimaCompletada().toEpochDay());
+            }
+        }
+
+        salida.flush();
+        new DataOutputStream(bytes).writeLong(conHuella.getChecksum().getValue());
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Lee un archivo binario. Devuelve null si no existe o está dañado.
+     */
+    private List<Tarea> intentarCargar(File origen) {
+        if (!origen.exists()) {
+            return null;
+        }
+        try {
+            byte[] contenido = Files.readAllBytes(origen.toPath());
+            if (contenido.length < 8) {
+                return null;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(contenido, 0, contenido.length - 8);
+            long huella = leerHuella(contenido);
+            if (crc.getValue() != huella) {
+                System.err.println("Archivo binario dañado (CRC no coincide): " + origen.getName());
+                return null;
+            }
+
+            List<Tarea> tareas = deserializar(ByteBuffer.wrap(contenido, 0, contenido.length - 8));
+            huellaGuardada = huella;
+            return tareas;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error al leer " + origen.getName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private List<Tarea> deserializar(ByteBuffer entrada) throws IOException {
+        try {
+            if (entrada.getInt() != MAGIA) {
+                throw new IOException("no es un archivo de DeskAgenda");
+            }
+            short version = entrada.getShort();
+            if (version != VERSION && version != VERSION_SIN_ID) {
+                throw new IOException("versión de formato no soportada: " + version);
+            }
+            formatoAnterior = version == VERSION_SIN_ID;
+            int cantidad = entrada.getInt();
+
+            String[] nombres = new String[entrada.getInt()];
+            for (int i = 0; i < nombres.length; i++) {
+                int largo = entrada.getInt();
+                nombres[i] = new String(entrada.array(), entrada.position(), largo, StandardCharsets.UTF_8);
+                entrada.position(entrada.position() + largo);
+            }
+
+            List<Tarea> tareas = new ArrayList<>(cantidad);
+            for (int i = 0; i < cantidad; i++) {
+                long id = formatoAnterior ? 0 : entrada.getLong();
+                String nombre = nombres[entrada.getInt()];
+                LocalDate fecha = LocalDate.ofEpochDay(entrada.getInt());
+                int minutoDelDia = entrada.getShort();
+                Tarea.TipoTarea tipo = TIPOS[entrada.get()];
+                int flags = entrada.get();
+                int dias = entrada.get();
+
+                Tarea tarea = new Tarea(nombre, fecha, LocalTime.of(minutoDelDia / 60, minutoDelDia % 60), tipo);
+                if (id > 0) {
+                    tarea.setId(id);
+                }
+                tarea.setCompletada((flags & FLAG_COMPLETADA) != 0);
+                tarea.setAlertaActiva((flags & FLAG_ALERTA) != 0);
+                tarea.setSegundosAntesAlerta(entrada.getInt());
+                tarea.setRepeticionesCompletadas(entrada.getInt());
+                if ((flags & FLAG_ULTIMA_COMPLETADA) != 0) {
+                    tarea.setFechaUltimaCompletada(LocalDate.ofEpochDay(entrada.getInt()));
+                }
+                if (dias != 0) {
+                    tarea.setDiasSemana(diasDesdeMascara(dias));
+                }
+                tareas.add(tarea);
+            }
+            return tareas;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("archivo incompleto");
+        }
+    }
+
+    private static long leerHuella(byte[] contenido) {
+        return ByteBuffer.wrap(contenido, contenido.length - 8, 8).getLong();
+    }
+
+    static int mascaraDias(Set<DayOfWeek> dias) {
+        int mascara = 0;
+        if (dias != null) {
+            for (DayOfWeek dia : dias) {
+                mascara |= 1 << dia.ordinal();
+            }
+        }
+        return mascara;
+    }
+
+    static Set<DayOfWeek> diasDesdeMascara(int mascara) {
+        Set<DayOfWeek> dias = EnumSet.noneOf(DayOfWeek.class);
+        for (DayOfWeek dia : DIAS) {
+            if ((mascara & (1 << dia.ordinal())) != 0) {
+                dias.add(dia);
+            }
+        }
+        return dias;
+    }
+}
@@ -0,0 +1,388 @@
+/*
+ * DeskAgenda - Guardado en segundo plano
+ *
+ * Envuelve a otro repositorio y hace las escrituras en un hilo propio,
+ * agrupando los cambios que llegan seguidos en una sola escritura.
+ */
+package persistencia;
+
+// === IMPORTS DE LÓGICA ===
+import logica.Tarea;                    // Estructura de datos de una tarea
+
+// === IMPORTS DE CONCURRENCIA ===
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// === IMPORTS DE COLECCIONES ===
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * REPOSITORIO DIFERIDO - ESCRITURA AGRUPADA FUERA DEL EDT
+ * =======================================================
+ *
+ * Antes cada cambio escribía el archivo en el momento, en el hilo de la
+ * interfaz (EDT). Ahora:
+ *
+ * 1. Cada aviso de cambio copia SOLO lo necesario (la tarea cambiada, o la
+ *    lista completa si se pide un guardado completo) y vuelve enseguida
+ * 2. El primer cambio programa una escritura para dentro de "ventanaMs"
+ * 3. Todo lo que llegue en esa ventana se escribe junto, en el hilo
+ *    "deskagenda-guardado"
+ * 4. Un guardado completo reemplaza a los cambios puntuales anteriores
+ * 5. Si el repositorio real no tiene escritura por cambio (por ejemplo,
+ *    RepositorioBinario: cada aviso reescribiría tareas.dat), toda la
+ *    ventana se escribe con un solo guardarTareas
+ *
+ * El hilo de guardado mantiene su propia copia de las tareas ("espejo",
+ * por id), que es la que se le pasa al repositorio real: así nunca lee
+ * tareas que la interfaz está modificando.
+ *
+ * Al cerrar la aplicación hay que llamar a cerrar() (o flush()) para no
+ * perder la última ventana.
+ *
+ * Si una escritura falla (el repositorio real lanza una excepción, por
+ * ejemplo UncheckedIOException con el disco lleno), lo que no se pudo
+ * escribir queda pendiente como un guardado completo del espejo y se
+ * reintenta a los REINTENTO_MS (o antes, con flush() o cerrar()). Mientras
+ * tanto awaitPersisted() y flush() devuelven false: no se informa como
+ * guardado algo que no llegó al disco.
+ */
+public class RepositorioDiferido implements IRepositorioTareas {
+
+    // Ventana por defecto: se puede cambiar con -Ddeskagenda.guardado.ventanaMs=...
+    public static final long VENTANA_POR_DEFECTO_MS = Long.getLong("deskagenda.guardado.ventanaMs", 500);
+    // Espera antes de reintentar una escritura que falló (-Ddeskagenda.guardado.reintentoMs=...)
+    static final long REINTENTO_MS = Long.getLong("deskagenda.guardado.reintentoMs", 5_000);
+
+    private enum TipoCambio { AGREGADA, ACTUALIZADA, ELIMINADA }
+
+    /** Cambio puntual pendiente (con copia de la tarea al momento del aviso). */
+    private static final class Cambio {
+        final TipoCambio tipo;
+        final Tarea tarea;
+
+        Cambio(TipoCambio tipo, Tarea tarea) {
+            this.tipo = tipo;
+            this.tarea = tarea;
+        }
+    }
+
+    private final IRepositorioTareas destino;   // Repositorio que escribe de verdad
+    private final long ventanaMs;               // Tiempo que se esperan más cambios antes de escribir
+    private final ScheduledExecutorService escritor;
+
+    // === PENDIENTES (protegidos por this) ===
+    private List<Tarea> guardadoCompletoPendiente;       // Última lista pedida en guardarTareas()
+    private final List<Cambio> cambiosPendientes = new ArrayList<>();
+    private boolean escrituraProgramada = false;
+    private long generacionSolicitada = 0;      // Se incrementa en cada aviso
+    private long generacionPersistida = 0;      // Última generación escrita
+    private long generacionFallida = 0;         // Última generación cuya escritura falló (0 = ninguna)
+
+    // === SOLO EN EL HILO DE GUARDADO ===
+    private Map<Long, Tarea> espejo = new LinkedHashMap<>();
+
+    public RepositorioDiferido(IRepositorioTareas destino) {
+        this(destino, VENTANA_POR_DEFECTO_MS);
+    }
+
+    public RepositorioDiferido(IRepositorioTareas destino, long ventanaMs) {
+        this.destino = destino;
+        this.ventanaMs = Math.max(0, ventanaMs);
+        this.escritor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "deskagenda-guardado");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+
+    /**
+     * Devuelve el repositorio que hace las escrituras reales.
+     */
+    public IRepositorioTareas getDestino() {
+        return destino;
+    }
+
+    @Override
+    public List<Tarea> cargarTareas() {
+        flush();
+        // También se carga en el hilo de guardado: el repositorio real lo usa un solo hilo
+        List<Tarea> tareas = ejecutarEnEscritor(() -> {
+            List<Tarea> cargadas = destino.cargarTareas();
+            espejo = porId(copiar(cargadas));
+            return cargadas;
+        });
+        return tareas != null ? tareas : new ArrayList<>();
+    }
+
+    @Override
+    public void guardarTareas(List<Tarea> tareas) {
+        List<Tarea> copia = copiar(tareas);
+        synchronized (this) {
+            guardadoCompletoPendiente = copia;
+            cambiosPendientes.clear(); // Ya están incluidos en la lista completa
+            marcarPendiente();
+        }
+    }
+
+    @Override
+    public void registrarAgregada(Collection<Tarea> tareas, Tarea tarea) {
+        agregarCambio(new Cambio(TipoCambio.AGREGADA, tarea.copiar()));
+    }
+
+    @Override
+    public void registrarActualizada(Collection<Tarea> tareas, Tarea tarea) {
+        agregarCambio(new Cambio(TipoCambio.ACTUALIZADA, tarea.copiar()));
+    }
+
+    @Override
+    public void registrarActualizadas(Collection<Tarea> tareas, Collection<Tarea> cambiadas) {
+        List<Cambio> cambios = new ArrayList<>(cambiadas.size());
+        for (Tarea tarea : cambiadas) {
+            cambios.add(new Cambio(TipoCambio.ACTUALIZADA, tarea.copiar()));
+        }
+        synchronized (this) {
+            cambiosPendientes.addAll(cambios);
+            marcarPendiente();
+        }
+    }
+
+    @Override
+    public void registrarEliminada(Collection<Tarea> tareas, Tarea tarea) {
+        agregarCambio(new Cambio(TipoCambio.ELIMINADA, tarea.copiar()));
+    }
+
+    @Override
+    public void exportarTareas(List<Tarea> tareas, String archivo) {
+        destino.exportarTareas(tareas, archivo);
+    }
+
+    @Override
+    public List<Tarea> importarTareas(String archivo) {
+        return destino.importarTareas(archivo);
+    }
+
+    /**
+     * Escribe ya todo lo pendiente y espera a que termine.
+     *
+     * @return false si la escritura falló (queda pendiente) o no se pudo hacer
+     */
+    public boolean flush() {
+        Boolean escrito = ejecutarEnEscritor(() -> {
+            escribirPendientes();
+            synchronized (this) {
+                return generacionPersistida >= generacionSolicitada;
+            }
+        });
+        return Boolean.TRUE.equals(escrito);
+    }
+
+    /**
+     * Espera a que se escriba todo lo avisado hasta ahora (sin adelantar la ventana).
+     *
+     * @return true si se escribió antes de que venza el tiempo de espera;
+     *         false también si la escritura falló
+     */
+    public synchronized boolean awaitPersisted(long timeoutMs) throws InterruptedException {
+        long objetivo = generacionSolicitada;
+        long limite = System.currentTimeMillis() + timeoutMs;
+        while (generacionPersistida < objetivo) {
+            if (generacionFallida >= objetivo) {
+                return false;
+            }
+            long restante = limite - System.currentTimeMillis();
+            if (restante <= 0) {
+                return false;
+            }
+            wait(restante);
+        }
+        return true;
+    }
+
+    /**
+     * Escribe lo pendiente y detiene el hilo de guardado.
+     */
+    public void cerrar() {
+        if (!escritor.isShutdown()) {
+            if (!flush()) {
+                System.err.println("No se pudieron guardar los últimos cambios de las tareas");
+            }
+            escritor.shutdown();
+        }
+    }
+
+    private void agregarCambio(Cambio cambio) {
+        synchronized (this) {
+            cambiosPendientes.add(cambio);
+            marcarPendiente();
+        }
+    }
+
+    /**
+     * Llamar con el lock tomado. Programa la escritura si no había una en camino.
+     */
+    private void marcarPendiente() {
+        generacionSolicitada++;
+        if (!escrituraProgramada && !escritor.isShutdown()) {
+            escrituraProgramada = true;
+            escritor.schedule(this::escribirPendientes, ventanaMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Se ejecuta en el hilo de guardado: toma todo lo pendiente y lo escribe.
+     */
+    private void escribirPendientes() {
+        List<Tarea> completo;
+        List<Cambio> cambios;
+        long generacion;
+        synchronized (this) {
+            completo = guardadoCompletoPendiente;
+            cambios = new ArrayList<>(cambiosPendientes);
+            generacion = generacionSolicitada;
+            guardadoCompletoPendiente = null;
+            cambiosPendientes.clear();
+            escrituraProgramada = false;
+        }
+
+        try {
+            if (completo != null) {
+                espejo = porId(completo);
+            }
+            if (!destino.registraCambiosPuntuales()) {
+                if (completo != null || !cambios.isEmpty()) {
+                    aplicarEnEspejo(cambios);
+                    destino.guardarTareas(new ArrayList<>(espejo.values()));
+                }
+            } else {
+                if (completo != null) {
+                    destino.guardarTareas(completo);
+                }
+                aplicarCambios(cambios);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Error al guardar tareas en segundo plano: " + e.getMessage());
+            // No se sabe qué parte llegó al disco: queda pendiente el estado
+            // completo, con todos los cambios de esta tanda
+            aplicarEnEspejo(cambios);
+            List<Tarea> reintento = new ArrayList<>(espejo.values());
+            synchronized (this) {
+                if (guardadoCompletoPendiente == null) {
+                    guardadoCompletoPendiente = reintento;
+                    // Los cambios que llegaron mientras tanto van después del reintento
+                }
+                generacionFallida = Math.max(generacionFallida, generacion);
+                notifyAll();
+                // Reintentar aunque no llegue ningún cambio más
+                if (!escrituraProgramada && !escritor.isShutdown()) {
+                    escrituraProgramada = true;
+                    escritor.schedule(this::escribirPendientes, REINTENTO_MS, TimeUnit.MILLISECONDS);
+                }
+            }
+            return;
+        }
+
+        synchronized (this) {
+            generacionPersistida = Math.max(generacionPersistida, generacion);
+            notifyAll();
+        }
+    }
+
+    /**
+     * Deja el espejo como queda después de los cambios, sin escribir nada.
+     * Repetir cambios que ya se aplicaron no altera el resultado.
+     */
+    private void aplicarEnEspejo(List<Cambio> cambios) {
+        for (Cambio cambio : cambios) {
+            if (cambio.tipo == TipoCambio.ELIMINADA) {
+                espejo.remove(cambio.tarea.getId());
+            } else {
+                espejo.put(cambio.tarea.getId(), cambio.tarea);
+            }
+        }
+    }
+
+    /**
+     * Aplica los cambios en orden. Las actualizaciones seguidas se pasan
+     * juntas al repositorio real (una sola escritura del journal o un solo guardado).
+     */
+    private void aplicarCambios(List<Cambio> cambios) {
+        int i = 0;
+        while (i < cambios.size()) {
+            int fin = i;
+            while (fin < cambios.size() && cambios.get(fin).tipo == TipoCambio.ACTUALIZADA) {
+                fin++;
+            }
+            if (fin - i > 1) {
+                List<Tarea> actualizadas = new ArrayList<>(fin - i);
+                for (Cambio cambio : cambios.subList(i, fin)) {
+                    espejo.put(cambio.tarea.getId(), cambio.tarea);
+                    actualizadas.add(cambio.tarea);
+                }
+                destino.registrarActualizadas(espejo.values(), actualizadas);
+                i = fin;
+            } else {
+                aplicarCambio(cambios.get(i));
+                i++;
+            }
+        }
+    }
+
+    private void aplicarCambio(Cambio cambio) {
+        long id = cambio.tarea.getId();
+        switch (cambio.tipo) {
+            case AGREGADA:
+                espejo.put(id, cambio.tarea);
+                destino.registrarAgregada(espejo.values(), cambio.tarea);
+                break;
+            case ACTUALIZADA:
+                espejo.put(id, cambio.tarea); // Mantiene la posición
+                destino.registrarActualizada(espejo.values(), cambio.tarea);
+                break;
+            case ELIMINADA:
+                espejo.remove(id);
+                destino.registrarEliminada(espejo.values(), cambio.tarea);
+                break;
+        }
+    }
+
+    /**
+     * Ejecuta una tarea en el hilo de guardado y espera su resultado.
+     */
+    private <T> T ejecutarEnEscritor(Callable<T> accion) {
+        if (escritor.isShutdown()) {
+            return null;
+        }
+        try {
+            return escritor.submit(accion).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.err.println("Error en el hilo de guardado: " + e.getCause());
+        }
+        return null;
+    }
+
+    private static Map<Long, Tarea> porId(List<Tarea> tareas) {
+        Map<Long, Tarea> mapa = new LinkedHashMap<>();
+        for (Tarea tarea : tareas) {
+            mapa.put(tarea.getId(), tarea);
+        }
+        return mapa;
+    }
+
+    private static List<Tarea> copiar(List<Tarea> tareas) {
+        List<Tarea> copia = new ArrayList<>(tareas.size());
+        for (Tarea tarea : tareas) {
+            copia.add(tarea.copiar());
+        }
+        return copia;
+    }
+}
@@ -14,6 +14,9 @@ import java.io.*;                       // Para leer y escribir archivos
 import java.nio.charset.StandardCharsets; // Para usar UTF-8 y evitar problemas de acentos
 import java.nio.file.Files;             // Operaciones avanzadas con archivos
 import java.nio.file.StandardCopyOption; // Para copiar archivos de forma segura
+import java.util.zip.CRC32;             // Huella del archivo principal (para el journal)
+import java.util.zip.CheckedInputStream; // Calcula la huella mientras se lee
+import java.util.zip.CheckedOutputStream; // Calcula la huella mientras se escribe
 
 // === IMPORTS DE FECHA Y HORA ===
 import java.time.LocalDate;             // Para fechas
@@ -39,13 +42,23 @@ import java.util.*;                     // List, ArrayList, Set, etc.
  *  tareas.json          ← ARCHIVO PRINCIPAL (uso diario)
  *  tareas.backup1.json ← BACKUP INMUNE #1 (alternante)
  *  tareas.backup2.json ← BACKUP INMUNE #2 (alternante)
+ *  tareas.journal      ← CAMBIOS DESDE EL ÚLTIMO GUARDADO COMPLETO
  * 
  * FLUJO DE SEGURIDAD:
- *  Al abrir: Backup más reciente → Archivo principal
+ *  Al abrir: Backup más reciente → Archivo principal (+ journal)
  *  Durante uso: Solo lee archivo principal (rápido)
- *  Al guardar: Archivo principal + Backup alternante
+ *  Al cambiar una tarea: Se agrega UNA línea al journal
+ *  Al compactar: Archivo principal + Backup alternante, journal vacío
  *  Backups: Mínima exposición = Inmunes a apagones
  * 
+ * JOURNAL (MODO POR DEFECTO):
+ *  Agregar, editar o eliminar una tarea no reescribe todo el archivo.
+ *  Se agrega un registro por línea al journal, y cada MAX_REGISTROS_JOURNAL
+ *  registros se hace un guardado completo (compactación).
+ *  La primera línea del journal guarda la huella (CRC32) del archivo principal
+ *  sobre el que se aplica: si no coincide (por ejemplo, se cortó la luz justo
+ *  después de compactar) el journal ya está incluido y se ignora.
+ * 
  * ¿POR QUÉ ESTE DISEÑO?
  * - No se pierden datos por cortes de luz
  * - Máximo 1 cambio perdido (casi imposible)
@@ -61,6 +74,34 @@ public class RepositorioJSON implements IRepositorioTareas {
     // Esta variable controla si el próximo backup va a backup1 o backup2
     private static boolean usarBackup1 = true;
 
+    // === JOURNAL DE CAMBIOS ===
+    private static final int MAX_REGISTROS_JOURNAL = 200; // Registros antes de compactar
+    private final boolean usarJournal;        // false = reescribir todo en cada cambio (modo clásico)
+    private int registrosEnJournal = 0;        // Registros escritos desde el último guardado completo
+    private boolean faltabanIds = false;       // El archivo cargado tenía tareas sin id
+    private long huellaArchivoPrincipal = -1;  // CRC32 del archivo principal actual (-1 = desconocida)
+
+    // === MÉTRICAS DE ESCRITURA ===
+    // Se escriben solo desde el hilo que guarda; volatile para poder leerlas desde otro
+    private volatile long guardadosRealizados = 0;   // Guardados completos que escribieron archivos
+    private volatile long guardadosOmitidos = 0;     // Guardados completos sin cambios (no se tocó el disco)
+    private volatile long registrosJournalEscritos = 0; // Líneas agregadas al journal
+
+    /**
+     * Crea el repositorio en modo journal (cada cambio agrega una línea).
+     */
+    public RepositorioJSON() {
+        this(true);
+    }
+
+    /**
+     * @param usarJournal true para registrar cambios en el journal,
+     *                    false para reescribir el archivo completo en cada cambio
+     */
+    public RepositorioJSON(boolean usarJournal) {
+        this.usarJournal = usarJournal;
+    }
+
     /**
      * DETERMINA DÓNDE GUARDAR LOS ARCHIVOS
      * ===================================
@@ -71,7 +112,14 @@ public class RepositorioJSON implements IRepositorioTareas {
      * 
      * Esto permite que el proyecto funcione tanto en NetBeans como cuando
      * se distribuye el JAR a los usuarios.
+     * 
+     * Con -Ddeskagenda.archivo=ruta se usa esa ruta (por ejemplo, los
+     * benchmarks, para no tocar la agenda de desarrollo).
      */private static String obtenerRutaArchivo() {
+        String configurada = System.getProperty("deskagenda.archivo", "");
+        if (!configurada.isEmpty()) {
+            return configurada;
+        }
         // Intentar obtener el directorio donde está el JAR
         try {
             String jarPath = RepositorioJSON.class.getProtectionDomain()
@@ -115,35 +163,158 @@ public class RepositorioJSON implements IRepositorioTareas {
             return rutaBase.substring(0, puntoIndex) + ".backup2.json";
         }
         return rutaBase + ".backup2";
-    }    @Override
+    }
+    
+    /**
+     * Obtiene la ruta del journal de cambios.
+     */
+    private static String obtenerRutaJournal() {
+        String rutaBase = ARCHIVO_TAREAS;
+        int puntoIndex = rutaBase.lastIndexOf('.');
+        if (puntoIndex > 0) {
+            return rutaBase.substring(0, puntoIndex) + ".journal";
+        }
+        return rutaBase + ".journal";
+    }
+
+    @Override
     public void guardarTareas(List<Tarea> tareas) {
+        // 🔍 PASO 0: Si el contenido es idéntico al que ya está en disco, no escribir nada
+        if (sinCambiosDesdeUltimoGuardado(tareas)) {
+            guardadosOmitidos++;
+            return;
+        }
+        
         // 📝 PASO 1: Guardar en archivo principal (uso diario)
-        guardarEnArchivoPrincipal(tareas);
+        // Si falla se avisa a quien guarda (RepositorioDiferido lo reintenta)
+        try {
+            guardarEnArchivoPrincipal(tareas);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error al guardar tareas en archivo principal: " + e.getMessage(), e);
+        }
+        guardadosRealizados++;
         
         // 🛡️ PASO 2: Crear backup inmune alternante (solo en cambios)
         crearBackupAlternante(tareas);
+        
+        // 🧹 PASO 3: El journal ya quedó incluido en el archivo principal
+        vaciarJournal();
     }
     
     /**
-     * Guarda las tareas en el archivo principal con escritura atómica.
+     * Compara la huella (CRC32) de lo que se escribiría con la del archivo principal.
+     * Solo serializa en memoria (sin tocar el disco). Si hay registros en el
+     * journal, el archivo principal está desactualizado y hay que escribir.
      */
-    private void guardarEnArchivoPrincipal(List<Tarea> tareas) {
-        String archivoTemporal = ARCHIVO_TAREAS + ".tmp";
-        
+    private boolean sinCambiosDesdeUltimoGuardado(List<Tarea> tareas) {
+        if (huellaArchivoPrincipal == -1 || registrosEnJournal > 0 || new File(obtenerRutaJournal()).exists()) {
+            return false;
+        }
         try {
-            // Escribir a archivo temporal primero (escritura atómica)
-            escribirTareasAArchivo(tareas, archivoTemporal);
-            
-            // Solo si se escribió correctamente, reemplazar el archivo principal
-            Files.move(new File(archivoTemporal).toPath(), 
-                      new File(ARCHIVO_TAREAS).toPath(), 
-                      StandardCopyOption.REPLACE_EXISTING);
-                      
+            return escribirTareas(tareas, OutputStream.nullOutputStream()) == huellaArchivoPrincipal;
         } catch (IOException e) {
-            System.err.println("Error al guardar tareas en archivo principal: " + e.getMessage());
+            return false;
         }
     }
     
+    @Override
+    public boolean registraCambiosPuntuales() {
+        return usarJournal;
+    }
+    
+    @Override
+    public void registrarAgregada(Collection<Tarea> tareas, Tarea tarea) {
+        registrarCambio(tareas, "add", tarea, true);
+    }
+    
+    @Override
+    public void registrarActualizada(Collection<Tarea> tareas, Tarea tarea) {
+        registrarCambio(tareas, "set", tarea, true);
+    }
+    
+    @Override
+    public void registrarActualizadas(Collection<Tarea> tareas, Collection<Tarea> cambiadas) {
+        registrarCambios(tareas, "set", cambiadas, true);
+    }
+    
+    @Override
+    public void registrarEliminada(Collection<Tarea> tareas, Tarea tarea) {
+        registrarCambio(tareas, "del", tarea, false);
+    }
+    
+    /**
+     * Agrega un registro al journal. Si el journal está desactivado, creció
+     * demasiado o falla la escritura, hace un guardado completo (que lanza
+     * UncheckedIOException si tampoco se pudo escribir).
+     */
+    private void registrarCambio(Collection<Tarea> tareas, String operacion, Tarea tarea, boolean conDatos) {
+        registrarCambios(tareas, operacion, Collections.singletonList(tarea), conDatos);
+    }
+    
+    /**
+     * Agrega un registro por tarea al journal, abriendo el archivo una sola vez.
+     */
+    private void registrarCambios(Collection<Tarea> tareas, String operacion, Collection<Tarea> cambiadas, boolean conDatos) {
+        if (!usarJournal || huellaArchivoPrincipal == -1 || registrosEnJournal + cambiadas.size() > MAX_REGISTROS_JOURNAL) {
+            guardarTareas(new ArrayList<>(tareas));
+            return;
+        }
+        
+        File journal = new File(obtenerRutaJournal());
+        boolean nuevo = registrosEnJournal == 0 || !journal.exists();
+        try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(journal, !nuevo), StandardCharsets.UTF_8))) {
+            if (nuevo) {
+                // Cabecera: huella del archivo principal sobre el que se aplican los cambios
+                writer.println("{\"base\":" + huellaArchivoPrincipal + "}");
+            }
+            for (Tarea tarea : cambiadas) {
+                writer.print("{\"op\":\"" + operacion + "\",\"id\":" + tarea.getId());
+                if (conDatos) {
+                    writer.print(",\"tarea\":");
+                    escribirTareaJSON(writer, tarea);
+                }
+                writer.println("}");
+            }
+            writer.flush();
+            if (writer.checkError()) {
+                throw new IOException("no se pudo escribir " + journal.getName());
+            }
+            registrosEnJournal += cambiadas.size();
+            registrosJournalEscritos += cambiadas.size();
+        } catch (IOException e) {
+            System.err.println("Error al escribir el journal, guardando completo: " + e.getMessage());
+            guardarTareas(new ArrayList<>(tareas));
+        }
+    }
+    
+    /**
+     * Borra el journal después de un guardado completo.
+     */
+    private void vaciarJournal() {
+        File journal = new File(obtenerRutaJournal());
+        if (journal.exists() && !journal.delete()) {
+            // No se pudo borrar: queda con una huella vieja y se ignorará al cargar
+            System.err.println("No se pudo vaciar el journal: " + journal.getPath());
+        }
+        registrosEnJournal = 0;
+    }
+    
+    /**
+     * Guarda las tareas en el archivo principal con escritura atómica.
+     */
+    private void guardarEnArchivoPrincipal(List<Tarea> tareas) throws IOException {
+        String archivoTemporal = ARCHIVO_TAREAS + ".tmp";
+        
+        // Escribir a archivo temporal primero (escritura atómica)
+        long huella = escribirTareasAArchivo(tareas, archivoTemporal);
+        
+        // Solo si se escribió correctamente, reemplazar el archivo principal
+        Files.move(new File(archivoTemporal).toPath(), 
+                  new File(ARCHIVO_TAREAS).toPath(), 
+                  StandardCopyOption.REPLACE_EXISTING);
+        huellaArchivoPrincipal = huella;
+    }
+    
     /**
      * Crea backup alternante demínima exposición
      */
@@ -170,30 +341,144 @@ public class RepositorioJSON implements IRepositorioTareas {
     
     /**
      * Método auxiliar para escribir tareas a cualquier archivo.
+     * Devuelve la huella (CRC32) de lo escrito.
      */
-    private void escribirTareasAArchivo(List<Tarea> tareas, String rutaArchivo) throws IOException {
-        try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(rutaArchivo), StandardCharsets.UTF_8))) {
-            writer.println("[");
-            for (int i = 0; i < tareas.size(); i++) {
-                Tarea tarea = tareas.get(i);
-                writer.print("  ");
-                escribirTareaJSON(writer, tarea);
-                if (i < tareas.size() - 1) {
-                    writer.println(",");
-                } else {
-                    writer.println();
-                }
+    private long escribirTareasAArchivo(List<Tarea> tareas, String rutaArchivo) throws IOException {
+        try (OutputStream archivo = new FileOutputStream(rutaArchivo)) {
+            return escribirTareas(tareas, archivo);
+        }
+    }
+    
+    /**
+     * Serializa las tareas en la salida indicada y devuelve la huella (CRC32) de los bytes.
+     */
+    private long escribirTareas(List<Tarea> tareas, OutputStream destino) throws IOException {
+        CheckedOutputStream salida = new CheckedOutputStream(destino, new CRC32());
+        PrintWriter writer = new PrintWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+        writer.println("[");
+        for (int i = 0; i < tareas.size(); i++) {
+            Tarea tarea = tareas.get(i);
+            writer.print("  ");
+            escribirTareaJSON(writer, tarea);
+            if (i < tareas.size() - 1) {
+                writer.println(",");
+            } else {
+                writer.println();
             }
-            writer.println("]");
-            writer.flush(); // Asegurar que se escriba todo
         }
+        writer.println("]");
+        writer.flush(); // Asegurar que se escriba todo
+        if (writer.checkError()) {
+            throw new IOException("error de escritura");
+        }
+        return salida.getChecksum().getValue();
     }@Override
     public List<Tarea> cargarTareas() {
         // AL INICIO: Restaurar desde backup más reciente al archivo principal
         restaurarDesdeBackupMasReciente();
         
         // USAR ARCHIVO PRINCIPAL para operaciones normales
-        return intentarCargarArchivo(ARCHIVO_TAREAS);
+        List<Tarea> tareas = intentarCargarArchivo(ARCHIVO_TAREAS);
+        
+        // Aplicar los cambios que quedaron en el journal y compactar.
+        // También se reescribe si el archivo era de antes de los ids, para que queden fijos.
+        if (aplicarJournal(tareas) > 0 || faltabanIds) {
+            try {
+                guardarTareas(tareas);
+            } catch (UncheckedIOException e) {
+                // Se cargó igual: el journal sigue en disco y se compacta en el próximo guardado
+                System.err.println(e.getMessage());
+            }
+        }
+        return tareas;
+    }
+    
+    /**
+     * Reaplica los registros del journal sobre las tareas cargadas.
+     * Solo se usa si la huella de la cabecera coincide con el archivo principal.
+     * Un registro incompleto (corte de luz a mitad de escritura) corta la lectura.
+     * Devuelve cuántos registros se aplicaron.
+     */
+    private int aplicarJournal(List<Tarea> tareas) {
+        File journal = new File(obtenerRutaJournal());
+        if (!journal.exists()) {
+            return 0;
+        }
+        
+        int aplicados = 0;
+        try (Reader reader = new InputStreamReader(new FileInputStream(journal), StandardCharsets.UTF_8)) {
+            LectorTareasJSON lector = new LectorTareasJSON(reader);
+            
+            // Cabecera: {"base":huella}
+            long base = -1;
+            for (String clave = lector.iniciarObjeto(); clave != null; clave = lector.siguienteClave()) {
+                if ("base".equals(clave)) {
+                    base = lector.leerNumero();
+                } else {
+                    lector.saltarValor();
+                }
+            }
+            if (huellaArchivoPrincipal == -1 || base != huellaArchivoPrincipal) {
+                return 0; // Journal de otro archivo principal (ya incluido o huérfano)
+            }
+            
+            // Registros: {"op":"add|set|del","id":n,"tarea":{...}}
+            // (los journals anteriores a los ids usan "indice" en lugar de "id")
+            Map<Long, Tarea> porId = new LinkedHashMap<>();
+            for (Tarea tarea : tareas) {
+                porId.put(tarea.getId(), tarea);
+            }
+            try {
+                while (lector.hayMasObjetos()) {
+                    String operacion = null;
+                    long id = 0;
+                    int indice = -1;
+                    Tarea tarea = null;
+                    for (String clave = lector.iniciarObjeto(); clave != null; clave = lector.siguienteClave()) {
+                        switch (clave) {
+                            case "op": operacion = lector.leerTexto(); break;
+                            case "id": id = lector.leerNumero(); break;
+                            case "indice": indice = (int) lector.leerNumero(); break;
+                            case "tarea": tarea = lector.leerTarea(); break;
+                            default: lector.saltarValor(); break;
+                        }
+                    }
+                    if (id == 0 && indice >= 0 && indice < porId.size()) {
+                        id = idEnPosicion(porId, indice);
+                    }
+                    
+                    if ("del".equals(operacion) && porId.remove(id) != null) {
+                        aplicados++;
+                    } else if ("add".equals(operacion) && tarea != null) {
+                        porId.put(tarea.getId(), tarea);
+                        aplicados++;
+                    } else if ("set".equals(operacion) && tarea != null && porId.containsKey(id)) {
+                        tarea.setId(id);
+                        porId.put(id, tarea); // Reemplaza sin cambiar la posición
+                        aplicados++;
+                    }
+                    // Cualquier otro registro es inválido y se saltea
+                }
+            } finally {
+                if (aplicados > 0) {
+                    tareas.clear();
+                    tareas.addAll(porId.values());
+                }
+            }
+        } catch (Exception e) {
+            // Registro cortado o journal ilegible: se conserva lo aplicado hasta el error
+        }
+        return aplicados;
+    }
+    
+    private static long idEnPosicion(Map<Long, Tarea> porId, int indice) {
+        int i = 0;
+        for (Long id : porId.keySet()) {
+            if (i++ == indice) {
+                return id;
+            }
+        }
+        return 0;
     }
     
     /**
@@ -237,25 +522,27 @@ public class RepositorioJSON implements IRepositorioTareas {
     private List<Tarea> intentarCargarArchivo(String nombreArchivo) {
         List<Tarea> tareas = new ArrayList<>();
         File archivo = new File(nombreArchivo);
+        faltabanIds = false;
         
         if (!archivo.exists()) {
             return tareas; // Lista vacía si no existe
         }
         
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(archivo), StandardCharsets.UTF_8))) {
-            StringBuilder contenido = new StringBuilder();
-            String linea;
-            while ((linea = reader.readLine()) != null) {
-                contenido.append(linea);
-            }            // Verificar que el contenido sea un JSON válido
-            String contenidoStr = contenido.toString().trim();
-            if (contenidoStr.isEmpty() || contenidoStr.length() < 3 || 
-                !contenidoStr.startsWith("[") || !contenidoStr.endsWith("]") ||
-                contenidoStr.equals("[]") || contenidoStr.equals("[")) {
-                return tareas; // Archivo corrupto, devolver lista vacía silenciosamente
-            }            tareas = parsearTareasJSON(contenidoStr);
+        try (CheckedInputStream entrada = new CheckedInputStream(new FileInputStream(archivo), new CRC32());
+             Reader reader = new InputStreamReader(entrada, StandardCharsets.UTF_8)) {
+            // Leer y armar las tareas en una sola pasada (sin cargar todo el archivo en memoria)
+            LectorTareasJSON lector = new LectorTareasJSON(reader);
+            tareas = lector.leerArreglo();
+            faltabanIds = lector.getTareasSinId() > 0;
+            
+            // Después del ']' solo puede haber espacios; si hay algo más, está corrupto
+            if (lector.hayMasObjetos()) {
+                return new ArrayList<>();
+            }
+            huellaArchivoPrincipal = entrada.getChecksum().getValue();
         } catch (Exception e) {
-            // Error al leer archivo, devolver lista vacía silenciosamente
+            // Archivo corrupto o error al leer, devolver lista vacía silenciosamente
+            tareas = new ArrayList<>();
         }
         
         return tareas;
@@ -281,14 +568,8 @@ public class RepositorioJSON implements IRepositorioTareas {
     }
       @Override
     public List<Tarea> importarTareas(String archivo) {
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(archivo), StandardCharsets.UTF_8))) {
-            StringBuilder contenido = new StringBuilder();
-            String linea;
-            while ((linea = reader.readLine()) != null) {
-                contenido.append(linea);
-            }
-            
-            return parsearTareasJSON(contenido.toString());
+        try (Reader reader = new InputStreamReader(new FileInputStream(archivo), StandardCharsets.UTF_8)) {
+            return new LectorTareasJSON(reader).leerArreglo();
         } catch (IOException e) {
             throw new RuntimeException("Error al importar tareas: " + e.getMessage());
         }
@@ -296,6 +577,7 @@ public class RepositorioJSON implements IRepositorioTareas {
     
     private void escribirTareaJSON(PrintWriter writer, Tarea tarea) {
         writer.print("{");
+        writer.print("\"id\":" + tarea.getId() + ",");
         writer.print("\"nombre\":\"" + escaparJSON(tarea.getNombre()) + "\",");
         writer.print("\"fecha\":\"" + tarea.getFecha().toString() + "\",");
         writer.print("\"hora\":\"" + tarea.getHora().toString() + "\",");
@@ -328,140 +610,32 @@ public class RepositorioJSON implements IRepositorioTareas {
                    .replace("\r", "\\r")
                    .replace("\t", "\\t");
     }
-      private List<Tarea> parsearTareasJSON(String contenido) {
-        List<Tarea> tareas = new ArrayList<>();
-        
-        try {
-            contenido = contenido.trim();
-            if (!contenido.startsWith("[") || !contenido.endsWith("]")) {
-                return tareas;
-            }
-            
-            // Remover corchetes externos
-            contenido = contenido.substring(1, contenido.length() - 1).trim();
-            
-            if (contenido.isEmpty()) {
-                return tareas;
-            }
-            
-            // Separar objetos JSON
-            List<String> objetosJSON = new ArrayList<>();
-            int nivel = 0;
-            StringBuilder objetoActual = new StringBuilder();
-            
-            for (int i = 0; i < contenido.length(); i++) {
-                char c = contenido.charAt(i);
-                
-                if (c == '{') {
-                    nivel++;
-                } else if (c == '}') {
-                    nivel--;
-                }
-                
-                objetoActual.append(c);
-                
-                if (nivel == 0 && c == '}') {
-                    objetosJSON.add(objetoActual.toString().trim());
-                    objetoActual = new StringBuilder();
-                    // Saltar coma y espacios
-                    while (i + 1 < contenido.length() && (contenido.charAt(i + 1) == ',' || Character.isWhitespace(contenido.charAt(i + 1)))) {
-                        i++;
-                    }
-                }
-            }
-            
-            // Parsear cada objeto
-            for (String objetoJSON : objetosJSON) {
-                Tarea tarea = parsearTareaIndividual(objetoJSON);
-                if (tarea != null) {
-                    tareas.add(tarea);
-                }
-            }
-              } catch (Exception e) {
-            // Error al parsear JSON, devolver lista vacía
-        }
-        
-        return tareas;
+      /**
+     * Obtiene la ruta del archivo de tareas (para verificación).
+     */
+    public String obtenerRutaArchivoTareas() {
+        return ARCHIVO_TAREAS;
     }
     
-    private Tarea parsearTareaIndividual(String objetoJSON) {
-        try {
-            String nombre = extraerValor(objetoJSON, "nombre");
-            String fechaStr = extraerValor(objetoJSON, "fecha");
-            String horaStr = extraerValor(objetoJSON, "hora");
-            String tipoStr = extraerValor(objetoJSON, "tipo");
-            boolean completada = Boolean.parseBoolean(extraerValor(objetoJSON, "completada"));
-            boolean alertaActiva = Boolean.parseBoolean(extraerValor(objetoJSON, "alertaActiva"));
-            int minutosAntesAlerta = Integer.parseInt(extraerValor(objetoJSON, "minutosAntesAlerta", "0"));
-            int repeticionesCompletadas = Integer.parseInt(extraerValor(objetoJSON, "repeticionesCompletadas", "0"));
-            
-            LocalDate fecha = LocalDate.parse(fechaStr);
-            LocalTime hora = LocalTime.parse(horaStr);
-            Tarea.TipoTarea tipo = Tarea.TipoTarea.valueOf(tipoStr);
-            
-            Tarea tarea = new Tarea(nombre, fecha, hora, tipo);
-            tarea.setCompletada(completada);
-            tarea.setAlertaActiva(alertaActiva);
-            tarea.setMinutosAntesAlerta(minutosAntesAlerta);
-            tarea.setRepeticionesCompletadas(repeticionesCompletadas);
-            
-            String fechaUltimaCompletadaStr = extraerValor(objetoJSON, "fechaUltimaCompletada");
-            if (fechaUltimaCompletadaStr != null && !fechaUltimaCompletadaStr.isEmpty()) {
-                tarea.setFechaUltimaCompletada(LocalDate.parse(fechaUltimaCompletadaStr));
-            }
-            
-            return tarea;
-              } catch (Exception e) {
-            // Error al parsear tarea individual, devolver null
-            return null;
-        }
+    /**
+     * Guardados completos que escribieron el archivo principal y un backup.
+     */
+    public long getGuardadosRealizados() {
+        return guardadosRealizados;
     }
     
-    private String extraerValor(String json, String clave) {
-        return extraerValor(json, clave, null);
+    /**
+     * Guardados completos omitidos porque el contenido no había cambiado.
+     */
+    public long getGuardadosOmitidos() {
+        return guardadosOmitidos;
     }
     
-    private String extraerValor(String json, String clave, String valorPorDefecto) {
-        String patron = "\"" + clave + "\":";
-        int inicio = json.indexOf(patron);
-        if (inicio == -1) {
-            return valorPorDefecto;
-        }
-        
-        inicio += patron.length();
-        while (inicio < json.length() && Character.isWhitespace(json.charAt(inicio))) {
-            inicio++;
-        }
-        
-        if (inicio >= json.length()) {
-            return valorPorDefecto;
-        }
-        
-        int fin;
-        if (json.charAt(inicio) == '"') {
-            // Valor string
-            inicio++; // Saltar comilla inicial
-            fin = inicio;
-            while (fin < json.length() && json.charAt(fin) != '"') {
-                if (json.charAt(fin) == '\\') {
-                    fin++; // Saltar caracter
-                }
-                fin++;
-            }
-            return json.substring(inicio, fin);
-        } else {
-            // Valor numérico o booleano
-            fin = inicio;
-            while (fin < json.length() && json.charAt(fin) != ',' && json.charAt(fin) != '}') {
-                fin++;
-            }            return json.substring(inicio, fin).trim();
-        }
-    }
-      /**
-     * Obtiene la ruta del archivo de tareas (para verificación).
+    /**
+     * Registros agregados al journal (cambios puntuales).
      */
-    public String obtenerRutaArchivoTareas() {
-        return ARCHIVO_TAREAS;
+    public long getRegistrosJournalEscritos() {
+        return registrosJournalEscritos;
     }
     
     /**
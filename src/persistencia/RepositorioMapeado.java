@@ -0,0 +1,597 @@
+/*
+ * DeskAgenda - Persistencia en archivo mapeado a memoria
+ *
+ * Para agendas muy grandes: las tareas se leen del archivo sin interpretar
+ * texto, y cada cambio puntual escribe un solo registro.
+ */
+package persistencia;
+
+// === IMPORTS DE LÓGICA ===
+import logica.Tarea;                    // Estructura de datos de una tarea
+
+// === IMPORTS DE ENTRADA/SALIDA (I/O) ===
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+// === IMPORTS DE FECHA Y HORA ===
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+// === IMPORTS DE COLECCIONES ===
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * REPOSITORIO MAPEADO - REGISTROS DE TAMAÑO FIJO
+ * ==============================================
+ *
+ * Las tareas viven en un archivo mapeado a memoria (FileChannel.map) con
+ * registros de 64 bytes:
+ *
+ *  CABECERA (64 bytes):
+ *    "DAGM" | versión (short) | - | registros usados (int) | vivos (int) | generación (long)
+ *
+ *  REGISTRO (64 bytes):
+ *     0 estado (1 = viva, 0 = borrada)     1 tipo     2 flags     3 díasSemana
+ *     4 fecha (días desde 1970)            8 hora (minuto del día, short)
+ *    10 largo del nombre en línea (short) 12 segundos antes de la alerta
+ *    16 repeticiones                      20 fechaUltimaCompletada (o "sin fecha")
+ *    24 posición del nombre en tareas.map.nombres (long, -1 = en línea)
+ *    32 id de la tarea (long, 0 = sin id)  40 nombre en línea (hasta 24 bytes UTF-8)
+ *
+ *  Los nombres más largos se agregan al final de tareas.map.nombres.N
+ *  (largo + bytes UTF-8), el de tareas.map.N. Entre guardados completos
+ *  solo crece; cada guardado completo lo escribe de nuevo, con los
+ *  nombres de las tareas vivas nada más.
+ *  (La versión 1 usaba un solo tareas.map.nombres para los dos archivos,
+ *  que nunca se achicaba. Se sigue leyendo; se borra cuando ya ningún
+ *  archivo lo usa.)
+ *
+ * ¿QUÉ SE GANA?
+ *  - Al iniciar cada tarea se arma leyendo campos de tamaño fijo, sin
+ *    interpretar JSON. Se arman todas: GestorTareas las necesita en
+ *    memoria para sus índices (tabla, fechas, ids)
+ *  - Completar, editar o agregar una tarea escribe un único registro
+ *    (se ubica por id; el índice id → registro se arma al primer cambio)
+ *  - Eliminar marca el registro como borrado (sin mover los demás)
+ *
+ * LO QUE NO SE GANA:
+ *  El inicio sigue siendo O(n): se lee cada registro y se arma cada Tarea
+ *  (unas 3 veces más rápido que cargar tareas.json, ver BenchPersistencia).
+ *  Hubo una versión que las armaba recién al pedirlas, pero GestorTareas
+ *  las recorre todas al cargar para sus índices, así que nunca ahorraba
+ *  nada y se quitó. Un inicio perezoso de verdad necesitaría índices
+ *  armados desde los registros, sin Tarea, y eso es otro cambio.
+ *
+ * GUARDADO COMPLETO:
+ *  Hay dos archivos, tareas.map.0 y tareas.map.1. Un guardado completo
+ *  escribe el que no está en uso (y sus nombres) y, al final, le pone
+ *  una generación mayor. Al cargar se usa el de generación más alta; el otro queda como
+ *  respaldo. Nunca se renombra ni se achica un archivo mapeado (en Windows
+ *  no se puede mientras siga mapeado).
+ *
+ * Los cambios puntuales quedan en la caché del sistema operativo y se
+ * fuerzan a disco en los guardados completos y al cerrar().
+ *
+ * Se usa sin RepositorioDiferido (escribe en el hilo de quien llama), así
+ * que los errores de escritura se informan por consola y no se lanzan.
+ */
+public class RepositorioMapeado implements IRepositorioTareas {
+
+    private static final int MAGIA = 0x4441474D; // "DAGM"
+    private static final short VERSION = 2;
+    private static final short VERSION_NOMBRES_COMPARTIDOS = 1; // Un solo tareas.map.nombres
+
+    static final int TAMANO_CABECERA = 64;
+    static final int TAMANO_REGISTRO = 64;
+    private static final int CAPACIDAD_INICIAL = 1024;       // Registros
+    private static final int LARGO_NOMBRE_EN_LINEA = 24;
+    private static final int SIN_FECHA = Integer.MIN_VALUE;
+    private static final byte VIVA = 1;
+    private static final byte BORRADA = 0;
+
+    // Posiciones dentro de la cabecera
+    private static final int CAB_VERSION = 4;
+    private static final int CAB_USADOS = 8;
+    private static final int CAB_VIVOS = 12;
+    private static final int CAB_GENERACION = 16;
+
+    // Posiciones dentro de cada registro
+    private static final int REG_ESTADO = 0;
+    private static final int REG_TIPO = 1;
+    private static final int REG_FLAGS = 2;
+    private static final int REG_DIAS = 3;
+    private static final int REG_FECHA = 4;
+    private static final int REG_MINUTO = 8;
+    private static final int REG_LARGO_NOMBRE = 10;
+    private static final int REG_SEGUNDOS_ALERTA = 12;
+    private static final int REG_REPETICIONES = 16;
+    private static final int REG_ULTIMA_COMPLETADA = 20;
+    private static final int REG_POSICION_NOMBRE = 24;
+    private static final int REG_ID = 32;
+    private static final int REG_NOMBRE = 40;
+
+    private final String base;              // tareas.map → tareas.map.0 / .1 / .nombres.0 / .nombres.1
+    private final RepositorioJSON formatoIntercambio = new RepositorioJSON(false); // Exportar/importar/migrar
+
+    // === ARCHIVO EN USO ===
+    private int activo = -1;                // 0 o 1 (-1 = sin abrir)
+    private FileChannel canal;
+    private MappedByteBuffer mapa;
+    private FileChannel canalNombres;       // Nombres largos del archivo en uso
+    private short versionActiva;            // Versión del archivo en uso
+    private long generacion;
+    private int usados;                     // Registros escritos (vivos y borrados)
+    private int vivos;
+
+    private Map<Long, Integer> slotPorId;               // Registro de cada tarea (null = sin armar)
+
+    // === MÉTRICAS ===
+    private long escriturasDeRegistro = 0;
+    private long guardadosCompletos = 0;
+
+    /**
+     * Usa tareas.map.* en la misma carpeta que tareas.json.
+     */
+    public RepositorioMapeado() {
+        String rutaJSON = formatoIntercambio.obtenerRutaArchivoTareas();
+        int puntoIndex = rutaJSON.lastIndexOf('.');
+        this.base = (puntoIndex > 0 ? rutaJSON.substring(0, puntoIndex) : rutaJSON) + ".map";
+    }
+
+    public RepositorioMapeado(String base) {
+        this.base = base;
+    }
+
+    @Override
+    public List<Tarea> cargarTareas() {
+        try {
+            cerrarCanales();
+            if (!abrir()) {
+                // Primera vez (o ambos archivos dañados): migrar desde tareas.json
+                List<Tarea> desdeJSON = formatoIntercambio.cargarTareas();
+                reescribir(desdeJSON);
+            }
+        } catch (IOException e) {
+            System.err.println("Error al abrir el archivo de tareas mapeado: " + e.getMessage());
+            cerrarCanales();
+            return formatoIntercambio.cargarTareas();
+        }
+
+        List<Tarea> tareas = new ArrayList<>(vivos);
+        try {
+            for (int slot = 0; slot < usados && tareas.size() < vivos; slot++) {
+                if (mapa.get(posicion(slot) + REG_ESTADO) == VIVA) {
+                    tareas.add(leerRegistro(slot));
+                }
+            }
+        } catch (UncheckedIOException e) {
+            System.err.println("Error al leer el archivo de tareas mapeado: " + e.getMessage());
+            cerrarCanales();
+            return formatoIntercambio.cargarTareas();
+        }
+        return tareas;
+    }
+
+    @Override
+    public void guardarTareas(List<Tarea> tareas) {
+        try {
+            reescribir(tareas);
+        } catch (IOException e) {
+            System.err.println("Error al guardar tareas en el archivo mapeado: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean registraCambiosPuntuales() {
+        return true;
+    }
+
+    @Override
+    public void registrarAgregada(Collection<Tarea> tareas, Tarea tarea) {
+        if (mapa == null) {
+            guardarTareas(new ArrayList<>(tareas));
+            return;
+        }
+        try {
+            Map<Long, Integer> registros = slotsPorId();
+            asegurarCapacidad(usados + 1);
+            int slot = usados;
+            escribirRegistro(mapa, posicion(slot), tarea, canalNombres); // Siempre al final, como en la lista
+            usados++;
+            vivos++;
+            escribirContadores(mapa, usados, vivos);
+            registros.put(tarea.getId(), slot);
+            escriturasDeRegistro++;
+        } catch (IOException e) {
+            System.err.println("Error al agregar tarea al archivo mapeado: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void registrarActualizada(Collection<Tarea> tareas, Tarea tarea) {
+        Integer slot = mapa == null ? null : slotsPorId().get(tarea.getId());
+        if (slot == null) {
+            guardarTareas(new ArrayList<>(tareas));
+            return;
+        }
+        try {
+            escribirRegistro(mapa, posicion(slot), tarea, canalNombres);
+            escriturasDeRegistro++;
+        } catch (IOException e) {
+            System.err.println("Error al actualizar tarea en el archivo mapeado: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void registrarActualizadas(Collection<Tarea> tareas, Collection<Tarea> cambiadas) {
+        for (Tarea tarea : cambiadas) {
+            if (mapa == null || !slotsPorId().containsKey(tarea.getId())) {
+                guardarTareas(new ArrayList<>(tareas)); // Alguna no está en el archivo: reescribir todo
+                return;
+            }
+        }
+        for (Tarea tarea : cambiadas) {
+            registrarActualizada(tareas, tarea);
+        }
+    }
+
+    @Override
+    public void registrarEliminada(Collection<Tarea> tareas, Tarea tarea) {
+        Integer slot = mapa == null ? null : slotsPorId().remove(tarea.getId());
+        if (slot == null) {
+            guardarTareas(new ArrayList<>(tareas));
+            return;
+        }
+        mapa.put(posicion(slot) + REG_ESTADO, BORRADA);
+        vivos--;
+        escribirContadores(mapa, usados, vivos);
+        escriturasDeRegistro++;
+
+        // Si más de la mitad son borrados, compactar
+        if (usados > CAPACIDAD_INICIAL && usados - vivos > vivos) {
+            guardarTareas(new ArrayList<>(tareas));
+        }
+    }
+
+    @Override
+    public void exportarTareas(List<Tarea> tareas, String archivo) {
+        formatoIntercambio.exportarTareas(tareas, archivo);
+    }
+
+    @Override
+    public List<Tarea> importarTareas(String archivo) {
+        return formatoIntercambio.importarTareas(archivo);
+    }
+
+    /**
+     * Fuerza a disco lo escrito y cierra los archivos. Se llama al cerrar la aplicación.
+     */
+    public void cerrar() {
+        if (mapa != null) {
+            mapa.force();
+        }
+        cerrarCanales();
+    }
+
+    /**
+     * Ruta del archivo en uso (tareas.map.0 o tareas.map.1).
+     */
+    public String obtenerRutaArchivoTareas() {
+        return rutaDatos(activo < 0 ? 0 : activo);
+    }
+
+    public long getEscriturasDeRegistro() { return escriturasDeRegistro; }
+    public long getGuardadosCompletos() { return guardadosCompletos; }
+
+    // === ARCHIVOS ===
+
+    private String rutaDatos(int numero) {
+        return base + "." + numero;
+    }
+
+    private String rutaNombres(int numero) {
+        return base + ".nombres." + numero;
+    }
+
+    private String rutaNombresCompartidos() {
+        return base + ".nombres";
+    }
+
+    /**
+     * Abre el archivo de generación más alta. Devuelve false si no hay ninguno válido.
+     */
+    private boolean abrir() throws IOException {
+        long generacion0 = leerGeneracion(new File(rutaDatos(0)));
+        long generacion1 = leerGeneracion(new File(rutaDatos(1)));
+        if (generacion0 <= 0 && generacion1 <= 0) {
+            return false;
+        }
+        int numero = generacion1 > generacion0 ? 1 : 0;
+        generacion = Math.max(generacion0, generacion1);
+
+        canal = abrirCanal(rutaDatos(numero));
+        mapa = mapear(canal, capacidadDelArchivo(canal));
+        activo = numero;
+        versionActiva = mapa.getShort(CAB_VERSION);
+        canalNombres = abrirCanal(versionActiva == VERSION ? rutaNombres(numero) : rutaNombresCompartidos());
+        generacion = mapa.getLong(CAB_GENERACION);
+        usados = mapa.getInt(CAB_USADOS);
+        vivos = mapa.getInt(CAB_VIVOS);
+        if (usados < 0 || usados > capacidad(mapa) || vivos < 0 || vivos > usados) {
+            throw new IOException("cabecera inválida en " + rutaDatos(numero));
+        }
+        return true;
+    }
+
+    /**
+     * Generación guardada en la cabecera, o 0 si el archivo no existe o no es válido.
+     */
+    private static long leerGeneracion(File archivo) {
+        if (!archivo.exists() || archivo.length() < TAMANO_CABECERA) {
+            return 0;
+        }
+        try (FileChannel lector = FileChannel.open(archivo.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer cabecera = ByteBuffer.allocate(TAMANO_CABECERA);
+            while (cabecera.hasRemaining() && lector.read(cabecera) >= 0) {
+                // Leer la cabecera completa
+            }
+            short version = cabecera.getShort(CAB_VERSION);
+            if (cabecera.getInt(0) != MAGIA || (version != VERSION && version != VERSION_NOMBRES_COMPARTIDOS)) {
+                return 0;
+            }
+            return cabecera.getLong(CAB_GENERACION);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Guardado completo: escribe todas las tareas (y sus nombres largos) en
+     * el archivo que no está en uso y pasa a usarlo.
+     */
+    private void reescribir(List<Tarea> tareas) throws IOException {
+        int numero = activo == 0 ? 1 : 0;
+        FileChannel nuevoCanal = abrirCanal(rutaDatos(numero));
+        FileChannel nuevosNombres = null;
+        try {
+            int cantidad = tareas.size();
+            int capacidad = Math.max(capacidadDelArchivo(nuevoCanal), Math.max(CAPACIDAD_INICIAL, cantidad + cantidad / 2));
+            MappedByteBuffer nuevoMapa = mapear(nuevoCanal, capacidad);
+
+            // 1. Invalidar el archivo mientras se escribe
+            nuevoMapa.putInt(0, MAGIA);
+            nuevoMapa.putShort(CAB_VERSION, VERSION);
+            nuevoMapa.putLong(CAB_GENERACION, 0);
+            nuevoMapa.force();
+
+            // 2. Nombres desde cero (los que había eran del archivo que se reemplaza) y registros
+            nuevosNombres = abrirCanal(rutaNombres(numero));
+            nuevosNombres.truncate(0);
+            for (int i = 0; i < cantidad; i++) {
+                escribirRegistro(nuevoMapa, posicion(i), tareas.get(i), nuevosNombres);
+            }
+            escribirContadores(nuevoMapa, cantidad, cantidad);
+            nuevosNombres.force(false);
+            nuevoMapa.force();
+
+            // 3. Recién ahora pasa a ser el archivo más nuevo
+            nuevoMapa.putLong(CAB_GENERACION, generacion + 1);
+            nuevoMapa.force();
+
+            if (canal != null) {
+                canal.close();
+            }
+            if (canalNombres != null) {
+                canalNombres.close();
+            }
+            // El archivo anterior queda de respaldo: si ya tenía sus propios
+            // nombres, el tareas.map.nombres de la versión 1 no lo usa nadie
+            boolean sinNombresCompartidos = activo >= 0 && versionActiva == VERSION;
+            canal = nuevoCanal;
+            canalNombres = nuevosNombres;
+            mapa = nuevoMapa;
+            activo = numero;
+            versionActiva = VERSION;
+            if (sinNombresCompartidos) {
+                new File(rutaNombresCompartidos()).delete();
+            }
+            generacion++;
+            usados = cantidad;
+            vivos = cantidad;
+            slotPorId = null;
+            guardadosCompletos++;
+        } catch (IOException | RuntimeException e) {
+            nuevoCanal.close();
+            if (nuevosNombres != null) {
+                nuevosNombres.close();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Índice id → registro de las tareas vivas. Se arma la primera vez que hace
+     * falta leyendo solo el id de cada registro.
+     */
+    private Map<Long, Integer> slotsPorId() {
+        if (slotPorId == null) {
+            slotPorId = new HashMap<>(Math.max(16, vivos * 4 / 3 + 1));
+            for (int slot = 0; slot < usados; slot++) {
+                if (mapa.get(posicion(slot) + REG_ESTADO) == VIVA) {
+                    slotPorId.put(leerId(slot), slot);
+                }
+            }
+        }
+        return slotPorId;
+    }
+
+    private void asegurarCapacidad(int registros) throws IOException {
+        int capacidad = capacidad(mapa);
+        if (registros > capacidad) {
+            mapa = mapear(canal, Math.max(registros, capacidad * 2)); // El archivo crece solo
+        }
+    }
+
+    private void cerrarCanales() {
+        try {
+            if (canal != null) {
+                canal.close();
+            }
+            if (canalNombres != null) {
+                canalNombres.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Error al cerrar el archivo de tareas mapeado: " + e.getMessage());
+        }
+        canal = null;
+        canalNombres = null;
+        mapa = null;
+        activo = -1;
+    }
+
+    private static FileChannel abrirCanal(String ruta) throws IOException {
+        return FileChannel.open(new File(ruta).toPath(),
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+    }
+
+    private static MappedByteBuffer mapear(FileChannel canal, int capacidad) throws IOException {
+        return canal.map(FileChannel.MapMode.READ_WRITE, 0, TAMANO_CABECERA + (long) capacidad * TAMANO_REGISTRO);
+    }
+
+    private static int capacidadDelArchivo(FileChannel canal) throws IOException {
+        long registros = (canal.size() - TAMANO_CABECERA) / TAMANO_REGISTRO;
+        return (int) Math.max(CAPACIDAD_INICIAL, Math.min(registros, Integer.MAX_VALUE / TAMANO_REGISTRO - 1));
+    }
+
+    private static int capacidad(ByteBuffer mapa) {
+        return (mapa.capacity() - TAMANO_CABECERA) / TAMANO_REGISTRO;
+    }
+
+    private static int posicion(int slot) {
+        return TAMANO_CABECERA + slot * TAMANO_REGISTRO;
+    }
+
+    private static void escribirContadores(ByteBuffer destino, int usados, int vivos) {
+        destino.putInt(CAB_USADOS, usados);
+        destino.putInt(CAB_VIVOS, vivos);
+    }
+
+    // === REGISTROS ===
+
+    private void escribirRegistro(ByteBuffer destino, int posicion, Tarea tarea, FileChannel nombres) throws IOException {
+        byte[] nombre = tarea.getNombre().getBytes(StandardCharsets.UTF_8);
+        boolean enLinea = nombre.length <= LARGO_NOMBRE_EN_LINEA;
+        long posicionNombre = enLinea ? -1 : agregarNombre(nombres, nombre);
+        int flags = (tarea.isCompletada() ? RepositorioBinario.FLAG_COMPLETADA : 0)
+                | (tarea.isAlertaActiva() ? RepositorioBinario.FLAG_ALERTA : 0)
+                | (tarea.getFechaUltimaCompletada() != null ? RepositorioBinario.FLAG_ULTIMA_COMPLETADA : 0);
+
+        destino.put(posicion + REG_TIPO, (byte) tarea.getTipo().ordinal());
+        destino.put(posicion + REG_FLAGS, (byte) flags);
+        destino.put(posicion + REG_DIAS, (byte) RepositorioBinario.mascaraDias(tarea.getDiasSemana()));
+        destino.putInt(posicion + REG_FECHA, (int) tarea.getFecha().toEpochDay());
+        destino.putShort(posicion + REG_MINUTO, (short) (tarea.getHora().getHour() * 60 + tarea.getHora().getMinute()));
+        destino.putShort(posicion + REG_LARGO_NOMBRE, (short) (enLinea ? nombre.length : 0));
+        destino.putInt(posicion + REG_SEGUNDOS_ALERTA, tarea.getSegundosAntesAlerta());
+        destino.putInt(posicion + REG_REPETICIONES, tarea.getRepeticionesCompletadas());
+        destino.putInt(posicion + REG_ULTIMA_COMPLETADA, tarea.getFechaUltimaCompletada() != null
+                ? (int) tarea.getFechaUltimaCompletada().toEpochDay() : SIN_FECHA);
+        destino.putLong(posicion + REG_POSICION_NOMBRE, posicionNombre);
+        destino.putLong(posicion + REG_ID, tarea.getId());
+        for (int i = 0; i < LARGO_NOMBRE_EN_LINEA; i++) {
+            destino.put(posicion + REG_NOMBRE + i, enLinea && i < nombre.length ? nombre[i] : (byte) 0);
+        }
+        destino.put(posicion + REG_ESTADO, VIVA); // Último: el registro queda completo
+    }
+
+    private Tarea leerRegistro(int slot) {
+        int posicion = posicion(slot);
+        int minutoDelDia = mapa.getShort(posicion + REG_MINUTO);
+        Tarea tarea = new Tarea(leerNombre(posicion),
+                LocalDate.ofEpochDay(mapa.getInt(posicion + REG_FECHA)),
+                LocalTime.of(minutoDelDia / 60, minutoDelDia % 60),
+                RepositorioBinario.TIPOS[mapa.get(posicion + REG_TIPO)]);
+        tarea.setId(leerId(slot));
+
+        int flags = mapa.get(posicion + REG_FLAGS);
+        tarea.setCompletada((flags & RepositorioBinario.FLAG_COMPLETADA) != 0);
+        tarea.setAlertaActiva((flags & RepositorioBinario.FLAG_ALERTA) != 0);
+        tarea.setSegundosAntesAlerta(mapa.getInt(posicion + REG_SEGUNDOS_ALERTA));
+        tarea.setRepeticionesCompletadas(mapa.getInt(posicion + REG_REPETICIONES));
+        int ultimaCompletada = mapa.getInt(posicion + REG_ULTIMA_COMPLETADA);
+        if (ultimaCompletada != SIN_FECHA) {
+            tarea.setFechaUltimaCompletada(LocalDate.ofEpochDay(ultimaCompletada));
+        }
+        int dias = mapa.get(posicion + REG_DIAS);
+        if (dias != 0) {
+            tarea.setDiasSemana(RepositorioBinario.diasDesdeMascara(dias));
+        }
+        return tarea;
+    }
+
+    /**
+     * Id guardado en el registro. Los registros sin id reciben uno nuevo, que
+     * se escribe en el momento para que no cambie entre lecturas.
+     */
+    private long leerId(int slot) {
+        int posicion = posicion(slot);
+        long id = mapa.getLong(posicion + REG_ID);
+        if (id == 0) {
+            id = Tarea.nuevoId();
+            mapa.putLong(posicion + REG_ID, id);
+        }
+        return id;
+    }
+
+    private String leerNombre(int posicion) {
+        long posicionNombre = mapa.getLong(posicion + REG_POSICION_NOMBRE);
+        if (posicionNombre < 0) {
+            byte[] nombre = new byte[mapa.getShort(posicion + REG_LARGO_NOMBRE)];
+            for (int i = 0; i < nombre.length; i++) {
+                nombre[i] = mapa.get(posicion + REG_NOMBRE + i);
+            }
+            return new String(nombre, StandardCharsets.UTF_8);
+        }
+        try {
+            ByteBuffer largo = ByteBuffer.allocate(4);
+            leerCompleto(largo, posicionNombre);
+            ByteBuffer nombre = ByteBuffer.allocate(largo.getInt(0));
+            leerCompleto(nombre, posicionNombre + 4);
+            return new String(nombre.array(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error al leer el nombre de una tarea", e);
+        }
+    }
+
+    private void leerCompleto(ByteBuffer destino, long desde) throws IOException {
+        while (destino.hasRemaining()) {
+            if (canalNombres.read(destino, desde + destino.position()) < 0) {
+                throw new IOException("tareas.map.nombres incompleto");
+            }
+        }
+    }
+
+    /**
+     * Agrega un nombre largo al final del archivo de nombres y devuelve dónde quedó.
+     */
+    private static long agregarNombre(FileChannel nombres, byte[] nombre) throws IOException {
+        long posicionNombre = nombres.size();
+        ByteBuffer registro = ByteBuffer.allocate(4 + nombre.length);
+        registro.putInt(nombre.length).put(nombre).flip();
+        long escrito = posicionNombre;
+        while (registro.hasRemaining()) {
+            escrito += nombres.write(registro, escrito);
+        }
+        return posicionNombre;
+    }
+}